@@ -0,0 +1,33 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Прогон бенчмарков с результатами в JSON (формат JMH), чтобы сравнивать релизы между собой.
+// Хранилище mongodb добавляется к остальным, только если на localhost:27017 отвечает сервер.
+// Запуск: java -cp benchmarks/target/benchmarks.jar org.example.benchmark.BenchmarkSuite [файл.json] [regexp бенчмарков]
+public final class BenchmarkSuite {
+
+    private BenchmarkSuite() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : "jmh-result.json";
+        String include = args.length > 1 ? args[1] : "Dao|SessionManager|ProcessCommand";
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output);
+        if (Fixtures.mongoAvailable()) {
+            options.param("storage", "memory", "json", "binary", "mongodb");
+        } else {
+            System.out.println("Mongo на " + Fixtures.MONGO_URI + " недоступна, хранилище mongodb пропущено");
+        }
+        new Runner(options.build()).run();
+        System.out.println("Результаты: " + output);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.dao.BoardGameDao;
+import org.example.dao.GameStatsSummary;
+import org.example.dao.SessionPage;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Чтение и запись через BoardGameDao без кэша поверх хранилища.
+// Mongo по умолчанию не входит: -p storage=mongodb или BenchmarkSuite, если сервер доступен
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoBenchmark {
+    private static final int GAMES = 100;
+
+    @Param({"memory", "json", "binary"})
+    private String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    private int sessions;
+
+    private Path dir;
+    private BoardGameDao dao;
+    private List<BoardGame> games;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = Fixtures.createDirectory();
+        dao = Fixtures.open(storage, dir);
+        games = Fixtures.fill(dao, GAMES, sessions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.close(storage, dao, dir);
+    }
+
+    @Benchmark
+    public SessionPage recentPage() {
+        return dao.getRecentSessions(5, null);
+    }
+
+    @Benchmark
+    public List<GameSession> sessionsByGame() {
+        return dao.getSessionsByGame(randomGame().getId(), 20);
+    }
+
+    // Месяц истории: при миллионе сессий около 27 тысяч
+    @Benchmark
+    public List<GameSession> sessionsInMonth() {
+        LocalDateTime to = Fixtures.END.minusDays(random.nextInt(1000));
+        return dao.getSessionsBetween(to.minusDays(30), to, 0);
+    }
+
+    @Benchmark
+    public GameStatsSummary gameStatistics() {
+        return dao.getGameStatistics(randomGame().getId());
+    }
+
+    // История растёт на каждом вызове; у json и binary в замер входит сброс записи на диск
+    @Benchmark
+    public GameSession addSession() {
+        GameSession session = Fixtures.session(random, randomGame(), Fixtures.END.plusSeconds(random.nextInt(3600)));
+        dao.addGameSession(session);
+        return session;
+    }
+
+    private BoardGame randomGame() {
+        return games.get(random.nextInt(games.size()));
+    }
+}
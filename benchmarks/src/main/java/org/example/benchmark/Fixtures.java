@@ -0,0 +1,170 @@
+package org.example.benchmark;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.dao.BoardGameDao;
+import org.example.dao.BoardGameDaoBinaryImpl;
+import org.example.dao.BoardGameDaoJsonImpl;
+import org.example.dao.BoardGameDaoMemoryImpl;
+import org.example.dao.BoardGameDaoMongoImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Синтетические коллекции и истории для бенчмарков: детерминированные (seed 42),
+// сессии равномерно за три года до END, 200 игроков, каждая пятидесятая — незавершённая
+final class Fixtures {
+    static final LocalDateTime END = LocalDateTime.of(2024, 6, 1, 0, 0);
+    static final int PLAYERS = 200;
+    static final String MONGO_URI = "mongodb://localhost:27017";
+    private static final String MONGO_DATABASE = "boardgames_benchmark";
+    private static final long HISTORY_SECONDS = 3L * 365 * 24 * 3600;
+    private static final int BATCH_SIZE = 5000;
+    private static final String[] CATEGORIES = {"Стратегия", "Карточная", "Кооперативная", "Семейная", "Вечериночная"};
+
+    private Fixtures() {
+    }
+
+    static String gameName(int index) {
+        return "Игра " + index;
+    }
+
+    static List<BoardGame> games(int count) {
+        Random random = new Random(42);
+        List<BoardGame> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int minPlayers = 1 + random.nextInt(3);
+            games.add(new BoardGame(null, gameName(i), "Описание " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    minPlayers, minPlayers + 1 + random.nextInt(5), 15 + random.nextInt(12) * 15));
+        }
+        return games;
+    }
+
+    // games — уже сохранённые игры с id; сессии без id, в случайном порядке по времени
+    static List<GameSession> sessions(List<BoardGame> games, int count) {
+        Random random = new Random(42);
+        List<GameSession> sessions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sessions.add(session(random, games.get(random.nextInt(games.size())),
+                    END.minusSeconds((long) (random.nextDouble() * HISTORY_SECONDS))));
+        }
+        return sessions;
+    }
+
+    // Те же сессии от старых к новым, заново созданные по порядку: так их отдаёт хранилище,
+    // и соседние по времени сессии лежат рядом в памяти, а не вразброс, как после сортировки
+    static List<GameSession> chronological(List<BoardGame> games, int count) {
+        List<GameSession> sorted = sessions(games, count);
+        sorted.sort(Comparator.comparing(GameSession::getDateTime));
+        List<GameSession> sessions = new ArrayList<>(count);
+        for (GameSession session : sorted) {
+            sessions.add(new GameSession(session.getId(), session.getGameId(), session.getGameName(),
+                    session.getDateTime(), new ArrayList<>(session.getPlayers()), session.getWinner(), session.getStatus()));
+        }
+        return sessions;
+    }
+
+    static GameSession session(Random random, BoardGame game, LocalDateTime dateTime) {
+        int playerCount = 2 + random.nextInt(4);
+        List<String> players = new ArrayList<>(playerCount);
+        while (players.size() < playerCount) {
+            String player = "Игрок " + random.nextInt(PLAYERS);
+            if (!players.contains(player)) {
+                players.add(player);
+            }
+        }
+        GameSession.GameStatus status = random.nextInt(50) == 0
+                ? GameSession.GameStatus.IN_PROGRESS : GameSession.GameStatus.PLAYED;
+        return new GameSession(null, game.getId(), game.getName(), dateTime,
+                players, players.get(random.nextInt(playerCount)), status);
+    }
+
+    // Заполняет хранилище пакетами, как это делает импорт; возвращает игры с присвоенными id
+    static List<BoardGame> fill(BoardGameDao dao, int gameCount, int sessionCount) {
+        dao.addGames(games(gameCount));
+        List<BoardGame> games = dao.getAllGames();
+        games.sort(Comparator.comparing(BoardGame::getName));
+        List<GameSession> sessions = sessions(games, sessionCount);
+        for (int from = 0; from < sessions.size(); from += BATCH_SIZE) {
+            dao.addGameSessions(new ArrayList<>(sessions.subList(from, Math.min(from + BATCH_SIZE, sessions.size()))));
+        }
+        return games;
+    }
+
+    // dir — пустой каталог для файловых хранилищ; база Mongo пересоздаётся
+    static BoardGameDao open(String storage, Path dir) {
+        switch (storage) {
+            case "memory":
+                return new BoardGameDaoMemoryImpl();
+            case "json":
+                return new BoardGameDaoJsonImpl(dir.toString());
+            case "binary":
+                return new BoardGameDaoBinaryImpl(dir.toString());
+            case "mongodb":
+                dropMongoDatabase();
+                return new BoardGameDaoMongoImpl(MONGO_URI, MONGO_DATABASE, "bench");
+            default:
+                throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+    }
+
+    static void close(String storage, BoardGameDao dao, Path dir) {
+        dao.close();
+        if (storage.equals("mongodb")) {
+            dropMongoDatabase();
+        }
+        deleteDirectory(dir);
+    }
+
+    // Есть ли локальный сервер Mongo; ждём не дольше секунды
+    static boolean mongoAvailable() {
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MONGO_URI))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            return true;
+        } catch (MongoException e) {
+            return false;
+        }
+    }
+
+    static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("boardgames-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteDirectory(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void dropMongoDatabase() {
+        try (MongoClient client = MongoClients.create(MONGO_URI)) {
+            client.getDatabase(MONGO_DATABASE).drop();
+        }
+    }
+}
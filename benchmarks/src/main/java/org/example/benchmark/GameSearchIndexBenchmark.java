@@ -0,0 +1,83 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.game_controller.GameSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Поиск игры по названию: полный проход с contains против триграммного индекса
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameSearchIndexBenchmark {
+    private static final String CONSONANTS = "бвгдзклмнпрстфхцчшж";
+    private static final String VOWELS = "аеиоуыэюя";
+    private static final String[] WORDS = {"стратегия", "карты", "кубики", "торговля", "кооператив",
+            "приключения", "дедукция", "строительство", "война", "экономика"};
+
+    @Param({"10000", "100000"})
+    private int games;
+
+    private List<BoardGame> allGames;
+    private GameSearchIndex index;
+    private String exactQuery;
+    private String typoQuery;
+    private String prefixQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        allGames = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            StringBuilder name = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())))
+                        .append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+                if (random.nextBoolean()) {
+                    name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+                }
+            }
+            String description = WORDS[random.nextInt(WORDS.length)] + " и " + WORDS[random.nextInt(WORDS.length)];
+            allGames.add(new BoardGame(String.valueOf(i), name.toString(), description, "Стратегия", 2, 4, 60));
+        }
+        index = new GameSearchIndex(allGames);
+
+        exactQuery = allGames.get(games / 2).getName();
+        // Опечатка: пропущена буква в середине названия
+        typoQuery = exactQuery.substring(0, exactQuery.length() / 2) + exactQuery.substring(exactQuery.length() / 2 + 1);
+        prefixQuery = exactQuery.substring(0, 4);
+    }
+
+    @Benchmark
+    public List<BoardGame> linearContains() {
+        String query = prefixQuery.toLowerCase(Locale.ROOT);
+        return allGames.stream()
+                .filter(g -> g.getName().toLowerCase(Locale.ROOT).contains(query))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BoardGame> indexExact() {
+        return index.search(exactQuery, 10);
+    }
+
+    @Benchmark
+    public List<BoardGame> indexTypo() {
+        return index.search(typoQuery, 10);
+    }
+
+    @Benchmark
+    public List<BoardGame> indexPrefix() {
+        return index.search(prefixQuery, 10);
+    }
+}
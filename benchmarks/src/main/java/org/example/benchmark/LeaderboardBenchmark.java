@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.game_controller.Leaderboard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Масштабирование общего рейтинга по потокам: полный пересчёт Leaderboard.compute
+// в ForkJoinPool с заданным числом потоков и дописывание одной сессии в готовую сводку.
+// Прирост от потоков виден, только если у машины столько же ядер
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+    private static final int GAMES = 100;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"100000", "1000000"})
+    private int sessions;
+
+    private List<BoardGame> games;
+    private List<GameSession> history;
+    private ForkJoinPool pool;
+    private Leaderboard leaderboard;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        games = Fixtures.games(GAMES);
+        history = Fixtures.chronological(games, sessions);
+        pool = new ForkJoinPool(threads);
+        leaderboard = Leaderboard.compute(history, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Leaderboard compute() {
+        return Leaderboard.compute(history, pool);
+    }
+
+    // То, что делает GameSessionManager после каждой /addsession
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Leaderboard append() {
+        leaderboard.add(Fixtures.session(random, games.get(random.nextInt(games.size())), Fixtures.END));
+        return leaderboard;
+    }
+}
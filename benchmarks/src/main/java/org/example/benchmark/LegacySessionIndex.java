@@ -0,0 +1,64 @@
+package org.example.benchmark;
+
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Прежний индекс сессий на skip-list из объектов GameSession (только вставка),
+// сохранённый как точка отсчёта для SessionFootprint
+final class LegacySessionIndex {
+
+    private static final class SessionKey implements Comparable<SessionKey> {
+        private final long epochSecond;
+        private final int nano;
+        private final String id;
+
+        SessionKey(LocalDateTime dateTime, String id) {
+            this.epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+            this.nano = dateTime.getNano();
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(SessionKey other) {
+            if (epochSecond != other.epochSecond) {
+                return Long.compare(epochSecond, other.epochSecond);
+            }
+            if (nano != other.nano) {
+                return Integer.compare(nano, other.nano);
+            }
+            return id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SessionKey && compareTo((SessionKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(epochSecond) * 31 + nano) * 31 + id.hashCode();
+        }
+    }
+
+    private final ConcurrentSkipListMap<SessionKey, GameSession> byTime = new ConcurrentSkipListMap<>();
+    private final Map<String, GameSession> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<SessionKey, GameSession> inProgress = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<SessionKey, GameSession>> byGame = new ConcurrentHashMap<>();
+
+    void put(GameSession session) {
+        byId.put(session.getId(), session);
+        SessionKey key = new SessionKey(session.getDateTime(), session.getId());
+        byTime.put(key, session);
+        if (session.getGameId() != null) {
+            byGame.computeIfAbsent(session.getGameId(), gameId -> new ConcurrentSkipListMap<>()).put(key, session);
+        }
+        if (session.getStatus() == GameSession.GameStatus.IN_PROGRESS) {
+            inProgress.put(key, session);
+        }
+    }
+}
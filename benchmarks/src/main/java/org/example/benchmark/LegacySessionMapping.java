@@ -0,0 +1,42 @@
+package org.example.benchmark;
+
+import org.bson.Document;
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Прежнее ручное преобразование Document -> GameSession из BoardGameDaoMongoImpl,
+// сохранённое только как точка отсчёта для SessionDecodeBenchmark
+final class LegacySessionMapping {
+
+    private LegacySessionMapping() {
+    }
+
+    static GameSession documentToGameSession(Document doc) {
+        LocalDateTime dateTime = doc.getDate("date").toInstant()
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+
+        String playersString = doc.getString("players");
+        List<String> players = Arrays.stream(playersString.split(","))
+                .map(String::trim)
+                .collect(Collectors.toList());
+
+        String statusString = doc.getString("status");
+        GameSession.GameStatus status = (statusString != null) ? GameSession.GameStatus.valueOf(statusString) : GameSession.GameStatus.PLAYED;
+
+        return new GameSession(
+                doc.getObjectId("_id").toString(),
+                doc.getString("gameId"),
+                doc.getString("gameName"),
+                dateTime,
+                players,
+                doc.getString("winner"),
+                status
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.game_controller.PlayerCountIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Подбор игр на N игроков: прежний проход stream-фильтром против индекса по битсетам
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerCountIndexBenchmark {
+    private static final String[] CATEGORIES = {"Стратегия", "Карточная", "Кооперативная", "Семейная", "Вечериночная"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int games;
+
+    @Param({"4"})
+    private int players;
+
+    private List<BoardGame> allGames;
+    private PlayerCountIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        allGames = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            int minPlayers = 1 + random.nextInt(4);
+            allGames.add(new BoardGame(
+                    String.valueOf(i),
+                    "Игра " + i,
+                    "Описание " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    minPlayers,
+                    minPlayers + random.nextInt(8),
+                    15 + random.nextInt(12) * 15));
+        }
+        index = new PlayerCountIndex(allGames);
+    }
+
+    @Benchmark
+    public List<BoardGame> streamFilter() {
+        return allGames.stream()
+                .filter(g -> g.getMinPlayers() <= players && g.getMaxPlayers() >= players)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BoardGame> index() {
+        return index.find(players, null, 0);
+    }
+
+    @Benchmark
+    public List<BoardGame> streamFilterWithCategoryAndTime() {
+        return allGames.stream()
+                .filter(g -> g.getMinPlayers() <= players && g.getMaxPlayers() >= players)
+                .filter(g -> g.getCategory().equalsIgnoreCase("Карточная"))
+                .filter(g -> g.getAverageTime() <= 60)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BoardGame> indexWithCategoryAndTime() {
+        return index.find(players, "Карточная", 60);
+    }
+}
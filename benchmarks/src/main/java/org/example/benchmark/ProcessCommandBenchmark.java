@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.bot.BoardGameBot;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Команда целиком, от текста до ответа: BoardGameBot.processCommand на хранилище memory
+// (с кэшем, как его создаёт DaoFactory). История заполняется теми же /addgame и /addsession
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessCommandBenchmark {
+    private static final String CHAT_ID = "benchmark";
+    private static final int GAMES = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int sessions;
+
+    private BoardGameBot bot;
+    private String today;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bot = new BoardGameBot("memory");
+        for (int i = 0; i < GAMES; i++) {
+            bot.processCommand(CHAT_ID, "/addgame " + Fixtures.gameName(i) + ";Описание;Стратегия;2;5;60");
+        }
+        for (int i = 0; i < sessions; i++) {
+            bot.processCommand(CHAT_ID, nextAddSession());
+        }
+        today = LocalDate.now().toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bot.onClosing();
+    }
+
+    @Benchmark
+    public String stats() {
+        return bot.processCommand(CHAT_ID, "/stats " + Fixtures.gameName(random.nextInt(GAMES)));
+    }
+
+    @Benchmark
+    public String history() {
+        return bot.processCommand(CHAT_ID, "/history");
+    }
+
+    @Benchmark
+    public String filterDate() {
+        return bot.processCommand(CHAT_ID, "/filterdate " + today + ";" + today);
+    }
+
+    @Benchmark
+    public String filterStatus() {
+        return bot.processCommand(CHAT_ID, "/filterstatus IN_PROGRESS");
+    }
+
+    @Benchmark
+    public String games() {
+        return bot.processCommand(CHAT_ID, "/games");
+    }
+
+    @Benchmark
+    public String addSession() {
+        return bot.processCommand(CHAT_ID, nextAddSession());
+    }
+
+    private String nextAddSession() {
+        String first = "Игрок " + random.nextInt(Fixtures.PLAYERS);
+        String second = "Игрок " + random.nextInt(Fixtures.PLAYERS);
+        return "/addsession " + Fixtures.gameName(random.nextInt(GAMES)) + ";" + first + "," + second + ";" + first;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.game_controller.RatingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Рейтинги Эло: полный пересчёт по истории (то, что делает GameSessionManager при первом /rating
+// и после импорта старых сессий) и обновление по одной новой сессии
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingEngineBenchmark {
+    private static final int GAMES = 100;
+
+    @Param({"100000", "1000000"})
+    private int sessions;
+
+    private List<BoardGame> games;
+    private List<GameSession> history;
+    private RatingEngine engine;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        games = Fixtures.games(GAMES);
+        history = Fixtures.chronological(games, sessions);
+        engine = new RatingEngine();
+        engine.rebuild(history.stream());
+    }
+
+    @Benchmark
+    public RatingEngine replay() {
+        RatingEngine replayed = new RatingEngine();
+        replayed.rebuild(history.stream());
+        return replayed;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RatingEngine apply() {
+        engine.apply(Fixtures.session(random, games.get(random.nextInt(games.size())), Fixtures.END));
+        return engine;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.benchmark;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.example.GameSession;
+import org.example.dao.GameSessionCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Декодирование сессий из BSON: прежний путь Document + ручное преобразование
+// против GameSessionCodec. Аллокации на документ — с профилировщиком: -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(SessionDecodeBenchmark.DOCUMENTS)
+public class SessionDecodeBenchmark {
+    static final int DOCUMENTS = 1000;
+    private static final String[] NAMES = {"Анна", "Борис", "Виктор", "Галина", "Дмитрий", "Елена"};
+
+    // Одни и те же сессии в двух форматах: игроки строкой (как писал старый код) и массивом
+    private final byte[][] legacyDocuments = new byte[DOCUMENTS][];
+    private final byte[][] arrayDocuments = new byte[DOCUMENTS][];
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final GameSessionCodec sessionCodec = new GameSessionCodec(ZoneId.systemDefault());
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            String first = NAMES[random.nextInt(NAMES.length)];
+            String second = NAMES[random.nextInt(NAMES.length)];
+            Document session = new Document("_id", new ObjectId())
+                    .append("gameId", new ObjectId().toHexString())
+                    .append("gameName", "Игра " + random.nextInt(100))
+                    .append("date", new Date(start - random.nextInt(1_000_000_000)))
+                    .append("winner", first)
+                    .append("status", random.nextBoolean() ? "PLAYED" : "IN_PROGRESS");
+            legacyDocuments[i] = encode(new Document(session).append("players", first + ", " + second));
+            arrayDocuments[i] = encode(new Document(session).append("players", List.of(first, second)));
+        }
+    }
+
+    private byte[] encode(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public void legacyDocumentMapping(Blackhole blackhole) {
+        for (byte[] bytes : legacyDocuments) {
+            Document document = documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+            blackhole.consume(LegacySessionMapping.documentToGameSession(document));
+        }
+    }
+
+    @Benchmark
+    public void codecFromStringPlayers(Blackhole blackhole) {
+        for (byte[] bytes : legacyDocuments) {
+            blackhole.consume(decode(bytes));
+        }
+    }
+
+    @Benchmark
+    public void codecFromArrayPlayers(Blackhole blackhole) {
+        for (byte[] bytes : arrayDocuments) {
+            blackhole.consume(decode(bytes));
+        }
+    }
+
+    private GameSession decode(byte[] bytes) {
+        return sessionCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import org.example.GameSession;
+import org.example.dao.BoardGameDaoMemoryImpl;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Сколько занимает в куче история сессий: прежний индекс из объектов GameSession
+// против колоночного хранилища за BoardGameDaoMemoryImpl. Считается JOL по графу объектов.
+// Запуск: java -Xmx4g -cp benchmarks/target/benchmarks.jar org.example.benchmark.SessionFootprint [сессий]
+public final class SessionFootprint {
+    private static final int GAMES = 50;
+    private static final int PLAYERS = 200;
+    private static final int BATCH_SIZE = 10_000;
+
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        LegacySessionIndex legacy = new LegacySessionIndex();
+        Random random = new Random(42);
+        for (int i = 0; i < sessions; i++) {
+            GameSession session = nextSession(random, i);
+            session.setId(UUID.randomUUID().toString());
+            legacy.put(session);
+        }
+        GraphLayout legacyLayout = GraphLayout.parseInstance(legacy);
+        report("Прежний индекс (skip-list из GameSession)", legacyLayout, sessions);
+        legacy = null;
+        legacyLayout = null;
+
+        BoardGameDaoMemoryImpl columnar = new BoardGameDaoMemoryImpl();
+        random = new Random(42);
+        List<GameSession> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < sessions; i++) {
+            batch.add(nextSession(random, i));
+            if (batch.size() == BATCH_SIZE || i == sessions - 1) {
+                columnar.addGameSessions(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        report("Колоночное хранилище (BoardGameDaoMemoryImpl)", GraphLayout.parseInstance(columnar), sessions);
+    }
+
+    // Строки создаются заново для каждой сессии — так их отдают Jackson и драйвер Mongo
+    private static GameSession nextSession(Random random, int index) {
+        int game = random.nextInt(GAMES);
+        int playerCount = 2 + random.nextInt(4);
+        List<String> players = new ArrayList<>(playerCount);
+        for (int p = 0; p < playerCount; p++) {
+            players.add(new String("Игрок " + random.nextInt(PLAYERS)));
+        }
+        String winner = new String(players.get(random.nextInt(playerCount)));
+        GameSession.GameStatus status = random.nextInt(50) == 0
+                ? GameSession.GameStatus.IN_PROGRESS : GameSession.GameStatus.PLAYED;
+        return new GameSession(null, "game-" + game, "Игра " + game,
+                LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(index * 97L + random.nextInt(60)),
+                players, winner, status);
+    }
+
+    private static void report(String title, GraphLayout layout, int sessions) {
+        System.out.printf("%s: %,d байт, %.1f байт на сессию%n", title, layout.totalSize(),
+                (double) layout.totalSize() / sessions);
+        String[] lines = layout.toFootprint().split("\n");
+        for (int i = 0; i < Math.min(lines.length, 14); i++) {
+            System.out.println("  " + lines[i]);
+        }
+        System.out.println();
+    }
+}
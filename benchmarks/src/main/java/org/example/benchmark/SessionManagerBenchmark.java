@@ -0,0 +1,95 @@
+package org.example.benchmark;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.dao.BoardGameDao;
+import org.example.game_controller.GameCatalog;
+import org.example.game_controller.GameFilterManager;
+import org.example.game_controller.GameSessionManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Статистика и фильтры поверх хранилища: GameSessionManager.getWinStatistics
+// (первый запрос по игре и повторный, из движка статистики) и GameFilterManager.applyFilter
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionManagerBenchmark {
+    private static final int GAMES = 100;
+
+    @Param({"memory", "json", "binary"})
+    private String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    private int sessions;
+
+    private Path dir;
+    private BoardGameDao dao;
+    private List<BoardGame> games;
+    private GameCatalog catalog;
+    private GameSessionManager sessionManager;
+    private GameFilterManager filterManager;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = Fixtures.createDirectory();
+        dao = Fixtures.open(storage, dir);
+        games = Fixtures.fill(dao, GAMES, sessions);
+        catalog = new GameCatalog(dao);
+        sessionManager = new GameSessionManager(dao, catalog);
+        filterManager = new GameFilterManager(dao, catalog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.close(storage, dao, dir);
+    }
+
+    // Новый менеджер на каждый вызов: сводка по игре считается хранилищем
+    @Benchmark
+    public String winStatisticsCold() {
+        return new GameSessionManager(dao, catalog).getWinStatistics(randomGameName());
+    }
+
+    @Benchmark
+    public String winStatisticsWarm() {
+        return sessionManager.getWinStatistics(randomGameName());
+    }
+
+    @Benchmark
+    public List<GameSession> filterByMonth() {
+        LocalDate to = Fixtures.END.toLocalDate().minusDays(random.nextInt(1000));
+        return filterManager.applyFilter(to.minusDays(30), to, null, null);
+    }
+
+    @Benchmark
+    public List<GameSession> filterByGame() {
+        return filterManager.applyFilter(null, null, randomGameName(), null);
+    }
+
+    @Benchmark
+    public List<GameSession> filterByYearGameAndStatus() {
+        LocalDate to = Fixtures.END.toLocalDate();
+        return filterManager.applyFilter(to.minusYears(1), to, randomGameName(), GameSession.GameStatus.IN_PROGRESS);
+    }
+
+    // Страница выборки по игроку: условия проверяются за один проход, обход останавливается на лимите
+    @Benchmark
+    public List<GameSession> filterByPlayerAndStatus() {
+        return filterManager.applyFilter(null, null, null, GameSession.GameStatus.PLAYED,
+                "Игрок " + random.nextInt(Fixtures.PLAYERS), 20);
+    }
+
+    private String randomGameName() {
+        return games.get(random.nextInt(games.size())).getName();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.example.bot.BoardGameBot;
+import org.example.bot.BotResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Document;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Бот на хранилище memory: без сервера Mongo и без обращений к Telegram
+public class BoardGameBotMemoryTests {
+    private static final String TEST_CHAT = "42";
+
+    private BoardGameBot bot;
+
+    @BeforeEach
+    public void setUp() {
+        bot = new BoardGameBot("memory");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bot.onClosing();
+    }
+
+    @Test
+    public void testDocumentWithoutCaptionShowsImportUsage() {
+        Document document = new Document();
+        document.setFileId("file");
+        document.setFileName("games.csv");
+
+        assertTrue(bot.processDocument(TEST_CHAT, document, null).startsWith("ℹ️ Отправьте CSV или JSON файл"));
+        assertTrue(bot.processDocument(TEST_CHAT, document, "  ").startsWith("ℹ️ Отправьте CSV или JSON файл"));
+        assertTrue(bot.processDocument(TEST_CHAT, document, "/import").startsWith("ℹ️ Отправьте CSV или JSON файл"));
+    }
+
+    @Test
+    public void testExportRepliesWithoutCallingTelegram() {
+        bot.processCommand(TEST_CHAT, "/addgame Каркассон;Тайлы;Стратегия;2;5;40");
+
+        // Документ отправляет очередь исходящих сообщений, а processCommand возвращает только текст
+        assertEquals("📤 Выгружено записей: 1", bot.processCommand(TEST_CHAT, "/export games csv"));
+        assertEquals("📤 Выгружено записей: 0", bot.processCommand(TEST_CHAT, "/export sessions json"));
+    }
+
+    @Test
+    public void testStaleOrMalformedCallbackIsReported() {
+        for (String data : new String[]{"games:abc", "history:bad", "filter:1", "fstatus:x:zz.zz.1:PLAYED",
+                "fdate:0:0.gjdgxs.1:", "key:unknown"}) {
+            BotResponse response = bot.processCallback(TEST_CHAT, data);
+            assertNotNull(response, data);
+            assertEquals("⌛ Кнопка устарела, повторите запрос.", response.getText(), data);
+            assertNull(response.getKeyboard(), data);
+        }
+        assertNull(bot.processCallback(TEST_CHAT, "unknown:1"));
+        assertNotEquals("⌛ Кнопка устарела, повторите запрос.", bot.processCallback(TEST_CHAT, "games:0").getText());
+    }
+}
@@ -0,0 +1,329 @@
+package org.example;
+
+import org.example.dao.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Общий контракт BoardGameDao для всех хранилищ, которым не нужен внешний сервер
+public class BoardGameDaoContractTests {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @TempDir
+    Path dataDir;
+
+    static Stream<Arguments> storages() {
+        return Stream.concat(Stream.of(
+                Arguments.of("memory", (Function<Path, BoardGameDao>) dir -> new BoardGameDaoMemoryImpl()),
+                Arguments.of("cached json", (Function<Path, BoardGameDao>) dir ->
+                        new CachingBoardGameDao(new BoardGameDaoJsonImpl(dir.toString())))
+        ), persistentStorages());
+    }
+
+    static Stream<Arguments> persistentStorages() {
+        return Stream.of(
+                Arguments.of("json", (Function<Path, BoardGameDao>) dir -> new BoardGameDaoJsonImpl(dir.toString())),
+                Arguments.of("binary", (Function<Path, BoardGameDao>) dir -> new BoardGameDaoBinaryImpl(dir.toString()))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testGamesGetIds(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            dao.addGame(game("Каркассон"));
+            dao.addGames(List.of(game("Колонизаторы"), game("Доминион")));
+
+            List<BoardGame> games = dao.getAllGames();
+            assertEquals(Set.of("Каркассон", "Колонизаторы", "Доминион"),
+                    games.stream().map(BoardGame::getName).collect(Collectors.toSet()));
+            assertTrue(games.stream().allMatch(game -> game.getId() != null));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testHistoryIsNewestFirst(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            dao.addGameSession(session("g1", START, GameSession.GameStatus.PLAYED, "Аня", "Аня", "Борис"));
+            dao.addGameSessions(List.of(
+                    session("g1", START.plusHours(2), GameSession.GameStatus.PLAYED, "Борис", "Аня", "Борис"),
+                    session("g2", START.plusHours(1), GameSession.GameStatus.PLAYED, "Вера", "Вера")));
+
+            List<GameSession> history = dao.getGameHistory();
+            assertEquals(List.of(START.plusHours(2), START.plusHours(1), START), dates(history));
+            assertEquals(3, ids(history).stream().filter(Objects::nonNull).distinct().count());
+            assertEquals(List.of("Аня", "Борис"), history.get(0).getPlayers());
+            assertEquals("Борис", history.get(0).getWinner());
+            assertEquals("g1 name", history.get(0).getGameName());
+
+            try (Stream<GameSession> stream = dao.streamGameHistory()) {
+                assertEquals(ids(history), stream.map(GameSession::getId).collect(Collectors.toList()));
+            }
+            List<String> oldestFirst = new ArrayList<>(ids(history));
+            Collections.reverse(oldestFirst);
+            try (Stream<GameSession> stream = dao.streamGameHistoryOldestFirst()) {
+                assertEquals(oldestFirst, stream.map(GameSession::getId).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testSessionsBetween(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            for (int day = 1; day <= 5; day++) {
+                dao.addGameSession(session("g1", START.plusDays(day), GameSession.GameStatus.PLAYED, "Аня", "Аня"));
+            }
+
+            assertEquals(List.of(START.plusDays(3), START.plusDays(2)),
+                    dates(dao.getSessionsBetween(START.plusDays(2), START.plusDays(4), 0)));
+            assertEquals(List.of(START.plusDays(2), START.plusDays(1)),
+                    dates(dao.getSessionsBetween(null, START.plusDays(3), 0)));
+            assertEquals(List.of(START.plusDays(5)),
+                    dates(dao.getSessionsBetween(START.plusDays(4), null, 1)));
+            assertTrue(dao.getSessionsBetween(START.plusDays(4), START.plusDays(2), 0).isEmpty());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testSessionsByGame(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            for (int i = 0; i < 5; i++) {
+                dao.addGameSession(session(i % 2 == 0 ? "g1" : "g2", START.plusMinutes(i),
+                        GameSession.GameStatus.PLAYED, "Аня", "Аня"));
+            }
+
+            assertEquals(List.of(START.plusMinutes(4), START.plusMinutes(2), START),
+                    dates(dao.getSessionsByGame("g1", 0)));
+            assertEquals(List.of(START.plusMinutes(3)), dates(dao.getSessionsByGame("g2", 1)));
+            assertTrue(dao.getSessionsByGame("missing", 0).isEmpty());
+
+            // Старая сессия, добавленная последней, встаёт на своё место во времени
+            dao.addGameSession(session("g1", START.minusMinutes(1), GameSession.GameStatus.PLAYED, "Аня", "Аня"));
+            dao.addGameSession(session("g2", START.plusMinutes(5), GameSession.GameStatus.PLAYED, "Аня", "Аня"));
+            assertEquals(List.of(START.plusMinutes(4), START.plusMinutes(2), START, START.minusMinutes(1)),
+                    dates(dao.getSessionsByGame("g1", 0)));
+            assertEquals(List.of(START.plusMinutes(5), START.plusMinutes(3), START.plusMinutes(1)),
+                    dates(dao.getSessionsByGame("g2", 0)));
+            assertEquals(4, dao.getGameStatistics("g1").getTotalSessions());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testRecentSessionsPaging(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            // Три сессии в одну и ту же минуту: курсор должен различать их по id
+            for (int i = 0; i < 7; i++) {
+                dao.addGameSession(session("g1", START.plusMinutes(Math.max(i, 2)),
+                        GameSession.GameStatus.PLAYED, "Аня", "Аня"));
+            }
+
+            List<String> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                SessionPage page = dao.getRecentSessions(3, cursor);
+                assertTrue(page.getSessions().size() <= 3);
+                paged.addAll(ids(page.getSessions()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertEquals(ids(dao.getGameHistory()), paged);
+            assertThrows(IllegalArgumentException.class, () -> dao.getRecentSessions(0, null));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testStatusUpdates(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            GameSession updated = session("g1", START, GameSession.GameStatus.IN_PROGRESS, "Аня", "Аня");
+            GameSession stale = session("g1", START.plusHours(1), GameSession.GameStatus.IN_PROGRESS, "Аня", "Аня");
+            GameSession fresh = session("g1", START.plusDays(2), GameSession.GameStatus.IN_PROGRESS, "Аня", "Аня");
+            dao.addGameSessions(List.of(updated, stale, fresh));
+
+            updated.setStatus(GameSession.GameStatus.PLAYED);
+            dao.updateGameSessionStatus(updated);
+            GameSession unknown = session("g1", START, GameSession.GameStatus.PLAYED, "Аня", "Аня");
+            unknown.setId("missing");
+            dao.updateGameSessionStatus(unknown);
+
+            assertEquals(1, dao.markPlayedBefore(START.plusDays(1)));
+            assertEquals(List.of(GameSession.GameStatus.IN_PROGRESS, GameSession.GameStatus.PLAYED, GameSession.GameStatus.PLAYED),
+                    dao.getGameHistory().stream().map(GameSession::getStatus).collect(Collectors.toList()));
+            assertEquals(3, dao.getGameHistory().size());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testGameStatistics(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            dao.addGameSessions(List.of(
+                    session("g1", START, GameSession.GameStatus.PLAYED, "Аня", "Аня", "Борис"),
+                    session("g1", START.plusHours(1), GameSession.GameStatus.PLAYED, "Борис", "Аня", "Борис", "Вера"),
+                    session("g1", START.plusHours(2), GameSession.GameStatus.IN_PROGRESS, "Аня", "Аня", "Вера"),
+                    session("g2", START.plusHours(3), GameSession.GameStatus.PLAYED, "Вера", "Вера")));
+
+            GameStatsSummary summary = dao.getGameStatistics("g1");
+            assertEquals("g1 name", summary.getGameName());
+            assertEquals(3, summary.getTotalSessions());
+            assertEquals(2, summary.getCompletedSessions());
+            assertEquals(List.of(START.plusHours(2)), summary.getInProgressDates());
+
+            Map<String, PlayerStats> players = summary.getPlayers().stream()
+                    .collect(Collectors.toMap(PlayerStats::getPlayerName, player -> player));
+            assertEquals(Set.of("Аня", "Борис", "Вера"), players.keySet());
+            assertEquals(2, players.get("Аня").getWins());
+            assertEquals(3, players.get("Аня").getTotalGames());
+            assertEquals(1, players.get("Борис").getWins());
+            assertEquals(0, players.get("Вера").getWins());
+            assertEquals(2, players.get("Вера").getTotalGames());
+
+            assertEquals(0, dao.getGameStatistics("missing").getTotalSessions());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testFindSessionsMatchesFilteredHistory(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            String[] names = {"Аня", "Борис", "Вера", "Глеб"};
+            List<GameSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                sessions.add(session("g" + i % 3, START.plusHours(i),
+                        i % 7 == 0 ? GameSession.GameStatus.IN_PROGRESS : GameSession.GameStatus.PLAYED,
+                        names[i % 4], names[i % 4], names[(i + 1) % 4]));
+            }
+            dao.addGameSessions(sessions);
+            // Пакет старее уже записанных: порядок и списки сессий по играм перестраиваются
+            List<GameSession> older = new ArrayList<>();
+            for (int i = 1; i <= 6; i++) {
+                older.add(session("g" + i % 2, START.minusHours(i), GameSession.GameStatus.PLAYED,
+                        names[i % 4], names[i % 4], names[(i + 2) % 4]));
+            }
+            dao.addGameSessions(older);
+
+            List<SessionQuery> queries = List.of(
+                    SessionQuery.all(),
+                    SessionQuery.all().limit(5),
+                    SessionQuery.all().between(START.plusHours(10), START.plusHours(20)),
+                    SessionQuery.all().game("g1"),
+                    SessionQuery.all().status(GameSession.GameStatus.IN_PROGRESS),
+                    SessionQuery.all().status(GameSession.GameStatus.IN_PROGRESS).between(START.plusHours(5), null).limit(2),
+                    SessionQuery.all().status(GameSession.GameStatus.PLAYED).game("g2").player("Вера"),
+                    SessionQuery.all().player("Глеб").between(null, START.plusHours(30)).limit(3),
+                    SessionQuery.all().player("Никто"),
+                    SessionQuery.all().game("missing"),
+                    SessionQuery.all().game("g0").between(START.minusHours(4), START.plusHours(35)),
+                    SessionQuery.all().game("g1").between(null, START.plusHours(12)).limit(4),
+                    SessionQuery.all().game("g0").status(GameSession.GameStatus.IN_PROGRESS).between(START, null));
+
+            // Первый проход у кэша идёт в хранилище, второй — по загруженной истории
+            for (int pass = 0; pass < 2; pass++) {
+                List<List<String>> found = new ArrayList<>();
+                for (SessionQuery query : queries) {
+                    found.add(ids(dao.findSessions(query)));
+                }
+                List<GameSession> history = dao.getGameHistory();
+                for (int q = 0; q < queries.size(); q++) {
+                    SessionQuery query = queries.get(q);
+                    List<String> expected = ids(history.stream()
+                            .filter(query::matches)
+                            .limit(query.hasLimit() ? query.getLimit() : Long.MAX_VALUE)
+                            .collect(Collectors.toList()));
+                    assertEquals(expected, found.get(q), query.toString());
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    public void testFindSessionsPagingWithCursor(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            // По нескольку сессий в один час: курсор различает их по id, как в истории
+            List<GameSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                sessions.add(session("g" + i % 2, START.plusHours(i / 3),
+                        i % 4 == 0 ? GameSession.GameStatus.IN_PROGRESS : GameSession.GameStatus.PLAYED,
+                        "Аня", "Аня", i % 3 == 0 ? "Вера" : "Борис"));
+            }
+            dao.addGameSessions(sessions);
+
+            List<SessionQuery> queries = List.of(
+                    SessionQuery.all(),
+                    SessionQuery.all().between(START.plusHours(2), START.plusHours(8)),
+                    SessionQuery.all().game("g1"),
+                    SessionQuery.all().status(GameSession.GameStatus.IN_PROGRESS),
+                    SessionQuery.all().game("g0").player("Вера"));
+
+            for (int pass = 0; pass < 2; pass++) {
+                for (SessionQuery query : queries) {
+                    List<String> paged = new ArrayList<>();
+                    String cursor = null;
+                    do {
+                        SessionPage page = SessionPage.of(dao.findSessions(query.after(cursor).limit(4)), 3);
+                        paged.addAll(ids(page.getSessions()));
+                        cursor = page.getNextCursor();
+                    } while (cursor != null);
+                    assertEquals(ids(dao.findSessions(query)), paged, query.toString());
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("persistentStorages")
+    public void testDataSurvivesReopen(String type, Function<Path, BoardGameDao> storage) {
+        List<GameSession> before;
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            dao.addGame(game("Каркассон"));
+            GameSession session = session("g1", START, GameSession.GameStatus.IN_PROGRESS, "Аня", "Аня", "Борис");
+            dao.addGameSessions(List.of(session,
+                    session("g2", START.plusHours(1), GameSession.GameStatus.IN_PROGRESS, "Вера", "Вера")));
+            session.setStatus(GameSession.GameStatus.PLAYED);
+            dao.updateGameSessionStatus(session);
+            before = dao.getGameHistory();
+        }
+
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            assertEquals(List.of("Каркассон"), dao.getAllGames().stream().map(BoardGame::getName).collect(Collectors.toList()));
+            List<GameSession> after = dao.getGameHistory();
+            assertEquals(ids(before), ids(after));
+            assertEquals(dates(before), dates(after));
+            assertEquals(List.of(GameSession.GameStatus.IN_PROGRESS, GameSession.GameStatus.PLAYED),
+                    after.stream().map(GameSession::getStatus).collect(Collectors.toList()));
+            assertEquals(List.of("Аня", "Борис"), after.get(1).getPlayers());
+        }
+    }
+
+    private static BoardGame game(String name) {
+        return new BoardGame(null, name, "Описание", "Стратегия", 2, 4, 60);
+    }
+
+    private static GameSession session(String gameId, LocalDateTime dateTime, GameSession.GameStatus status,
+                                       String winner, String... players) {
+        return new GameSession(null, gameId, gameId + " name", dateTime, new ArrayList<>(List.of(players)), winner, status);
+    }
+
+    private static List<LocalDateTime> dates(List<GameSession> sessions) {
+        return sessions.stream().map(GameSession::getDateTime).collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<GameSession> sessions) {
+        return sessions.stream().map(GameSession::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import org.example.dao.BoardGameDao;
+import org.example.dao.BoardGameDaoJsonImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Восстановление после повреждённых файлов хранилища json
+public class BoardGameDaoJsonImplTests {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void testUnreadableSnapshotIsKeptAside() throws IOException {
+        try (BoardGameDao dao = new BoardGameDaoJsonImpl(dataDir.toString())) {
+            dao.addGameSession(session("1", START));
+            dao.addGameSession(session("2", START.plusHours(1)));
+        }
+        Path snapshot = dataDir.resolve("sessions.json");
+        String original = Files.readString(snapshot, StandardCharsets.UTF_8);
+        Files.writeString(snapshot, original.substring(0, original.length() / 2), StandardCharsets.UTF_8);
+
+        try (BoardGameDao dao = new BoardGameDaoJsonImpl(dataDir.toString())) {
+            dao.addGameSession(session("3", START.plusHours(2)));
+        }
+
+        List<Path> corrupt = corruptSnapshots();
+        assertEquals(1, corrupt.size());
+        assertEquals(original.substring(0, original.length() / 2), Files.readString(corrupt.get(0), StandardCharsets.UTF_8));
+        try (BoardGameDao dao = new BoardGameDaoJsonImpl(dataDir.toString())) {
+            assertTrue(dao.getGameHistory().stream().anyMatch(session -> "3".equals(session.getId())));
+        }
+    }
+
+    @Test
+    public void testCorruptJournalLineSkipsOnlyThatEvent() throws IOException {
+        try (BoardGameDao dao = new BoardGameDaoJsonImpl(dataDir.toString())) {
+            dao.addGameSession(session("1", START));
+            dao.addGameSession(session("2", START.plusHours(1)));
+            dao.addGameSession(session("3", START.plusHours(2)));
+            // Журнал сворачивается в снапшот при закрытии, поэтому копия берётся до него
+            Files.copy(dataDir.resolve("sessions.journal"), dataDir.resolve("journal.copy"));
+        }
+        Files.deleteIfExists(dataDir.resolve("sessions.json"));
+        List<String> lines = Files.readAllLines(dataDir.resolve("journal.copy"), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        lines.set(1, lines.get(1).substring(0, 20));
+        // Последняя строка без перевода строки — недописанная запись, она отбрасывается
+        Files.writeString(dataDir.resolve("sessions.journal"),
+                String.join("\n", lines) + "\n{\"type\":\"ADDED\"", StandardCharsets.UTF_8);
+
+        try (BoardGameDao dao = new BoardGameDaoJsonImpl(dataDir.toString())) {
+            assertEquals(List.of("3", "1"), dao.getGameHistory().stream()
+                    .map(GameSession::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private List<Path> corruptSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("sessions.json.corrupt"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static GameSession session(String id, LocalDateTime dateTime) {
+        return new GameSession(id, "g1", "g1 name", dateTime, List.of("Аня", "Борис"), "Аня",
+                GameSession.GameStatus.PLAYED);
+    }
+}
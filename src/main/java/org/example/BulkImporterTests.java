@@ -0,0 +1,106 @@
+package org.example;
+
+import org.example.dao.BoardGameDao;
+import org.example.game_controller.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Импорт CSV поверх тех же хранилищ, что и в BoardGameDaoContractTests
+public class BulkImporterTests {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @TempDir
+    Path dataDir;
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("org.example.BoardGameDaoContractTests#storages")
+    public void testQuotedFieldKeepsDelimiterAndNewline(String type, Function<Path, BoardGameDao> storage) throws IOException {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            GameCatalog catalog = new GameCatalog(dao);
+            BulkImporter importer = new BulkImporter(catalog, new GameSessionManager(dao, catalog));
+            String csv = "\uFEFFname;description;category;minPlayers;maxPlayers;averageTime\r\n"
+                    + "Каркассон;\"Тайлы; дороги\r\nи \"\"города\"\"\";Стратегия;2;5;40\r\n"
+                    + "\"Колонизаторы; Мореходы\";Острова;Стратегия;3;4;90\r\n"
+                    + "Без времени;Описание;Стратегия;2;4;\r\n";
+
+            ImportReport report = importer.importGames(new StringReader(csv), TransferFormat.CSV);
+
+            assertEquals(2, report.getImported());
+            assertEquals(1, report.getFailed());
+            // Перевод строки внутри кавычек сдвигает номера следующих строк файла
+            assertEquals(List.of("строка 5: Не заполнено поле averageTime"), report.getErrors());
+            BoardGame carcassonne = catalog.snapshot().findByName("Каркассон");
+            assertEquals("Тайлы; дороги\r\nи \"города\"", carcassonne.getDescription());
+            assertEquals(40, carcassonne.getAverageTime());
+            assertNotNull(catalog.snapshot().findByName("Колонизаторы; Мореходы"));
+            assertEquals(2, dao.getAllGames().size());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("org.example.BoardGameDaoContractTests#storages")
+    public void testMissingRequiredColumnRejectsFile(String type, Function<Path, BoardGameDao> storage) {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            GameCatalog catalog = new GameCatalog(dao);
+            BulkImporter importer = new BulkImporter(catalog, new GameSessionManager(dao, catalog));
+            String csv = "name,description,category,minPlayers,maxPlayers\n"
+                    + "Каркассон,Тайлы,Стратегия,2,5\n";
+
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> importer.importGames(new StringReader(csv), TransferFormat.CSV));
+            assertTrue(error.getMessage().contains("averageTime"), error.getMessage());
+            assertTrue(dao.getAllGames().isEmpty());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("org.example.BoardGameDaoContractTests#storages")
+    public void testBadRowInsideBatchSkipsOnlyThatRow(String type, Function<Path, BoardGameDao> storage) throws IOException {
+        try (BoardGameDao dao = storage.apply(dataDir)) {
+            GameCatalog catalog = new GameCatalog(dao);
+            catalog.addGame(new BoardGame(null, "Каркассон", "Описание", "Стратегия", 2, 5, 40));
+            BulkImporter importer = new BulkImporter(catalog, new GameSessionManager(dao, catalog));
+
+            // Больше одного пакета; ошибочные строки в середине первого пакета и на его границе
+            int rows = 5003;
+            StringBuilder csv = new StringBuilder("gameName;dateTime;players;winner;status\n");
+            for (int i = 0; i < rows; i++) {
+                if (i == 2500) {
+                    csv.append("Монополия;").append(START.plusMinutes(i)).append(";Аня, Борис;Аня;PLAYED\n");
+                } else if (i == 5000) {
+                    csv.append("Каркассон;вчера;Аня, Борис;Аня;PLAYED\n");
+                } else {
+                    csv.append("Каркассон;").append(START.plusMinutes(i)).append(";Аня, Борис;")
+                            .append(i % 2 == 0 ? "Аня" : "Борис").append('\n');
+                }
+            }
+
+            ImportReport report = importer.importSessions(new StringReader(csv.toString()), TransferFormat.CSV);
+
+            assertEquals(rows - 2, report.getImported());
+            assertEquals(2, report.getFailed());
+            assertEquals(2, report.getErrors().size());
+            assertTrue(report.getErrors().get(0).startsWith("строка 2502: "), report.getErrors().get(0));
+            assertTrue(report.getErrors().get(1).startsWith("строка 5002: "), report.getErrors().get(1));
+
+            List<GameSession> history = dao.getGameHistory();
+            assertEquals(rows - 2, history.size());
+            assertEquals(START.plusMinutes(rows - 1), history.get(0).getDateTime());
+            assertFalse(history.stream().anyMatch(session -> session.getDateTime().equals(START.plusMinutes(2500))));
+            assertEquals(List.of("Аня", "Борис"), history.get(0).getPlayers());
+            assertEquals(List.of(GameSession.GameStatus.PLAYED), history.stream()
+                    .map(GameSession::getStatus).distinct().collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import org.example.dao.BoardGameDaoMemoryImpl;
+import org.example.game_controller.GameCatalog;
+import org.example.game_controller.GameSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCatalogTests {
+
+    @Test
+    public void testOldSnapshotDoesNotSeeNewGames() {
+        GameCatalog catalog = new GameCatalog(new BoardGameDaoMemoryImpl());
+        catalog.addGame(game("Каркассон", "Стратегия", 2, 5, "Строительство средневековых городов"));
+        GameCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.addGame(game("Каркассон: Охотники", "Стратегия", 2, 5, "Средневековые города и охота"));
+        catalog.addGames(List.of(game("Мафия", "Вечеринка", 6, 20, "Ночью город засыпает")));
+        GameCatalog.Snapshot after = catalog.snapshot();
+
+        assertEquals(List.of("Каркассон"), names(before.getPlayerCountIndex().find(3, null, 0)));
+        assertEquals(List.of("Каркассон"), names(before.getSearchIndex().search("каркассон", 10)));
+        assertEquals(List.of(), names(before.getSearchIndex().search("мафия", 10)));
+        assertEquals(1, before.getSearchIndex().size());
+
+        assertEquals(List.of("Каркассон", "Каркассон: Охотники"), names(after.getPlayerCountIndex().find(3, "стратегия", 0)));
+        assertEquals(List.of("Мафия"), names(after.getPlayerCountIndex().find(10, null, 0)));
+        assertEquals(List.of("Каркассон", "Каркассон: Охотники"), names(after.getSearchIndex().search("каркассон", 10)));
+        assertEquals(List.of("Мафия"), names(after.getSearchIndex().search("мафия", 10)));
+    }
+
+    @Test
+    public void testIncrementalSearchIndexMatchesRebuild() {
+        List<BoardGame> games = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            games.add(game("Игра " + i + (i % 3 == 0 ? " королевство" : " остров"), "Стратегия", 2, 4,
+                    "Описание номер " + (i % 7) + (i % 2 == 0 ? " торговля" : " война")));
+        }
+        GameSearchIndex incremental = new GameSearchIndex(games.subList(0, 100));
+        incremental = incremental.withAll(games.subList(100, 101));
+        incremental = incremental.withAll(games.subList(101, 300));
+        GameSearchIndex rebuilt = new GameSearchIndex(games);
+
+        for (String query : List.of("игра 12", "королевство", "остров", "торговля", "игра 299 остров", "игар 7")) {
+            assertEquals(names(rebuilt.search(query, 10)), names(incremental.search(query, 10)), query);
+            // Повторный запрос не должен зависеть от счётчиков предыдущего
+            assertEquals(names(rebuilt.search(query, 10)), names(incremental.search(query, 10)), query);
+        }
+    }
+
+    private static BoardGame game(String name, String category, int minPlayers, int maxPlayers, String description) {
+        return new BoardGame(null, name, description, category, minPlayers, maxPlayers, 60);
+    }
+
+    private static List<String> names(List<BoardGame> games) {
+        return games.stream().map(BoardGame::getName).collect(Collectors.toList());
+    }
+}
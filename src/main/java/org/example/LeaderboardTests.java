@@ -0,0 +1,98 @@
+package org.example;
+
+import org.example.game_controller.Leaderboard;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaderboardTests {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 10, 12, 0);
+    private static final List<String> PLAYERS = List.of("Аня", "Борис", "Вера", "Гена", "Даша");
+
+    @Test
+    public void testParallelMatchesSequential() {
+        List<GameSession> history = history();
+        Leaderboard sequential = new Leaderboard();
+        history.forEach(sequential::add);
+
+        for (int parallelism : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                Leaderboard parallel = Leaderboard.compute(history, pool);
+                String message = "parallelism " + parallelism;
+
+                assertEquals(sequential.getTotalSessions(), parallel.getTotalSessions(), message);
+                assertEquals(sequential.getLastDateTime(), parallel.getLastDateTime(), message);
+                for (String player : PLAYERS) {
+                    Leaderboard.Streak expected = sequential.getStreak(player);
+                    Leaderboard.Streak actual = parallel.getStreak(player);
+                    assertEquals(expected.getBest(), actual.getBest(), message + ", " + player);
+                    assertEquals(expected.getCurrent(), actual.getCurrent(), message + ", " + player);
+                    assertEquals(sequential.getPlayer(player).getWins(), parallel.getPlayer(player).getWins(), message);
+                    assertEquals(sequential.getPlayer(player).getTotalGames(),
+                            parallel.getPlayer(player).getTotalGames(), message);
+                    for (String other : PLAYERS) {
+                        assertEquals(headToHead(sequential, player, other), headToHead(parallel, player, other), message);
+                    }
+                }
+                assertEquals(streaks(sequential), streaks(parallel), message);
+                assertEquals(sequential.getMostPlayedGames(10).stream().map(count -> count.getGameName() + "=" + count.getSessions())
+                                .collect(Collectors.toList()),
+                        parallel.getMostPlayedGames(10).stream().map(count -> count.getGameName() + "=" + count.getSessions())
+                                .collect(Collectors.toList()), message);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // Несколько десятков тысяч сессий, чтобы история делилась на отрезки. Серии намеренно длиннее
+    // отрезка и пересекают их границы; Даша играет редко и не проигрывает, то есть её отрезки
+    // целиком без поражений, а Вера и Гена проигрывают в начале и выигрывают в конце отрезков
+    private static List<GameSession> history() {
+        Random random = new Random(7);
+        List<GameSession> history = new ArrayList<>();
+        int size = 40_000;
+        for (int i = 0; i < size; i++) {
+            List<String> players = new ArrayList<>(List.of("Аня", "Борис"));
+            String winner;
+            if (i >= 3_000 && i < 12_000) {
+                winner = "Аня";
+            } else if (i % 997 == 0) {
+                players.add("Даша");
+                winner = "Даша";
+            } else if (i % 4096 < 200) {
+                players.add(i % 2 == 0 ? "Вера" : "Гена");
+                winner = "Борис";
+            } else if (i % 4096 > 3_900) {
+                String guest = i % 2 == 0 ? "Вера" : "Гена";
+                players.add(guest);
+                winner = guest;
+            } else {
+                winner = random.nextInt(3) == 0 ? "Борис" : "Аня";
+            }
+            history.add(new GameSession(null, "g" + (i % 3), "Игра " + (i % 3), START.plusMinutes(i), players,
+                    winner, GameSession.GameStatus.PLAYED));
+        }
+        return history;
+    }
+
+    private static List<String> streaks(Leaderboard board) {
+        return board.getLongestStreaks(PLAYERS.size()).stream()
+                .map(streak -> streak.getPlayer() + ":" + streak.getBest() + "/" + streak.getCurrent())
+                .collect(Collectors.toList());
+    }
+
+    private static String headToHead(Leaderboard board, String player, String other) {
+        Leaderboard.HeadToHead record = board.getHeadToHead(player, other);
+        return record == null ? null : record.getPlayer1() + "-" + record.getPlayer2() + " " + record.getGames()
+                + " " + record.getWins1() + ":" + record.getWins2();
+    }
+}
@@ -1,21 +1,43 @@
 package org.example;
 
 import org.example.bot.BoardGameBot;
+import org.example.dao.BoardGameDao;
+import org.example.dao.DaoFactory;
+import org.example.game_controller.BulkImporter;
+import org.example.game_controller.GameCatalog;
+import org.example.game_controller.GameSessionManager;
+import org.example.game_controller.ImportReport;
+import org.example.metrics.MetricsHttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
 public class Main {
+    private static final Logger log = LoggerFactory.getLogger(Main.class);
     private static final String BOT_TOKEN = "8146130795:AAHDBCf6xfVsblYlK1-BZKAcFdS1aUPCEa8";
     private static final String BOT_USERNAME = "TabletopGameAdvisorVSTU_bot";
+    // Метрики для Prometheus: http://127.0.0.1:9404/metrics, только с локальной машины
+    private static final int METRICS_PORT = 9404;
 
     public static void main(String[] args) {
+        // import games|sessions <файл> [хранилище] — пакетный импорт без запуска бота
+        if (args.length >= 3 && args[0].equals("import")) {
+            runImport(args[1], Path.of(args[2]), args.length > 3 ? args[3] : "mongodb");
+            return;
+        }
+
         try {
             // Создаем экземпляр TelegramBotsApi
             TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
 
             // Создаем и регистрируем нашего бота
-            botsApi.registerBot(new BoardGameBot() {
+            BoardGameBot bot = new BoardGameBot() {
                 @Override
                 public String getBotUsername() {
                     return BOT_USERNAME;
@@ -25,12 +47,30 @@ public class Main {
                 public String getBotToken() {
                     return BOT_TOKEN;
                 }
-            });
+            };
+            botsApi.registerBot(bot);
+            log.info("Бот успешно запущен! Имя бота: {}", BOT_USERNAME);
 
-            System.out.println("Бот успешно запущен! Имя бота: " + BOT_USERNAME);
+            new MetricsHttpServer(bot.getMetrics(), new InetSocketAddress("127.0.0.1", METRICS_PORT));
+            log.info("Метрики доступны на http://127.0.0.1:{}/metrics", METRICS_PORT);
         } catch (TelegramApiException e) {
-            e.printStackTrace();
-            System.err.println("Ошибка при запуске бота: " + e.getMessage());
+            log.error("Ошибка при запуске бота", e);
+        } catch (IOException e) {
+            // Бот уже работает, без метрик он обойдётся
+            log.error("Не удалось открыть порт {} для метрик", METRICS_PORT, e);
+        }
+    }
+
+    private static void runImport(String target, Path file, String storageType) {
+        try (BoardGameDao dao = DaoFactory.createTaskDao(storageType)) {
+            GameCatalog catalog = new GameCatalog(dao);
+            BulkImporter importer = new BulkImporter(catalog, new GameSessionManager(dao, catalog));
+            long started = System.nanoTime();
+            ImportReport report = target.equals("games") ? importer.importGames(file) : importer.importSessions(file);
+            System.out.println(report.format(target.equals("games") ? "Импорт игр" : "Импорт сессий"));
+            System.out.printf("Время: %.1f с%n", (System.nanoTime() - started) / 1e9);
+        } catch (Exception e) {
+            log.error("Ошибка импорта из {}", file, e);
         }
     }
-}
\ No newline at end of file
+}
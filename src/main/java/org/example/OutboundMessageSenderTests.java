@@ -0,0 +1,225 @@
+package org.example;
+
+import org.example.bot.OutboundMessageSender;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Очередь исходящих сообщений на локальной заглушке Bot API. Лимиты и паузы настоящие,
+// поэтому проверки ждут секунды и сравнивают время с запасом
+public class OutboundMessageSenderTests {
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final String PRIVATE_CHAT = "42";
+
+    // Отправка, которую увидел Telegram
+    private static final class Delivery {
+        private final String chatId;
+        private final String text;
+        private final long atNanos;
+
+        Delivery(String chatId, String text, long atNanos) {
+            this.chatId = chatId;
+            this.text = text;
+            this.atNanos = atNanos;
+        }
+    }
+
+    // Заглушка Bot API: запоминает каждую попытку, ответы берёт из очереди заготовок,
+    // а когда заготовки кончились, отвечает успехом сразу
+    private static final class FakeTransport implements OutboundMessageSender.Transport {
+        private final BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+        private final Queue<CompletableFuture<Serializable>> replies = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public CompletableFuture<? extends Serializable> send(PartialBotApiMethod<? extends Serializable> method) {
+            if (method instanceof SendDocument) {
+                SendDocument document = (SendDocument) method;
+                deliveries.add(new Delivery(document.getChatId(), "документ " + document.getDocument().getMediaName(),
+                        System.nanoTime()));
+            } else {
+                SendMessage message = (SendMessage) method;
+                deliveries.add(new Delivery(message.getChatId(), message.getText(), System.nanoTime()));
+            }
+            CompletableFuture<Serializable> reply = replies.poll();
+            return reply != null ? reply : CompletableFuture.completedFuture(Boolean.TRUE);
+        }
+
+        CompletableFuture<Serializable> holdNext() {
+            CompletableFuture<Serializable> reply = new CompletableFuture<>();
+            replies.add(reply);
+            return reply;
+        }
+
+        void failNext(TelegramApiRequestException error) {
+            replies.add(CompletableFuture.failedFuture(error));
+        }
+
+        Delivery next() throws InterruptedException {
+            Delivery delivery = deliveries.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull(delivery, "Сообщение не отправлено за " + TIMEOUT_MILLIS + " мс");
+            return delivery;
+        }
+    }
+
+    @Test
+    public void testRetryAfterDelaysResend() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        transport.failNext(apiError(429, 1));
+        try (OutboundMessageSender sender = new OutboundMessageSender(transport)) {
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "привет"));
+
+            Delivery rejected = transport.next();
+            Delivery resent = transport.next();
+            assertEquals("привет", resent.text);
+            assertTrue(millisBetween(rejected, resent) >= 950,
+                    "Повтор раньше retry_after: " + millisBetween(rejected, resent) + " мс");
+
+            await(() -> sender.getSent() == 1);
+            assertEquals(1, sender.getRetried());
+            assertEquals(0, sender.getFailed());
+            assertEquals(0, sender.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        transport.failNext(apiError(400, null));
+        try (OutboundMessageSender sender = new OutboundMessageSender(transport)) {
+            sender.enqueue(PRIVATE_CHAT, keyboard(PRIVATE_CHAT, "первое"));
+            sender.enqueue(PRIVATE_CHAT, keyboard(PRIVATE_CHAT, "второе"));
+
+            assertEquals("первое", transport.next().text);
+            assertEquals("второе", transport.next().text);
+            await(() -> sender.getSent() == 1 && sender.getFailed() == 1);
+            assertEquals(0, sender.getRetried());
+        }
+    }
+
+    @Test
+    public void testChatBucketAllowsBurstThenOnePerSecond() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        try (OutboundMessageSender sender = new OutboundMessageSender(transport)) {
+            for (int i = 1; i <= 5; i++) {
+                sender.enqueue(PRIVATE_CHAT, keyboard(PRIVATE_CHAT, "сообщение " + i));
+            }
+
+            List<Delivery> deliveries = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) {
+                Delivery delivery = transport.next();
+                assertEquals("сообщение " + i, delivery.text);
+                deliveries.add(delivery);
+            }
+            // Запас в три сообщения уходит сразу, дальше — по одному в секунду
+            assertTrue(millisBetween(deliveries.get(0), deliveries.get(2)) < 500);
+            assertTrue(millisBetween(deliveries.get(0), deliveries.get(3)) >= 950);
+            assertTrue(millisBetween(deliveries.get(3), deliveries.get(4)) >= 950);
+            await(() -> sender.getSent() == 5);
+        }
+    }
+
+    @Test
+    public void testCoalescesQueuedTextsInOrder() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        CompletableFuture<Serializable> firstReply = transport.holdNext();
+        try (OutboundMessageSender sender = new OutboundMessageSender(transport)) {
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "1"));
+            assertEquals("1", transport.next().text);
+
+            // Пока первое сообщение в пути, в чат копится очередь; другой чат её не ждёт
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "2"));
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "3"));
+            sender.enqueue(PRIVATE_CHAT, keyboard(PRIVATE_CHAT, "меню"));
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "4"));
+            sender.enqueue("-100", text("-100", "группа"));
+            Delivery other = transport.next();
+            assertEquals("-100", other.chatId);
+            assertEquals("группа", other.text);
+
+            firstReply.complete(Boolean.TRUE);
+            assertEquals("2\n\n3", transport.next().text);
+            assertEquals("меню", transport.next().text);
+            assertEquals("4", transport.next().text);
+
+            await(() -> sender.getSent() == 6);
+            assertEquals(1, sender.getCoalesced());
+            assertEquals(0, sender.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testDocumentGoesThroughQueueAndReportsCompletion() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        CompletableFuture<Serializable> documentReply;
+        CountDownLatch done = new CountDownLatch(1);
+        try (OutboundMessageSender sender = new OutboundMessageSender(transport)) {
+            CompletableFuture<Serializable> firstReply = transport.holdNext();
+            documentReply = transport.holdNext();
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "1"));
+            assertEquals("1", transport.next().text);
+
+            sender.enqueue(PRIVATE_CHAT, new SendDocument(PRIVATE_CHAT, new InputFile(new File("games.csv"), "games.csv")),
+                    done::countDown);
+            sender.enqueue(PRIVATE_CHAT, text(PRIVATE_CHAT, "2"));
+            firstReply.complete(Boolean.TRUE);
+
+            // Документ идёт в очереди чата по порядку и не склеивается с текстом
+            assertEquals("документ games.csv", transport.next().text);
+            assertEquals(1, done.getCount());
+            documentReply.complete(Boolean.TRUE);
+            assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertEquals("2", transport.next().text);
+            await(() -> sender.getSent() == 3);
+        }
+    }
+
+    private static SendMessage text(String chatId, String text) {
+        return new SendMessage(chatId, text);
+    }
+
+    private static SendMessage keyboard(String chatId, String text) {
+        SendMessage message = new SendMessage(chatId, text);
+        message.setReplyMarkup(InlineKeyboardMarkup.builder()
+                .keyboardRow(List.of(InlineKeyboardButton.builder().text("Далее").callbackData("next").build()))
+                .build());
+        return message;
+    }
+
+    private static TelegramApiRequestException apiError(int code, Integer retryAfter) {
+        JSONObject answer = new JSONObject()
+                .put("ok", false)
+                .put("error_code", code)
+                .put("description", "ошибка " + code);
+        if (retryAfter != null) {
+            answer.put("parameters", new JSONObject().put("retry_after", retryAfter));
+        }
+        return new TelegramApiRequestException("Ошибка Bot API", answer);
+    }
+
+    private static long millisBetween(Delivery first, Delivery second) {
+        return TimeUnit.NANOSECONDS.toMillis(second.atNanos - first.atNanos);
+    }
+
+    // Счётчики обновляются в потоке отправителя после ответа заглушки
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Условие не выполнилось за " + TIMEOUT_MILLIS + " мс");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+import org.example.game_controller.PlayerCountIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerCountIndexTests {
+    private static final List<BoardGame> GAMES = List.of(
+            new BoardGame("1", "Каркассон", "Описание", "Стратегия", 2, 5, 40),
+            new BoardGame("2", "Мафия", "Описание", "Вечеринка", 6, 20, 60),
+            new BoardGame("3", "Кодовые имена", "Описание", "Вечеринка", 4, 40, 15),
+            new BoardGame("4", "Городская игра", "Описание", "Вечеринка", 40, 100, 180));
+
+    @Test
+    public void testFindsGamesWithinIndexedRange() {
+        PlayerCountIndex index = new PlayerCountIndex(GAMES);
+
+        assertEquals(List.of("Каркассон", "Кодовые имена"), names(index.find(4, null, 0)));
+        assertEquals(List.of("Мафия", "Кодовые имена"), names(index.find(10, "вечеринка", 0)));
+        assertEquals(List.of("Кодовые имена"), names(index.find(10, null, 30)));
+        assertEquals(List.of(), names(index.find(1, null, 0)));
+        assertEquals(List.of(), names(index.find(4, "Кооператив", 0)));
+    }
+
+    @Test
+    public void testFindsGamesBeyondIndexedRange() {
+        PlayerCountIndex index = new PlayerCountIndex(GAMES);
+
+        assertEquals(List.of("Кодовые имена"), names(index.find(33, null, 0)));
+        assertEquals(List.of("Кодовые имена", "Городская игра"), names(index.find(40, null, 0)));
+        assertEquals(List.of("Городская игра"), names(index.find(64, "Вечеринка", 0)));
+        assertEquals(List.of("Городская игра"), names(index.find(100, null, 0)));
+        assertEquals(List.of(), names(index.find(101, null, 0)));
+        assertFalse(names(index.find(20, null, 0)).contains("Городская игра"));
+        assertFalse(names(index.find(32, null, 0)).contains("Городская игра"));
+    }
+
+    private static List<String> names(List<BoardGame> games) {
+        return games.stream().map(BoardGame::getName).collect(Collectors.toList());
+    }
+}
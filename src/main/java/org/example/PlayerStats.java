@@ -13,6 +13,13 @@ public class PlayerStats {
         this.winPercentage = 0.0;
     }
 
+    public PlayerStats(String playerName, int wins, int totalGames) {
+        this.playerName = playerName;
+        this.wins = wins;
+        this.totalGames = totalGames;
+        recalculateWinPercentage();
+    }
+
     // Геттеры и сеттеры
     public String getPlayerName() { return playerName; }
     public int getWins() { return wins; }
@@ -21,4 +28,37 @@ public class PlayerStats {
     public void setTotalGames(int totalGames) { this.totalGames = totalGames; }
     public double getWinPercentage() { return winPercentage; }
     public void setWinPercentage(double winPercentage) { this.winPercentage = winPercentage; }
+
+    public void recordGame(boolean won) {
+        totalGames++;
+        if (won) {
+            wins++;
+        }
+        recalculateWinPercentage();
+    }
+
+    // Победитель может отсутствовать в списке игроков старых сессий
+    public void recordWin() {
+        wins++;
+        recalculateWinPercentage();
+    }
+
+    // Слияние счётчиков одного игрока, посчитанных по разным частям истории
+    public void add(PlayerStats other) {
+        wins += other.wins;
+        totalGames += other.totalGames;
+        recalculateWinPercentage();
+    }
+
+    public PlayerStats copy() {
+        PlayerStats copy = new PlayerStats(playerName);
+        copy.wins = wins;
+        copy.totalGames = totalGames;
+        copy.winPercentage = winPercentage;
+        return copy;
+    }
+
+    private void recalculateWinPercentage() {
+        winPercentage = totalGames > 0 ? (double) wins / totalGames * 100 : 0.0;
+    }
 }
\ No newline at end of file
@@ -1,42 +1,180 @@
 package org.example.bot;
 
+import org.example.BoardGame;
 import org.example.GameSession;
 import org.example.dao.BoardGameDao;
+import org.example.dao.CachingBoardGameDao;
 import org.example.dao.DaoFactory;
+import org.example.dao.SessionPage;
+import org.example.dao.TimedBoardGameDao;
+import org.example.game_controller.BulkImporter;
 import org.example.game_controller.GameManager;
-import org.example.game_controller.GameSessionManager;
+import org.example.game_controller.ImportReport;
+import org.example.game_controller.TransferFormat;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.AnswerInlineQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.InlineQuery;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.inputmessagecontent.InputTextMessageContent;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResult;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResultArticle;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class BoardGameBot extends TelegramLongPollingBot {
-
-    private GameManager gameManager;
-    private GameSessionManager sessionManager;
-    private BoardGameDao dao;
-    private String currentStorageType = "mongodb"; // default storage
-    private List<GameSession> gameHistory;
+    private static final Logger log = LoggerFactory.getLogger(BoardGameBot.class);
+    private static final long STATUS_UPDATE_PERIOD_MINUTES = 10;
+    private static final int MAX_UPDATES_IN_FLIGHT = 1000;
+    private static final int MAX_UPDATES_QUEUED_PER_CHAT = 20;
+    private static final int GAMES_PAGE_SIZE = 10;
+    private static final int SESSIONS_PAGE_SIZE = 5;
+    private static final int MAX_CALLBACK_DATA_BYTES = 64;
+    private static final int MAX_CALLBACK_PAYLOADS = 10_000;
+    private static final String STALE_BUTTON_MESSAGE = "⌛ Кнопка устарела, повторите запрос.";
+    private static final int INLINE_RESULTS_LIMIT = 10;
+    private static final int INLINE_CACHE_SECONDS = 60;
+    private static final String DEFAULT_STORAGE_TYPE = "mongodb";
+    private static final long IDLE_STORAGE_TTL_MINUTES = 30;
+    // Больше Bot API скачать боту не даст
+    private static final long MAX_IMPORT_FILE_BYTES = 20L * 1024 * 1024;
+    private static final String IMPORT_USAGE = "ℹ️ Отправьте CSV или JSON файл с подписью /import games или /import sessions.\n" +
+            "Колонки игр: name, description, category, minPlayers, maxPlayers, averageTime\n" +
+            "Колонки сессий: gameName, dateTime (ГГГГ-ММ-ДД или ГГГГ-ММ-ДДTчч:мм), players (через запятую), winner, status";
+    // У каждой известной команды своя гистограмма, всё остальное пишется в "other",
+    // чтобы произвольный текст из чата не плодил метрики
+    private static final List<String> COMMANDS = List.of("/start", "/help", "/games", "/addgame", "/history",
+            "/addsession", "/stats", "/leaderboard", "/h2h", "/rating", "/top", "/setstorage", "/filterdate", "/filterstatus", "/filtergame", "/filter",
+            "/import", "/export", "/metrics");
+    // Чаты, которым доступна /metrics: id через запятую
+    private static final String ADMIN_CHAT_IDS_ENV = "BOT_ADMIN_CHAT_IDS";
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Map<String, LatencyHistogram> commandLatency = new HashMap<>();
+    private final LatencyHistogram otherCommandLatency = metrics.histogram("boardgame_command_seconds",
+            "Время обработки команды", "command", "other");
+    private final LongAdder commandErrors = metrics.counter("boardgame_command_errors_total",
+            "Команды, завершившиеся необработанной ошибкой");
+    private final Map<String, CachingBoardGameDao> caches = new ConcurrentHashMap<>();
+    private final CallbackPayloads callbackPayloads = new CallbackPayloads(MAX_CALLBACK_PAYLOADS);
+    private final Set<String> adminChatIds = parseChatIds(System.getenv(ADMIN_CHAT_IDS_ENV));
+    private final StorageRegistry storageRegistry =
+            new StorageRegistry(this::createDao, this::releaseDao, IDLE_STORAGE_TTL_MINUTES, TimeUnit.MINUTES);
+    private final ScheduledExecutorService statusScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-status-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final UpdateDispatcher dispatcher = new UpdateDispatcher(MAX_UPDATES_IN_FLIGHT, MAX_UPDATES_QUEUED_PER_CHAT);
+    private final OutboundMessageSender sender = new OutboundMessageSender(this::executeQueued);
 
     public BoardGameBot() {
-        initDao(currentStorageType);
-        this.gameHistory = dao.getGameHistory();
+        this(DEFAULT_STORAGE_TYPE);
+    }
+
+    // Хранилище при старте задаётся явно, например memory для бенчмарков без сервера Mongo
+    public BoardGameBot(String storageType) {
+        registerMetrics();
+        storageRegistry.switchTo(storageType, false);
+        // Статусы сессий обновляются в фоне, а не внутри обработки /addsession
+        statusScheduler.scheduleWithFixedDelay(this::updateGameStatuses,
+                0, STATUS_UPDATE_PERIOD_MINUTES, TimeUnit.MINUTES);
+        statusScheduler.scheduleWithFixedDelay(storageRegistry::evictIdle,
+                IDLE_STORAGE_TTL_MINUTES, IDLE_STORAGE_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void registerMetrics() {
+        for (String command : COMMANDS) {
+            commandLatency.put(command, metrics.histogram("boardgame_command_seconds",
+                    "Время обработки команды", "command", command));
+        }
+        metrics.gauge("boardgame_send_queue_depth", "Сообщения в очереди на отправку", sender::getQueueDepth);
+        metrics.counter("boardgame_messages_sent_total", "Доставленные сообщения", sender::getSent);
+        metrics.counter("boardgame_messages_failed_total", "Сообщения, которые не удалось доставить", sender::getFailed);
+        metrics.counter("boardgame_messages_retried_total", "Повторные попытки отправки", sender::getRetried);
+        metrics.gauge("boardgame_updates_in_flight", "Обновления в обработке", dispatcher::getInFlight);
+        metrics.counter("boardgame_updates_rejected_total", "Обновления, отброшенные из-за переполненной очереди чата",
+                dispatcher::getRejected);
+    }
+
+    // Каждое хранилище замеряется целиком, вместе с кэшем; попадания в кэш считаются отдельно
+    private BoardGameDao createDao(String type) {
+        BoardGameDao dao = DaoFactory.createTaskDao(type);
+        if (dao instanceof CachingBoardGameDao) {
+            CachingBoardGameDao cache = (CachingBoardGameDao) dao;
+            caches.put(type, cache);
+            metrics.counter("boardgame_cache_hits_total", "Запросы, обслуженные кэшем", cache::getHits, "storage", type);
+            metrics.counter("boardgame_cache_misses_total", "Запросы, загрузившие данные из хранилища",
+                    cache::getMisses, "storage", type);
+            metrics.gauge("boardgame_cache_hit_ratio", "Доля запросов, обслуженных кэшем",
+                    () -> hitRatio(cache), "storage", type);
+        }
+        return new TimedBoardGameDao(dao, metrics, type);
+    }
+
+    // Вытесненное хранилище не должно оставаться в сводке и держаться источниками метрик
+    private void releaseDao(String type) {
+        if (caches.remove(type) != null) {
+            metrics.remove("boardgame_cache_hits_total", "storage", type);
+            metrics.remove("boardgame_cache_misses_total", "storage", type);
+            metrics.remove("boardgame_cache_hit_ratio", "storage", type);
+        }
+    }
+
+    // У документов своя перегрузка executeAsync: файл загружается отдельным multipart-запросом
+    private CompletableFuture<? extends Serializable> executeQueued(PartialBotApiMethod<? extends Serializable> method)
+            throws TelegramApiException {
+        if (method instanceof SendDocument) {
+            return executeAsync((SendDocument) method);
+        }
+        return executeAsync((BotApiMethod<? extends Serializable>) method);
     }
 
-    private void initDao(String storageType) {
-        this.dao = DaoFactory.createTaskDao(storageType);
-        this.gameManager = new GameManager(dao);
-        this.sessionManager = new GameSessionManager(dao);
-        this.currentStorageType = storageType;
+    public MetricsRegistry getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -46,55 +184,280 @@ public class BoardGameBot extends TelegramLongPollingBot {
             String chatId = message.getChatId().toString();
             String text = message.getText().trim();
 
-            try {
-                String response = processCommand(chatId, text);
-                sendMessage(chatId, response);
-            } catch (Exception e) {
-                sendMessage(chatId, "⚠️ Ошибка: " + e.getMessage());
-                e.printStackTrace();
+            // Разные чаты обрабатываются параллельно, сообщения одного чата — строго по порядку
+            if (!dispatcher.dispatch(chatId, () -> handleMessage(chatId, text))) {
+                sendMessage(chatId, "⏳ Слишком много запросов, повторите команду чуть позже.");
+            }
+        } else if (update.hasMessage() && update.getMessage().hasDocument()) {
+            Message message = update.getMessage();
+            String chatId = message.getChatId().toString();
+            if (!dispatcher.dispatch(chatId, () -> handleDocument(chatId, message.getDocument(), message.getCaption()))) {
+                sendMessage(chatId, "⏳ Слишком много запросов, повторите команду чуть позже.");
+            }
+        } else if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            CallbackQuery query = update.getCallbackQuery();
+            String chatId = query.getMessage().getChatId().toString();
+            dispatcher.dispatch(chatId, () -> handleCallback(chatId, query));
+        } else if (update.hasInlineQuery()) {
+            InlineQuery query = update.getInlineQuery();
+            // У inline-запроса нет чата, порядок соблюдается в пределах пользователя
+            dispatcher.dispatch("inline:" + query.getFrom().getId(), () -> handleInlineQuery(query));
+        }
+    }
+
+    private void handleMessage(String chatId, String text) {
+        // Команда до конца работает с тем хранилищем, которое было текущим при её старте
+        try (StorageRegistry.Lease lease = storageRegistry.acquire()) {
+            sendResponse(chatId, handleCommand(lease.getBackend(), chatId, text));
+        } catch (Exception e) {
+            sendMessage(chatId, "⚠️ Ошибка: " + e.getMessage());
+            log.error("Не удалось обработать сообщение в чате {}", chatId, e);
+        }
+    }
+
+    private void handleDocument(String chatId, Document document, String caption) {
+        sendMessage(chatId, processDocument(chatId, document, caption));
+    }
+
+    // Файл с подписью «/import games» или «/import sessions»: разбирается потоково, прямо из загрузки
+    public String processDocument(String chatId, Document document, String caption) {
+        String[] parts = (caption != null ? caption : "").trim().split("\\s+", 2);
+        String target = parts.length > 1 ? parts[1].toLowerCase(Locale.ROOT) : "";
+        if (!parts[0].equalsIgnoreCase("/import") || !(target.equals("games") || target.equals("sessions"))) {
+            return IMPORT_USAGE;
+        }
+        TransferFormat format = TransferFormat.fromFileName(document.getFileName());
+        if (format == null) {
+            return "❌ Поддерживаются файлы .csv и .json";
+        }
+        if (document.getFileSize() != null && document.getFileSize() > MAX_IMPORT_FILE_BYTES) {
+            return "❌ Telegram не отдаёт ботам файлы больше 20 МБ. Большой файл импортируйте на сервере: " +
+                    "org.example.Main import " + target + " <файл> [хранилище]";
+        }
+
+        try (StorageRegistry.Lease lease = storageRegistry.acquire();
+             Reader reader = new BufferedReader(new InputStreamReader(
+                     downloadFileAsStream(execute(new GetFile(document.getFileId()))), StandardCharsets.UTF_8))) {
+            BulkImporter importer = lease.getBackend().getImporter();
+            ImportReport report = target.equals("games")
+                    ? importer.importGames(reader, format)
+                    : importer.importSessions(reader, format);
+            return report.format(target.equals("games") ? "Импорт игр" : "Импорт сессий");
+        } catch (IllegalArgumentException e) {
+            return "❌ " + e.getMessage();
+        } catch (Exception e) {
+            log.error("Не удалось импортировать файл {} в чате {}", document.getFileName(), chatId, e);
+            return "⚠️ Не удалось импортировать файл: " + e.getMessage();
+        }
+    }
+
+    // Кнопки листания: страница перерисовывается в том же сообщении. На нажатие отвечаем
+    // в любом случае, иначе Telegram показывает у кнопки бесконечную загрузку
+    private void handleCallback(String chatId, CallbackQuery query) {
+        try {
+            BotResponse page = processCallback(chatId, query.getData());
+            if (page != null) {
+                EditMessageText edit = new EditMessageText();
+                edit.setChatId(chatId);
+                edit.setMessageId(query.getMessage().getMessageId());
+                edit.setText(MessageChunker.split(page.getText(), MessageChunker.MAX_MESSAGE_LENGTH).get(0));
+                edit.enableHtml(true);
+                edit.setReplyMarkup((InlineKeyboardMarkup) page.getKeyboard());
+                sender.enqueue(chatId, edit);
+            }
+        } catch (Exception e) {
+            log.error("Не удалось обработать кнопку {} в чате {}", query.getData(), chatId, e);
+        } finally {
+            answerCallback(query);
+        }
+    }
+
+    private void answerCallback(CallbackQuery query) {
+        try {
+            executeAsync(new AnswerCallbackQuery(query.getId()));
+        } catch (Exception e) {
+            log.error("Не удалось ответить на кнопку {}", query.getData(), e);
+        }
+    }
+
+    // Страница по данным кнопки; null — кнопка не из листания. Кнопки старых сообщений
+    // (ключ вытеснен, курсор от другого хранилища) и испорченные данные дают сообщение об этом
+    public BotResponse processCallback(String chatId, String data) {
+        try (StorageRegistry.Lease lease = storageRegistry.acquire()) {
+            return handlePageCallback(lease.getBackend(), data);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            log.warn("Устаревшая кнопка {} в чате {}: {}", data, chatId, e.toString());
+            return BotResponse.text(STALE_BUTTON_MESSAGE);
+        }
+    }
+
+    // Автодополнение в строке ввода: @бот <часть названия> → игры, выбор отправляет /filtergame
+    private void handleInlineQuery(InlineQuery query) {
+        try (StorageRegistry.Lease lease = storageRegistry.acquire()) {
+            List<InlineQueryResult> results = new ArrayList<>();
+            List<BoardGame> games = lease.getBackend().getGameManager().searchGames(query.getQuery(), INLINE_RESULTS_LIMIT);
+            for (int i = 0; i < games.size(); i++) {
+                BoardGame game = games.get(i);
+                InlineQueryResultArticle article = new InlineQueryResultArticle();
+                article.setId(String.valueOf(i));
+                article.setTitle(game.getName());
+                article.setDescription(game.getCategory() + ", " + game.getMinPlayers() + "-"
+                        + game.getMaxPlayers() + " игроков, ~" + game.getAverageTime() + " мин");
+                article.setInputMessageContent(new InputTextMessageContent("/filtergame " + game.getName()));
+                results.add(article);
             }
+
+            AnswerInlineQuery answer = new AnswerInlineQuery(query.getId(), results);
+            answer.setCacheTime(INLINE_CACHE_SECONDS);
+            executeAsync(answer);
+        } catch (Exception e) {
+            log.error("Не удалось ответить на inline-запрос «{}»", query.getQuery(), e);
         }
     }
 
+    // Только текст ответа: документ, если он есть, не отправляется и сразу удаляется
     public String processCommand(String chatId, String command) {
+        try (StorageRegistry.Lease lease = storageRegistry.acquire()) {
+            BotResponse response = handleCommand(lease.getBackend(), chatId, command);
+            if (response.getDocument() != null) {
+                deleteTempFile(response.getDocument());
+            }
+            return response.getText();
+        }
+    }
+
+    private BotResponse handleCommand(StorageRegistry.Backend storage, String chatId, String command) {
         String[] parts = command.split(" ", 2);
         String cmd = parts[0].toLowerCase();
         String args = parts.length > 1 ? parts[1] : "";
 
+        LatencyHistogram latency = commandLatency.getOrDefault(cmd, otherCommandLatency);
+        long start = System.nanoTime();
         try {
             switch (cmd) {
                 case "/start":
-                    return getWelcomeMessage();
+                    return new BotResponse(getWelcomeMessage(), createMainKeyboard());
                 case "/help":
-                    return getHelpMessage();
+                    return BotResponse.text(getHelpMessage());
                 case "/games":
-                    return gameManager.listAllGames();
+                    return gamesPage(storage, 0);
                 case "/addgame":
-                    return gameManager.addGame(args);
+                    return BotResponse.text(storage.getGameManager().addGame(args));
                 case "/history":
-                    return sessionManager.getRecentSessions(5);
+                    return historyPage(storage, null);
                 case "/addsession":
-                    String result = sessionManager.addSession(args);
-                    sessionManager.updateGameStatuses();
-                    return result;
+                    return BotResponse.text(storage.getSessionManager().addSession(args));
                 case "/stats":
-                    return sessionManager.getWinStatistics(args);
+                    return BotResponse.text(storage.getSessionManager().getWinStatistics(args));
+                case "/leaderboard":
+                    return BotResponse.text(storage.getSessionManager().getLeaderboard());
+                case "/h2h":
+                    return BotResponse.text(storage.getSessionManager().getHeadToHead(args));
+                case "/rating":
+                    return BotResponse.text(storage.getSessionManager().getRating(args));
+                case "/top":
+                    return BotResponse.text(storage.getSessionManager().getTopRatings(args));
                 case "/setstorage":
-                    return setStorageType(args);
+                    return BotResponse.text(setStorageType(args));
                 case "/filterdate":
-                    return filterByDate(args);
+                    return filterByDate(storage, args, 0, null);
                 case "/filterstatus":
-                    return filterByStatus(args);
+                    return filterByStatus(storage, args, 0, null);
                 case "/filtergame":
-                    return gameManager.getGameInfo(args);
+                    return BotResponse.text(storage.getGameManager().getGameInfo(args));
+                case "/filter":
+                    return filterSessions(storage, args, 0, null);
+                case "/import":
+                    return BotResponse.text(IMPORT_USAGE);
+                case "/export":
+                    return exportData(storage, chatId, args);
+                case "/metrics":
+                    return BotResponse.text(adminChatIds.contains(chatId)
+                            ? metricsReport()
+                            : "⛔ Команда доступна только администраторам бота.");
 
                 default:
-                    return "❌ Неизвестная команда. Введите /help для списка команд.";
+                    return BotResponse.text("❌ Неизвестная команда. Введите /help для списка команд.");
             }
         } catch (Exception e) {
-            System.err.println("Error processing command: " + command);
-            e.printStackTrace();
-            return "⚠️ Произошла ошибка при обработке команды";
+            commandErrors.increment();
+            log.error("Ошибка при обработке команды: {}", command, e);
+            return BotResponse.text("⚠️ Произошла ошибка при обработке команды");
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    // callback_data: "games:<страница>", "history:<курсор>", "fdate:<страница>:<курсор>:<даты>",
+    // "fstatus:<страница>:<курсор>:<статус>", "filter:<страница>:<курсор>:<условия>" (пустой курсор —
+    // первая страница), "key:<ключ>" — данные длиннее 64 байт, оставшиеся у бота
+    private BotResponse handlePageCallback(StorageRegistry.Backend storage, String data) {
+        if (data == null) {
+            return null;
+        }
+        String[] parts = data.split(":", 2);
+        String payload = parts.length > 1 ? parts[1] : "";
+        switch (parts[0]) {
+            case "games":
+                return gamesPage(storage, Integer.parseInt(payload));
+            case "history":
+                return historyPage(storage, payload.isEmpty() ? null : payload);
+            case "key":
+                String stored = callbackPayloads.payload(payload);
+                return stored != null
+                        ? handlePageCallback(storage, stored)
+                        : BotResponse.text(STALE_BUTTON_MESSAGE);
+            case "fdate":
+            case "fstatus":
+            case "filter":
+                // Условия идут последними: в названии игры может быть двоеточие
+                String[] filter = payload.split(":", 3);
+                int page = Integer.parseInt(filter[0]);
+                String cursor = filter[1].isEmpty() ? null : filter[1];
+                switch (parts[0]) {
+                    case "fdate":
+                        return filterByDate(storage, filter[2], page, cursor);
+                    case "fstatus":
+                        return filterByStatus(storage, filter[2], page, cursor);
+                    default:
+                        return filterSessions(storage, filter[2], page, cursor);
+                }
+            default:
+                return null;
+        }
+    }
+
+    private BotResponse gamesPage(StorageRegistry.Backend storage, int page) {
+        GameManager gameManager = storage.getGameManager();
+        int pageCount = gameManager.getGamesPageCount(GAMES_PAGE_SIZE);
+        int current = Math.max(0, Math.min(page, pageCount - 1));
+        return new BotResponse(
+                gameManager.listGamesPage(current, GAMES_PAGE_SIZE),
+                navigationKeyboard(
+                        current > 0 ? "games:" + (current - 1) : null,
+                        current < pageCount - 1 ? "games:" + (current + 1) : null));
+    }
+
+    private BotResponse historyPage(StorageRegistry.Backend storage, String cursor) {
+        SessionPage page = storage.getSessionManager().getHistoryPage(SESSIONS_PAGE_SIZE, cursor);
+        if (page.getSessions().isEmpty()) {
+            return BotResponse.text("История игр пуста.");
+        }
+
+        StringBuilder sb = new StringBuilder("Последние игры:\n");
+        page.getSessions().forEach(session -> sb.append(session.toString()).append("\n\n"));
+        // Курсор только «вперёд», поэтому назад — возврат к началу истории
+        return new BotResponse(sb.toString(), navigationKeyboard(
+                cursor != null ? "history:" : null,
+                page.hasNext() ? "history:" + page.getNextCursor() : null));
+    }
+
+    private void updateGameStatuses() {
+        try (StorageRegistry.Lease lease = storageRegistry.acquire()) {
+            lease.getBackend().getSessionManager().updateGameStatuses();
+        } catch (Exception e) {
+            // Исключение отменило бы все следующие запуски задачи
+            log.error("Не удалось обновить статусы сессий", e);
         }
     }
 
@@ -112,91 +475,271 @@ public class BoardGameBot extends TelegramLongPollingBot {
                 "📅 Сессии:\n" +
                 "/history - Последние 5 игровых сессий\n" +
                 "/addsession [игра;игроки;победитель] - Добавить сессию\n" +
-                "/stats [название] - Статистика побед по игре\n\n" +
+                "/stats [название] - Статистика побед по игре\n" +
+                "/leaderboard - Общий рейтинг игроков, популярные игры и серии побед\n" +
+                "/h2h [игрок1;игрок2] - Личные встречи двух игроков\n" +
+                "/rating [имя] - Рейтинг Эло игрока, общий и по играм\n" +
+                "/top [название] - Лучшие игроки по рейтингу, общему или в игре\n\n" +
                 "⚙️ Настройки:\n" +
-                "/setstorage [memory|mongodb|json] - Изменить источник данных\n\n" +
-                "Текущее хранилище: " + currentStorageType + "\n\n" +
+                "/setstorage [memory|mongodb|json|binary] - Изменить источник данных\n\n" +
+                "Текущее хранилище: " + storageRegistry.getCurrentType() + "\n\n" +
                 "🔍 Фильтры:\n" +
                 "/filterdate [начало;конец] - Фильтр по дате (формат: ГГГГ-ММ-ДД)\n" +
                 "/filterstatus [STATUS] - Фильтр по статусу (IN_PROGRESS, PLAYED)\n" +
                 "/filtergame [название] - Фильтр по названию игры\n" +
+                "/filter [from=ГГГГ-ММ-ДД; to=ГГГГ-ММ-ДД; game=название; status=STATUS; player=имя] - " +
+                "Сессии по нескольким условиям сразу, любые можно опустить\n\n" +
+                "📦 Импорт и экспорт:\n" +
+                "/import - Как загрузить игры или сессии из CSV/JSON файла\n" +
+                "/export [games|sessions] [csv|json] - Выгрузить коллекцию или историю в файл\n\n" +
                 "❓ Помощь:\n" +
                 "/help - Справка по командам";
     }
 
     private String setStorageType(String storageType) {
         try {
-            initDao(storageType);
+            // Кэш нового хранилища прогревается в фоне, команды тем временем уже идут к нему
+            storageRegistry.switchTo(storageType, true);
             return "✅ Источник данных изменен на: " + storageType +
-                    "\nТекущее хранилище: " + currentStorageType;
+                    "\nТекущее хранилище: " + storageRegistry.getCurrentType();
         } catch (Exception e) {
             return "❌ Ошибка при смене хранилища: " + e.getMessage() +
-                    "\nДоступные варианты: memory, mongodb, json";
+                    "\nДоступные варианты: memory, mongodb, json, binary";
         }
     }
 
-    private String filterByDate(String dateArgs) {
+    // /export games|sessions [csv|json]: файл пишется потоково во временный файл и уходит документом
+    // через общую очередь отправки, а не блокирующим вызовом из обработчика чата
+    private BotResponse exportData(StorageRegistry.Backend storage, String chatId, String args) {
+        String[] parts = args.trim().split("\\s+");
+        String target = parts[0].toLowerCase(Locale.ROOT);
+        TransferFormat format = parts.length > 1 ? TransferFormat.fromName(parts[1]) : TransferFormat.CSV;
+        if (!(target.equals("games") || target.equals("sessions")) || format == null) {
+            return BotResponse.text("ℹ️ Используйте: /export games|sessions [csv|json]");
+        }
+
+        Path file = null;
         try {
-            String[] dates = dateArgs.split(";");
-            LocalDate fromDate = dates.length > 0 && !dates[0].isEmpty() ? LocalDate.parse(dates[0]) : null;
-            LocalDate toDate = dates.length > 1 && !dates[1].isEmpty() ? LocalDate.parse(dates[1]) : null;
+            file = Files.createTempFile("export-" + target + "-", format.getExtension());
+            long count;
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                count = target.equals("games")
+                        ? storage.getExporter().exportGames(out, format)
+                        : storage.getExporter().exportSessions(out, format);
+            }
+            return BotResponse.document("📤 Выгружено записей: " + count, file, target + format.getExtension());
+        } catch (Exception e) {
+            log.error("Не удалось выгрузить {} в чат {}", target, chatId, e);
+            if (file != null) {
+                deleteTempFile(file);
+            }
+            return BotResponse.text("⚠️ Не удалось выгрузить данные: " + e.getMessage());
+        }
+    }
 
-            List<GameSession> filteredSessions = gameHistory.stream()
-                    .filter(session -> fromDate == null || !session.getDateTime().toLocalDate().isBefore(fromDate))
-                    .filter(session -> toDate == null || !session.getDateTime().toLocalDate().isAfter(toDate))
-                    .collect(Collectors.toList());
+    private static void deleteTempFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}", file, e);
+        }
+    }
 
-            return formatFilteredSessions("📅 Сессии по дате:", filteredSessions);
-        } catch (Exception e) {
-            return "⚠️ Ошибка формата. Используйте: /filterdate [начальная_дата;конечная_дата]\n" +
-                    "Пример: /filterdate 2023-01-01;2023-12-31";
+    // Сводка для администратора: задержки команд, кэш, очереди
+    private String metricsReport() {
+        StringBuilder report = new StringBuilder("📈 Метрики\n\nКоманды, мс (p50 / p99 / max, вызовов):\n");
+        for (Map.Entry<String, LatencyHistogram> entry : metrics.histograms("boardgame_command_seconds", "command")) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "%s: %.2f / %.2f / %.2f, %d%n", entry.getKey(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getMaxNanos() / 1e6, histogram.getCount()));
         }
+        report.append("Ошибок: ").append(commandErrors.sum()).append("\n\n");
+
+        caches.forEach((type, cache) -> report.append(String.format(Locale.ROOT,
+                "💾 Кэш %s: попаданий %.1f%% (%d из %d)%n", type, hitRatio(cache) * 100,
+                cache.getHits(), cache.getHits() + cache.getMisses())));
+        report.append(String.format(Locale.ROOT,
+                "%n📤 Очередь отправки: %d, доставлено %d, ошибок %d, повторов %d, задержка до %.0f мс%n",
+                sender.getQueueDepth(), sender.getSent(), sender.getFailed(), sender.getRetried(),
+                sender.getMaxLatencyMillis()));
+        report.append(String.format(Locale.ROOT, "📥 Обновлений в обработке: %d, отклонено %d",
+                dispatcher.getInFlight(), dispatcher.getRejected()));
+        return report.toString();
+    }
+
+    private static double hitRatio(CachingBoardGameDao cache) {
+        long hits = cache.getHits();
+        long total = hits + cache.getMisses();
+        return total == 0 ? 0 : hits / (double) total;
     }
 
-    private String filterByStatus(String statusArg) {
+    private static Set<String> parseChatIds(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private BotResponse filterByDate(StorageRegistry.Backend storage, String dateArgs, int page, String cursor) {
+        LocalDate fromDate;
+        LocalDate toDate;
         try {
-            GameSession.GameStatus status = GameSession.GameStatus.valueOf(statusArg.trim().toUpperCase());
-            List<GameSession> filteredSessions = gameHistory.stream()
-                    .filter(session -> session.getStatus() == status)
-                    .collect(Collectors.toList());
+            String[] dates = dateArgs.split(";");
+            fromDate = dates.length > 0 && !dates[0].isEmpty() ? LocalDate.parse(dates[0]) : null;
+            toDate = dates.length > 1 && !dates[1].isEmpty() ? LocalDate.parse(dates[1]) : null;
+        } catch (Exception e) {
+            return BotResponse.text("⚠️ Ошибка формата. Используйте: /filterdate [начальная_дата;конечная_дата]\n" +
+                    "Пример: /filterdate 2023-01-01;2023-12-31");
+        }
+
+        SessionPage sessions = storage.getFilterManager().applyFilterPage(
+                fromDate, toDate, null, null, null, SESSIONS_PAGE_SIZE, cursor);
+        return filteredPage("📅 Сессии по дате:", sessions, page, "fdate", dateArgs);
+    }
 
-            return formatFilteredSessions("🏆 Сессии по статусу '" + status + "':", filteredSessions);
+    private BotResponse filterByStatus(StorageRegistry.Backend storage, String statusArg, int page, String cursor) {
+        GameSession.GameStatus status;
+        try {
+            status = GameSession.GameStatus.valueOf(statusArg.trim().toUpperCase());
         } catch (IllegalArgumentException e) {
-            return "⚠️ Неверный статус. Доступные статусы:\n" +
+            return BotResponse.text("⚠️ Неверный статус. Доступные статусы:\n" +
                     Arrays.stream(GameSession.GameStatus.values())
                             .map(Enum::name)
                             .collect(Collectors.joining(", ")) +
-                    "\nПример: /filterstatus IN_PROGRESS";
+                    "\nПример: /filterstatus IN_PROGRESS");
         }
+
+        // Незавершённые сессии хранилище берёт из своего индекса по статусу
+        SessionPage sessions = storage.getFilterManager().applyFilterPage(
+                null, null, null, status, null, SESSIONS_PAGE_SIZE, cursor);
+        return filteredPage("🏆 Сессии по статусу '" + status + "':", sessions, page, "fstatus", status.name());
     }
 
-    private String formatFilteredSessions(String header, List<GameSession> sessions) {
-        if (sessions.isEmpty()) {
-            return "🔍 Не найдено сессий по указанным критериям.";
+    // /filter from=ГГГГ-ММ-ДД; to=ГГГГ-ММ-ДД; game=название; status=STATUS; player=имя — условия
+    // в любом сочетании, все проверяются хранилищем за один проход
+    private BotResponse filterSessions(StorageRegistry.Backend storage, String args, int page, String cursor) {
+        LocalDate from = null;
+        LocalDate to = null;
+        String game = null;
+        GameSession.GameStatus status = null;
+        String player = null;
+        try {
+            for (String condition : args.split(";")) {
+                if (condition.isBlank()) {
+                    continue;
+                }
+                int separator = condition.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Условие без значения: " + condition.trim());
+                }
+                String key = condition.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+                String value = condition.substring(separator + 1).trim();
+                switch (key) {
+                    case "from":
+                        from = LocalDate.parse(value);
+                        break;
+                    case "to":
+                        to = LocalDate.parse(value);
+                        break;
+                    case "game":
+                        game = value;
+                        break;
+                    case "status":
+                        status = GameSession.GameStatus.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "player":
+                        player = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Неизвестное условие: " + key);
+                }
+            }
+        } catch (RuntimeException e) {
+            return BotResponse.text("⚠️ Ошибка формата. Используйте: /filter from=ГГГГ-ММ-ДД; to=ГГГГ-ММ-ДД; " +
+                    "game=название; status=IN_PROGRESS|PLAYED; player=имя\n" +
+                    "Любое условие можно опустить. Пример: /filter from=2024-01-01; game=Каркассон; player=Аня");
         }
 
-        StringBuilder result = new StringBuilder(header).append("\n\n");
-        for (GameSession session : sessions) {
+        SessionPage sessions = storage.getFilterManager().applyFilterPage(
+                from, to, game, status, player, SESSIONS_PAGE_SIZE, cursor);
+        return filteredPage("🔍 Сессии по фильтру:", sessions, page, "filter", args);
+    }
+
+    // Страница выборки и кнопки листания: «Далее» несёт курсор последней показанной сессии
+    private BotResponse filteredPage(String header, SessionPage sessions, int page, String kind, String args) {
+        if (sessions.getSessions().isEmpty() && page == 0) {
+            return BotResponse.text("🔍 Не найдено сессий по указанным критериям.");
+        }
+
+        StringBuilder result = new StringBuilder(header);
+        if (page > 0 || sessions.hasNext()) {
+            result.append(" (стр. ").append(page + 1).append(")");
+        }
+        result.append("\n\n");
+        for (GameSession session : sessions.getSessions()) {
             result.append(session.toString()).append("\n\n");
         }
-        return result.toString();
+        // Курсор только «вперёд», поэтому назад — к первой странице, как в /history
+        return new BotResponse(result.toString(), navigationKeyboard(
+                page > 0 ? kind + ":0::" + args : null,
+                sessions.hasNext() ? kind + ":" + (page + 1) + ":" + sessions.getNextCursor() + ":" + args : null));
     }
 
-    private void sendMessage(String chatId, String text) {
-        SendMessage message = new SendMessage();
-        message.setChatId(chatId);
-        message.setText(text);
-        message.enableHtml(true);
-
-        if (text.equals(getWelcomeMessage())) {
-            message.setReplyMarkup(createMainKeyboard());
+    private InlineKeyboardMarkup navigationKeyboard(String previousData, String nextData) {
+        List<InlineKeyboardButton> row = new ArrayList<>();
+        if (previousData != null) {
+            row.add(callbackButton("◀️ Назад", callbackData(previousData)));
         }
+        if (nextData != null) {
+            row.add(callbackButton("Далее ▶️", callbackData(nextData)));
+        }
+        return row.isEmpty() ? null : new InlineKeyboardMarkup(List.of(row));
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    // Telegram отклоняет сообщение целиком, если callback_data длиннее 64 байт: условия с кириллицей
+    // и курсор туда обычно не помещаются, тогда в кнопку идёт ключ, а данные остаются у бота
+    private String callbackData(String data) {
+        return data.getBytes(StandardCharsets.UTF_8).length <= MAX_CALLBACK_DATA_BYTES
+                ? data
+                : "key:" + callbackPayloads.keyFor(data);
+    }
+
+    private static InlineKeyboardButton callbackButton(String text, String data) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(data);
+        return button;
+    }
+
+    // Длинный ответ уходит несколькими сообщениями, клавиатура — у последнего
+    private void sendResponse(String chatId, BotResponse response) {
+        if (response.getDocument() != null) {
+            Path file = response.getDocument();
+            sender.enqueue(chatId, new SendDocument(chatId, new InputFile(file.toFile(), response.getDocumentName())),
+                    () -> deleteTempFile(file));
         }
+        List<String> chunks = MessageChunker.split(response.getText(), MessageChunker.MAX_MESSAGE_LENGTH);
+        for (int i = 0; i < chunks.size(); i++) {
+            SendMessage message = new SendMessage();
+            message.setChatId(chatId);
+            message.setText(chunks.get(i));
+            message.enableHtml(true);
+            if (i == chunks.size() - 1) {
+                message.setReplyMarkup(response.getKeyboard());
+            }
+            sender.enqueue(chatId, message);
+        }
+    }
+
+    private void sendMessage(String chatId, String text) {
+        sendResponse(chatId, BotResponse.text(text));
     }
 
     private ReplyKeyboardMarkup createMainKeyboard() {
@@ -250,11 +793,10 @@ public class BoardGameBot extends TelegramLongPollingBot {
 
     @Override
     public void onClosing() {
-        try {
-            dao.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        statusScheduler.shutdownNow();
+        dispatcher.close();
+        sender.close();
+        storageRegistry.close();
         super.onClosing();
     }
 }
@@ -0,0 +1,39 @@
+package org.example.bot;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+
+import java.nio.file.Path;
+
+// Ответ на команду: текст и, при необходимости, клавиатура (например, кнопки листания)
+// или документ. Файл документа временный: его удаляет тот, кто отправил или отбросил ответ
+public class BotResponse {
+    private final String text;
+    private final ReplyKeyboard keyboard;
+    private final Path document;
+    private final String documentName;
+
+    public BotResponse(String text, ReplyKeyboard keyboard) {
+        this(text, keyboard, null, null);
+    }
+
+    private BotResponse(String text, ReplyKeyboard keyboard, Path document, String documentName) {
+        this.text = text;
+        this.keyboard = keyboard;
+        this.document = document;
+        this.documentName = documentName;
+    }
+
+    public static BotResponse text(String text) {
+        return new BotResponse(text, null);
+    }
+
+    // Документ уходит в чат перед текстом
+    public static BotResponse document(String text, Path document, String documentName) {
+        return new BotResponse(text, null, document, documentName);
+    }
+
+    public String getText() { return text; }
+    public ReplyKeyboard getKeyboard() { return keyboard; }
+    public Path getDocument() { return document; }
+    public String getDocumentName() { return documentName; }
+}
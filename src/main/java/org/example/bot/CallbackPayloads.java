@@ -0,0 +1,48 @@
+package org.example.bot;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Длинные данные кнопок листания: Telegram ограничивает callback_data 64 байтами,
+// а условия /filter с кириллицей и курсор страницы в них не помещаются. Данные остаются у бота,
+// в кнопку попадает короткий ключ; одинаковые данные получают один ключ.
+// Хранятся последние capacity записей, после перезапуска ключи неизвестны.
+// Монитор держится только на время работы с картами, без ввода-вывода.
+class CallbackPayloads {
+    private final int capacity;
+    // Данные → ключ в порядке последнего использования
+    private final LinkedHashMap<String, String> keys = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> payloads = new HashMap<>();
+    private long nextKey;
+
+    CallbackPayloads(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized String keyFor(String payload) {
+        String key = keys.get(payload);
+        if (key != null) {
+            return key;
+        }
+        key = Long.toString(nextKey++, Character.MAX_RADIX);
+        keys.put(payload, key);
+        payloads.put(key, payload);
+        if (keys.size() > capacity) {
+            Iterator<Map.Entry<String, String>> eldest = keys.entrySet().iterator();
+            payloads.remove(eldest.next().getValue());
+            eldest.remove();
+        }
+        return key;
+    }
+
+    // null — ключ вытеснен или выдан до перезапуска
+    synchronized String payload(String key) {
+        String payload = payloads.get(key);
+        if (payload != null) {
+            keys.get(payload);
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Делит длинный ответ на части, которые Telegram примет (не длиннее 4096 символов).
+// Режем по границе абзаца, затем строки, затем пробела — и только в крайнем случае посреди слова.
+public final class MessageChunker {
+    public static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private MessageChunker() {
+    }
+
+    public static List<String> split(String text, int maxLength) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (text.length() - start > maxLength) {
+            int end = cutPosition(text, start, start + maxLength);
+            chunks.add(text.substring(start, end).strip());
+            start = end;
+            while (start < text.length() && text.charAt(start) == '\n') {
+                start++;
+            }
+        }
+        if (start < text.length() || chunks.isEmpty()) {
+            chunks.add(text.substring(start));
+        }
+        return chunks;
+    }
+
+    private static int cutPosition(String text, int start, int limit) {
+        int paragraph = text.lastIndexOf("\n\n", limit - 2);
+        if (paragraph > start) {
+            return paragraph;
+        }
+        int line = text.lastIndexOf('\n', limit - 1);
+        if (line > start) {
+            return line;
+        }
+        int space = text.lastIndexOf(' ', limit - 1);
+        if (space > start) {
+            return space;
+        }
+        // Не разрываем суррогатную пару (эмодзи)
+        return Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+    }
+}
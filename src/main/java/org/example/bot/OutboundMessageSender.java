@@ -0,0 +1,331 @@
+package org.example.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Асинхронная очередь исходящих сообщений с учётом лимитов Telegram:
+// общий лимит бота и лимит на каждый чат, повтор после 429 через retry_after,
+// склейка подряд идущих текстов в один чат. Документы (SendDocument) идут через ту же очередь
+// и те же лимиты, что и сообщения. Всё состояние очереди меняется
+// только в потоке планировщика, поэтому обходится без блокировок.
+public class OutboundMessageSender implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(OutboundMessageSender.class);
+
+    // Отправка метода Bot API; в боте это executeAsync, в проверках — локальная заглушка
+    @FunctionalInterface
+    public interface Transport {
+        CompletableFuture<? extends Serializable> send(PartialBotApiMethod<? extends Serializable> method) throws TelegramApiException;
+    }
+
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final double GLOBAL_MESSAGES_PER_SECOND = 30;
+    private static final double PRIVATE_CHAT_MESSAGES_PER_SECOND = 1;
+    private static final double GROUP_CHAT_MESSAGES_PER_SECOND = 20 / 60d;
+    private static final int CHAT_BURST = 3;
+
+    private static final class Outgoing {
+        private final PartialBotApiMethod<? extends Serializable> method;
+        private final long enqueuedNanos;
+        private final int parts;
+        // Вызывается один раз, когда сообщение доставлено или окончательно не доставлено; может быть null
+        private final Runnable onDone;
+        private int attempts;
+
+        Outgoing(PartialBotApiMethod<? extends Serializable> method, long enqueuedNanos, int parts, Runnable onDone) {
+            this.method = method;
+            this.enqueuedNanos = enqueuedNanos;
+            this.parts = parts;
+            this.onDone = onDone;
+        }
+
+        private void done() {
+            if (onDone != null) {
+                try {
+                    onDone.run();
+                } catch (RuntimeException e) {
+                    log.warn("Ошибка в обработчике завершения отправки", e);
+                }
+            }
+        }
+    }
+
+    private static final class Outbox {
+        private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+        private final TokenBucket bucket;
+        private boolean inFlight;
+        private long retryAtNanos;
+
+        Outbox(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final Transport transport;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbound-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Outbox> outboxes = new LinkedHashMap<>();
+    private final TokenBucket globalBucket;
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAtNanos;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder latencyNanosTotal = new LongAdder();
+    private final LongAdder latencySamples = new LongAdder();
+    private final AtomicLong latencyNanosMax = new AtomicLong();
+
+    public OutboundMessageSender(Transport transport) {
+        this.transport = transport;
+        this.globalBucket = new TokenBucket(GLOBAL_MESSAGES_PER_SECOND, GLOBAL_MESSAGES_PER_SECOND, System.nanoTime());
+    }
+
+    public void enqueue(String chatId, PartialBotApiMethod<? extends Serializable> method) {
+        enqueue(chatId, method, null);
+    }
+
+    // onDone — например, удалить временный файл документа после отправки
+    public void enqueue(String chatId, PartialBotApiMethod<? extends Serializable> method, Runnable onDone) {
+        Outgoing outgoing = new Outgoing(method, System.nanoTime(), 1, onDone);
+        queueDepth.incrementAndGet();
+        try {
+            scheduler.execute(() -> {
+                outboxes.computeIfAbsent(chatId, this::newOutbox).queue.add(outgoing);
+                pump();
+            });
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            failed.increment();
+            outgoing.done();
+        }
+    }
+
+    private Outbox newOutbox(String chatId) {
+        // Идентификаторы групп и каналов в Telegram отрицательные
+        double rate = chatId.startsWith("-") ? GROUP_CHAT_MESSAGES_PER_SECOND : PRIVATE_CHAT_MESSAGES_PER_SECOND;
+        return new Outbox(new TokenBucket(CHAT_BURST, rate, System.nanoTime()));
+    }
+
+    private void pump() {
+        long now = System.nanoTime();
+        long nextWakeup = Long.MAX_VALUE;
+        List<String> dispatched = new ArrayList<>();
+
+        Iterator<Map.Entry<String, Outbox>> iterator = outboxes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Outbox> entry = iterator.next();
+            Outbox outbox = entry.getValue();
+            if (outbox.queue.isEmpty()) {
+                if (!outbox.inFlight && now >= outbox.retryAtNanos && outbox.bucket.isFull(now)) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            if (outbox.inFlight) {
+                continue;
+            }
+            if (now < outbox.retryAtNanos) {
+                nextWakeup = Math.min(nextWakeup, outbox.retryAtNanos - now);
+                continue;
+            }
+            long chatWait = outbox.bucket.nanosUntilAvailable(now);
+            if (chatWait > 0) {
+                nextWakeup = Math.min(nextWakeup, chatWait);
+                continue;
+            }
+            long globalWait = globalBucket.nanosUntilAvailable(now);
+            if (globalWait > 0) {
+                nextWakeup = Math.min(nextWakeup, globalWait);
+                break;
+            }
+
+            outbox.bucket.tryAcquire(now);
+            globalBucket.tryAcquire(now);
+            send(entry.getKey(), outbox, coalesce(outbox.queue));
+            dispatched.add(entry.getKey());
+        }
+
+        // Обслуженные чаты уходят в конец очереди, чтобы при общем лимите никто не голодал
+        for (String chatId : dispatched) {
+            outboxes.put(chatId, outboxes.remove(chatId));
+        }
+        if (nextWakeup != Long.MAX_VALUE) {
+            scheduleWakeup(now, nextWakeup);
+        }
+    }
+
+    // Подряд идущие простые тексты в один чат отправляются одним сообщением
+    private Outgoing coalesce(ArrayDeque<Outgoing> queue) {
+        Outgoing head = queue.poll();
+        if (!isPlainText(head)) {
+            return head;
+        }
+
+        SendMessage first = (SendMessage) head.method;
+        StringBuilder text = new StringBuilder(first.getText());
+        int parts = head.parts;
+        while (!queue.isEmpty() && isPlainText(queue.peek())) {
+            SendMessage next = (SendMessage) queue.peek().method;
+            if (!Objects.equals(next.getParseMode(), first.getParseMode())
+                    || text.length() + 2 + next.getText().length() > MAX_MESSAGE_LENGTH) {
+                break;
+            }
+            text.append("\n\n").append(next.getText());
+            parts += queue.poll().parts;
+        }
+        if (parts == head.parts) {
+            return head;
+        }
+
+        coalesced.add(parts - head.parts);
+        SendMessage merged = new SendMessage(first.getChatId(), text.toString());
+        merged.setParseMode(first.getParseMode());
+        return new Outgoing(merged, head.enqueuedNanos, parts, null);
+    }
+
+    // Сообщение с обработчиком завершения не склеивается, чтобы обработчик не потерялся
+    private static boolean isPlainText(Outgoing outgoing) {
+        return outgoing.method instanceof SendMessage && outgoing.onDone == null
+                && ((SendMessage) outgoing.method).getReplyMarkup() == null;
+    }
+
+    private void send(String chatId, Outbox outbox, Outgoing outgoing) {
+        outbox.inFlight = true;
+        CompletableFuture<? extends Serializable> result;
+        try {
+            result = transport.send(outgoing.method);
+        } catch (TelegramApiException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            try {
+                scheduler.execute(() -> onComplete(chatId, outgoing, error));
+            } catch (RejectedExecutionException e) {
+                // Отправитель уже закрыт, ответ больше некому обрабатывать
+            }
+        });
+    }
+
+    private void onComplete(String chatId, Outgoing outgoing, Throwable error) {
+        Outbox outbox = outboxes.get(chatId);
+        outbox.inFlight = false;
+        long now = System.nanoTime();
+
+        if (error == null) {
+            queueDepth.addAndGet(-outgoing.parts);
+            sent.add(outgoing.parts);
+            recordLatency(now - outgoing.enqueuedNanos);
+            outgoing.done();
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            Integer retryAfter = retryAfterSeconds(cause);
+            if (retryAfter != null) {
+                // 429: Telegram сам говорит, сколько ждать
+                retried.increment();
+                outbox.retryAtNanos = now + TimeUnit.SECONDS.toNanos(retryAfter);
+                outbox.queue.addFirst(outgoing);
+            } else if (isRetryable(cause) && ++outgoing.attempts < MAX_ATTEMPTS) {
+                retried.increment();
+                outbox.retryAtNanos = now + (BASE_BACKOFF_NANOS << outgoing.attempts);
+                outbox.queue.addFirst(outgoing);
+            } else {
+                queueDepth.addAndGet(-outgoing.parts);
+                failed.add(outgoing.parts);
+                log.warn("Сообщение в чат {} не доставлено после {} попыток", chatId, outgoing.attempts + 1, cause);
+                outgoing.done();
+            }
+        }
+        pump();
+    }
+
+    private static Integer retryAfterSeconds(Throwable cause) {
+        if (cause instanceof TelegramApiRequestException) {
+            TelegramApiRequestException requestException = (TelegramApiRequestException) cause;
+            if (Integer.valueOf(429).equals(requestException.getErrorCode())) {
+                Integer retryAfter = requestException.getParameters() != null
+                        ? requestException.getParameters().getRetryAfter() : null;
+                return retryAfter != null ? retryAfter : 1;
+            }
+        }
+        return null;
+    }
+
+    // Ошибки запроса 4xx (кроме 429) повторять бессмысленно, сетевые и 5xx — можно
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof TelegramApiRequestException) {
+            Integer code = ((TelegramApiRequestException) cause).getErrorCode();
+            return code == null || code >= 500;
+        }
+        return true;
+    }
+
+    private void scheduleWakeup(long now, long delayNanos) {
+        long at = now + delayNanos;
+        if (wakeup != null && !wakeup.isDone() && wakeupAtNanos <= at) {
+            return;
+        }
+        if (wakeup != null) {
+            wakeup.cancel(false);
+        }
+        wakeupAtNanos = at;
+        wakeup = scheduler.schedule(this::pump, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordLatency(long nanos) {
+        latencyNanosTotal.add(nanos);
+        latencySamples.increment();
+        latencyNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getQueueDepth() { return queueDepth.get(); }
+    public long getSent() { return sent.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public long getRetried() { return retried.sum(); }
+    public long getCoalesced() { return coalesced.sum(); }
+
+    // Время от постановки в очередь до подтверждения доставки
+    public double getAverageLatencyMillis() {
+        long samples = latencySamples.sum();
+        return samples == 0 ? 0 : latencyNanosTotal.sum() / (double) samples / 1_000_000;
+    }
+
+    public double getMaxLatencyMillis() {
+        return latencyNanosMax.get() / 1_000_000d;
+    }
+
+    // Неотправленные сообщения отбрасываются, их обработчики завершения вызываются здесь
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (scheduler.isTerminated()) {
+            outboxes.values().forEach(outbox -> outbox.queue.forEach(Outgoing::done));
+            outboxes.clear();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.bot;
+
+import org.example.dao.BoardGameDao;
+import org.example.game_controller.BulkExporter;
+import org.example.game_controller.BulkImporter;
+import org.example.game_controller.GameCatalog;
+import org.example.game_controller.GameFilterManager;
+import org.example.game_controller.GameManager;
+import org.example.game_controller.GameSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Хранилища, созданные по требованию, по одному на тип. Текущее хранилище меняется
+// атомарно: команда берёт аренду (Lease) и до конца работает с тем хранилищем,
+// которое было текущим при её старте. Неактивное хранилище закрывается при вытеснении,
+// но не раньше, чем будут возвращены все его аренды.
+public class StorageRegistry implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StorageRegistry.class);
+
+    public static final class Backend {
+        private final String type;
+        private final BoardGameDao dao;
+        private final GameManager gameManager;
+        private final GameSessionManager sessionManager;
+        private final GameFilterManager filterManager;
+        private final BulkImporter importer;
+        private final BulkExporter exporter;
+        // Число выданных аренд; -1 — хранилище закрыто
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile boolean evicted;
+        private volatile long idleSinceNanos;
+
+        Backend(String type, BoardGameDao dao) {
+            this.type = type;
+            this.dao = dao;
+            // Один каталог игр на хранилище, общий для всех менеджеров
+            GameCatalog catalog = new GameCatalog(dao);
+            this.gameManager = new GameManager(catalog);
+            this.sessionManager = new GameSessionManager(dao, catalog);
+            this.filterManager = new GameFilterManager(dao, catalog);
+            this.importer = new BulkImporter(catalog, sessionManager);
+            this.exporter = new BulkExporter(dao);
+        }
+
+        public String getType() { return type; }
+        public BoardGameDao getDao() { return dao; }
+        public GameManager getGameManager() { return gameManager; }
+        public GameSessionManager getSessionManager() { return sessionManager; }
+        public GameFilterManager getFilterManager() { return filterManager; }
+        public BulkImporter getImporter() { return importer; }
+        public BulkExporter getExporter() { return exporter; }
+
+        private boolean tryRetain() {
+            int count;
+            do {
+                count = leases.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private void release() {
+            if (leases.decrementAndGet() == 0 && evicted) {
+                closeIfUnused();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            closeIfUnused();
+        }
+
+        // Закрывает ровно один поток: тот, кто перевёл счётчик из 0 в -1
+        private void closeIfUnused() {
+            if (leases.compareAndSet(0, -1)) {
+                try {
+                    dao.close();
+                } catch (Exception e) {
+                    log.error("Не удалось закрыть хранилище {}", type, e);
+                }
+            }
+        }
+    }
+
+    public static final class Lease implements AutoCloseable {
+        private final Backend backend;
+        private boolean released;
+
+        private Lease(Backend backend) {
+            this.backend = backend;
+        }
+
+        public Backend getBackend() {
+            return backend;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                backend.release();
+            }
+        }
+    }
+
+    private final Function<String, BoardGameDao> daoFactory;
+    private final Consumer<String> onEvict;
+    private final long idleTtlNanos;
+    // Создание хранилища под ней может ждать сеть или диск, поэтому не монитор
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Backend> pool = new HashMap<>();
+    private final AtomicReference<Backend> current = new AtomicReference<>();
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // idleTtl — сколько неактивное хранилище держится в пуле, прежде чем будет закрыто
+    public StorageRegistry(Function<String, BoardGameDao> daoFactory, long idleTtl, TimeUnit unit) {
+        this(daoFactory, type -> { }, idleTtl, unit);
+    }
+
+    // onEvict получает тип хранилища, убранного из пула, чтобы вызывающий код отпустил свои ссылки на него.
+    // Вызывается под блокировкой реестра: хранилище того же типа не будет создано заново раньше
+    public StorageRegistry(Function<String, BoardGameDao> daoFactory, Consumer<String> onEvict,
+                           long idleTtl, TimeUnit unit) {
+        this.daoFactory = daoFactory;
+        this.onEvict = onEvict;
+        this.idleTtlNanos = unit.toNanos(idleTtl);
+    }
+
+    // Аренда текущего хранилища; её нужно закрыть, когда команда обработана
+    public Lease acquire() {
+        while (true) {
+            Backend backend = current.get();
+            if (backend == null) {
+                throw new IllegalStateException("Хранилище не выбрано");
+            }
+            // Не удалось — хранилище успели вытеснить и закрыть, значит текущим уже стало другое
+            if (backend.tryRetain()) {
+                return new Lease(backend);
+            }
+        }
+    }
+
+    public String getCurrentType() {
+        Backend backend = current.get();
+        return backend != null ? backend.type : null;
+    }
+
+    // Делает хранилище текущим, создавая его при первом обращении. Команды, начатые раньше,
+    // дорабатывают на прежнем хранилище. warmUp — прогреть кэш и статистику в фоне.
+    public CompletableFuture<Void> switchTo(String type, boolean warmUp) {
+        lock.lock();
+        try {
+            String key = type.trim().toLowerCase(Locale.ROOT);
+            Backend backend = pool.get(key);
+            if (backend == null) {
+                // Неизвестный тип — IllegalArgumentException из фабрики, текущее хранилище не меняется
+                backend = createBackend(key);
+                pool.put(key, backend);
+            }
+
+            Backend previous = current.getAndSet(backend);
+            if (previous != null && previous != backend) {
+                previous.idleSinceNanos = System.nanoTime();
+            }
+            evictIdle();
+            return warmUp ? warmUp(backend) : CompletableFuture.completedFuture(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Если хранилище создано, а менеджеры поверх него — нет (например, каталог не прочитал игры),
+    // хранилище закрывается сразу: в пул оно не попало, и вытеснять его будет некому
+    private Backend createBackend(String type) {
+        BoardGameDao dao = daoFactory.apply(type);
+        try {
+            return new Backend(type, dao);
+        } catch (RuntimeException e) {
+            try {
+                dao.close();
+            } catch (Exception closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+    }
+
+    // Загружает в кэш игры и историю и перестраивает статистику, пока команды идут как обычно
+    private CompletableFuture<Void> warmUp(Backend backend) {
+        if (!backend.tryRetain()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Lease lease = new Lease(backend);
+        return CompletableFuture.runAsync(() -> {
+            try (lease) {
+                backend.dao.getAllGames();
+                backend.dao.getGameHistory();
+                backend.sessionManager.rebuildStatistics();
+            }
+        }, warmUpExecutor);
+    }
+
+    // Закрывает хранилища, которые не были текущими дольше idleTtl
+    public void evictIdle() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Backend active = current.get();
+            Iterator<Backend> iterator = pool.values().iterator();
+            while (iterator.hasNext()) {
+                Backend backend = iterator.next();
+                if (backend != active && now - backend.idleSinceNanos >= idleTtlNanos) {
+                    iterator.remove();
+                    onEvict.accept(backend.type);
+                    backend.evict();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPooledCount() {
+        lock.lock();
+        try {
+            return pool.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            warmUpExecutor.shutdownNow();
+            current.set(null);
+            pool.values().forEach(backend -> {
+                onEvict.accept(backend.type);
+                backend.evict();
+            });
+            pool.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Раздаёт обновления по виртуальным потокам, сохраняя порядок внутри каждого чата:
+// у чата есть своя очередь, и одновременно её разбирает не больше одного потока.
+// Блокировки на пути команды (хранилища, менеджеры, каталог) — ReentrantLock, а не synchronized:
+// на JDK 21–23 виртуальный поток, ждущий ввода-вывода внутри монитора, занимает поток-носитель.
+public class UpdateDispatcher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    private static final class ChatQueue {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<String, ChatQueue> queues = new ConcurrentHashMap<>();
+    private final int maxQueuedPerChat;
+    private final int maxInFlight;
+    // Глобальный лимит: когда он исчерпан, поток long polling ждёт и не забирает новые обновления
+    private final Semaphore inFlight;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public UpdateDispatcher(int maxInFlight, int maxQueuedPerChat) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueuedPerChat = maxQueuedPerChat;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    // false — очередь чата переполнена и задача отброшена
+    public boolean dispatch(String chatId, Runnable task) {
+        if (!inFlight.tryAcquire()) {
+            throttled.increment();
+            inFlight.acquireUninterruptibly();
+        }
+
+        boolean[] accepted = new boolean[1];
+        boolean[] start = new boolean[1];
+        queues.compute(chatId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ChatQueue();
+            }
+            if (queue.tasks.size() < maxQueuedPerChat) {
+                queue.tasks.add(task);
+                accepted[0] = true;
+                if (!queue.running) {
+                    queue.running = true;
+                    start[0] = true;
+                }
+            }
+            return queue;
+        });
+
+        if (!accepted[0]) {
+            inFlight.release();
+            rejected.increment();
+            return false;
+        }
+        submitted.increment();
+        if (start[0]) {
+            executor.execute(() -> drain(chatId));
+        }
+        return true;
+    }
+
+    private void drain(String chatId) {
+        Runnable task = nextTask(chatId);
+        while (task != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Необработанная ошибка в задаче чата {}", chatId, e);
+            } finally {
+                inFlight.release();
+                completed.increment();
+            }
+            task = nextTask(chatId);
+        }
+    }
+
+    // Пустая очередь удаляется из карты в той же атомарной операции, что и проверка
+    private Runnable nextTask(String chatId) {
+        Runnable[] next = new Runnable[1];
+        queues.compute(chatId, (id, queue) -> {
+            next[0] = queue.tasks.poll();
+            if (next[0] == null) {
+                queue.running = false;
+                return null;
+            }
+            return queue;
+        });
+        return next[0];
+    }
+
+    public long getSubmitted() { return submitted.sum(); }
+    public long getCompleted() { return completed.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    // Сколько раз поток приёма обновлений ждал освобождения глобального лимита
+    public long getThrottled() { return throttled.sum(); }
+    public int getInFlight() { return maxInFlight - inFlight.availablePermits(); }
+    public int getActiveChats() { return queues.size(); }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
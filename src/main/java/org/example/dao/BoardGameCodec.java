@@ -0,0 +1,91 @@
+package org.example.dao;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.example.BoardGame;
+
+// BoardGame <-> BSON напрямую, без промежуточного Document
+public class BoardGameCodec implements CollectibleCodec<BoardGame> {
+
+    @Override
+    public void encode(BsonWriter writer, BoardGame game, EncoderContext context) {
+        writer.writeStartDocument();
+        if (game.getId() != null) {
+            MongoCodecs.writeId(writer, game.getId());
+        }
+        MongoCodecs.writeStringOrNull(writer, "name", game.getName());
+        MongoCodecs.writeStringOrNull(writer, "description", game.getDescription());
+        MongoCodecs.writeStringOrNull(writer, "category", game.getCategory());
+        writer.writeInt32("minPlayers", game.getMinPlayers());
+        writer.writeInt32("maxPlayers", game.getMaxPlayers());
+        writer.writeInt32("averageTime", game.getAverageTime());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public BoardGame decode(BsonReader reader, DecoderContext context) {
+        // Значения по умолчанию — как у документов, сохранённых до появления этих полей
+        BoardGame game = new BoardGame(null, null, null, null, 2, 4, 30);
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    game.setId(MongoCodecs.readId(reader));
+                    break;
+                case "name":
+                    game.setName(MongoCodecs.readString(reader));
+                    break;
+                case "description":
+                    game.setDescription(MongoCodecs.readString(reader));
+                    break;
+                case "category":
+                    game.setCategory(MongoCodecs.readString(reader));
+                    break;
+                case "minPlayers":
+                    game.setMinPlayers(MongoCodecs.readInt(reader, 2));
+                    break;
+                case "maxPlayers":
+                    game.setMaxPlayers(MongoCodecs.readInt(reader, 4));
+                    break;
+                case "averageTime":
+                    game.setAverageTime(MongoCodecs.readInt(reader, 30));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return game;
+    }
+
+    @Override
+    public Class<BoardGame> getEncoderClass() {
+        return BoardGame.class;
+    }
+
+    @Override
+    public BoardGame generateIdIfAbsentFromDocument(BoardGame game) {
+        if (game.getId() == null) {
+            game.setId(new ObjectId().toHexString());
+        }
+        return game;
+    }
+
+    @Override
+    public boolean documentHasId(BoardGame game) {
+        return game.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(BoardGame game) {
+        return ObjectId.isValid(game.getId()) ? new BsonObjectId(new ObjectId(game.getId())) : new BsonString(game.getId());
+    }
+}
@@ -3,15 +3,36 @@ package org.example.dao;
 import org.example.BoardGame;
 import org.example.GameSession;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 public interface BoardGameDao extends AutoCloseable {
     List<BoardGame> getAllGames();
     List<GameSession> getGameHistory();
+    // Сессии с from (включительно) по to (не включительно), новые первыми;
+    // null — граница не задана, limit <= 0 — без ограничения
+    List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit);
+    // Сессии одной игры, новые первыми; limit <= 0 — без ограничения
+    List<GameSession> getSessionsByGame(String gameId, int limit);
+    // Победы и партии по игре, посчитанные хранилищем, без выгрузки всех её сессий
+    GameStatsSummary getGameStatistics(String gameId);
+    // Постраничная история, новые первыми; afterCursor == null — первая страница, limit > 0
+    SessionPage getRecentSessions(int limit, String afterCursor);
+    // Ленивый обход всей истории, новые первыми; поток нужно закрыть после использования
+    Stream<GameSession> streamGameHistory();
+    // То же от старых к новым: для сводок, где важен порядок событий
+    Stream<GameSession> streamGameHistoryOldestFirst();
+    // Сессии по набору условий, новые первыми; индекс и порядок проверки выбирает хранилище
+    List<GameSession> findSessions(SessionQuery query);
 
     void addGame(BoardGame game);
     void addGameSession(GameSession session);
+    // Пакетная запись для импорта: одна операция хранилища на весь список
+    void addGames(List<BoardGame> games);
+    void addGameSessions(List<GameSession> sessions);
     void updateGameSessionStatus(GameSession session);
+    // Переводит все незавершённые сессии старше cutoff в PLAYED одной операцией
+    int markPlayedBefore(LocalDateTime cutoff);
     void close();
 }
\ No newline at end of file
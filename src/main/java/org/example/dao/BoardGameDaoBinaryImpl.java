@@ -0,0 +1,726 @@
+package org.example.dao;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.PlayerStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Сессии в отображённом в память файле записями фиксированного размера: время в epoch millis (UTC),
+// номера игры и игроков из словарей имён, статус одним байтом. Выборки и статистика читают записи
+// прямо из буфера, объекты GameSession создаются только для того, что уходит вызывающему коду.
+// id сессии — номер её записи в файле. Игры, которых немного, хранятся в games.json.
+public class BoardGameDaoBinaryImpl implements BoardGameDao {
+    private static final Logger log = LoggerFactory.getLogger(BoardGameDaoBinaryImpl.class);
+
+    static final int MAX_PLAYERS = 16;
+
+    // Заголовок: сигнатура, размер записи, число записей. Записи за пределами счётчика
+    // (недописанный пакет после сбоя) при открытии игнорируются
+    private static final int MAGIC = 0x42475331;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int TIME_OFFSET = 0;
+    private static final int GAME_ID_OFFSET = 8;
+    private static final int GAME_NAME_OFFSET = 12;
+    private static final int WINNER_OFFSET = 16;
+    private static final int STATUS_OFFSET = 20;
+    private static final int PLAYER_COUNT_OFFSET = 21;
+    private static final int PLAYERS_OFFSET = 24;
+    private static final int RECORD_SIZE = PLAYERS_OFFSET + MAX_PLAYERS * Integer.BYTES;
+
+    private static final byte STATUS_NONE = -1;
+    private static final byte STATUS_IN_PROGRESS = 0;
+    private static final byte STATUS_PLAYED = 1;
+
+    private static final int INITIAL_RECORDS = 1024;
+    // Один MappedByteBuffer адресует не больше 2 ГБ
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final File gamesFile;
+    private final List<BoardGame> games;
+    // Id и названия игр — в одном словаре, имена игроков и победителей — в другом
+    private final NameDictionary gameNames;
+    private final NameDictionary playerNames;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    // Номера записей по (время, номер записи); новые сессии — в конце
+    private int[] order;
+    // Записи каждой игры в том же порядке; в файле не хранится, строится при открытии
+    private final GameRecordIndex recordsByGame = new GameRecordIndex();
+    // Незавершённых сессий немного, markPlayedBefore обходит только их
+    private final BitSet inProgress = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BoardGameDaoBinaryImpl(String basePath) {
+        File dataDir = new File(basePath);
+        if (!dataDir.exists()) {
+            dataDir.mkdirs();
+        }
+
+        this.gamesFile = new File(dataDir, "games.json");
+        this.games = loadGames();
+        this.gameNames = new NameDictionary(new File(dataDir, "games.dict"));
+        this.playerNames = new NameDictionary(new File(dataDir, "players.dict"));
+        try {
+            this.channel = FileChannel.open(new File(dataDir, "sessions.bin").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            openSessions();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть файл сессий в " + basePath, e);
+        }
+    }
+
+    private void openSessions() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) INITIAL_RECORDS * RECORD_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, RECORD_SIZE);
+            buffer.putLong(COUNT_OFFSET, 0);
+            buffer.force();
+        } else {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, MAX_FILE_SIZE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_SIZE) {
+                throw new IllegalStateException("Неизвестный формат файла сессий");
+            }
+        }
+        count = (int) Math.min(buffer.getLong(COUNT_OFFSET), (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE);
+
+        order = new int[Math.max(count, INITIAL_RECORDS)];
+        boolean sorted = true;
+        for (int record = 0; record < count; record++) {
+            order[record] = record;
+            sorted &= record == 0 || millis(record - 1) <= millis(record);
+            if (buffer.get(offset(record) + STATUS_OFFSET) == STATUS_IN_PROGRESS) {
+                inProgress.set(record);
+            }
+        }
+        // Обычно сессии дописываются по времени и порядок уже готов; сортировка — только после импорта старых партий
+        if (!sorted) {
+            int[] records = IntStream.range(0, count).boxed()
+                    .sorted(this::compareRecords)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            System.arraycopy(records, 0, order, 0, count);
+        }
+        recordsByGame.rebuild(order, count, this::gameOf);
+    }
+
+    @Override
+    public List<BoardGame> getAllGames() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(games);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<GameSession> getGameHistory() {
+        return getSessionsBetween(null, null, 0);
+    }
+
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        lock.readLock().lock();
+        try {
+            int low = from != null ? lowerBound(ceilMillis(from), -1) : 0;
+            int high = to != null ? lowerBound(ceilMillis(to), -1) : count;
+            return readDescending(low, high, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Обходится только список записей этой игры
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        lock.readLock().lock();
+        try {
+            int game = gameNames.find(gameId);
+            int[] records = recordsByGame.records(game);
+            int gameCount = recordsByGame.count(game);
+            List<GameSession> result = new ArrayList<>(limit > 0 ? Math.min(limit, gameCount) : gameCount);
+            for (int i = gameCount - 1; i >= 0 && (limit <= 0 || result.size() < limit); i--) {
+                result.add(read(records[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Выборка за один проход по записям: диапазон дат — двоичный поиск по order или, если задана
+    // игра и её сессий в диапазоне меньше, по списку записей этой игры. Статус и игрок сравниваются
+    // номерами прямо в буфере, объекты — только для подошедших записей.
+    // Незавершённые сессии, если их меньше, чем кандидатов, берутся из inProgress
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        lock.readLock().lock();
+        try {
+            List<GameSession> result = new ArrayList<>();
+            int game = query.getGameId() != null ? gameNames.find(query.getGameId()) : NameDictionary.NONE;
+            int player = query.getPlayer() != null ? playerNames.find(query.getPlayer()) : NameDictionary.NONE;
+            if (query.getGameId() != null && game == NameDictionary.NONE
+                    || query.getPlayer() != null && player == NameDictionary.NONE) {
+                return result;
+            }
+            // STATUS_NONE — статус не важен
+            byte status = query.getStatus() != null ? encodeStatus(query.getStatus()) : STATUS_NONE;
+            long fromMillis = query.getFrom() != null ? ceilMillis(query.getFrom()) : Long.MIN_VALUE;
+            long toMillis = query.getTo() != null ? ceilMillis(query.getTo()) : Long.MAX_VALUE;
+            int[] records = order;
+            int low = query.getFrom() != null ? lowerBound(fromMillis, -1) : 0;
+            int high = query.getTo() != null ? lowerBound(toMillis, -1) : count;
+            // Курсор — (millis, record) последней выданной сессии; без курсора он за концом истории
+            long afterMillis = query.getAfter() != null ? ceilMillis(query.getAfter().getDateTime()) : Long.MAX_VALUE;
+            int afterRecord = query.getAfter() != null ? parseCursorRecord(query.getAfter().getId()) : -1;
+            if (query.getAfter() != null) {
+                high = Math.min(high, lowerBound(afterMillis, afterRecord));
+            }
+            if (game != NameDictionary.NONE) {
+                int[] gameRecords = recordsByGame.records(game);
+                int gameCount = recordsByGame.count(game);
+                int gameLow = query.getFrom() != null ? lowerBound(gameRecords, gameCount, fromMillis, -1) : 0;
+                int gameHigh = query.getTo() != null ? lowerBound(gameRecords, gameCount, toMillis, -1) : gameCount;
+                if (query.getAfter() != null) {
+                    gameHigh = Math.min(gameHigh, lowerBound(gameRecords, gameCount, afterMillis, afterRecord));
+                }
+                if (gameHigh - gameLow < high - low) {
+                    records = gameRecords;
+                    low = gameLow;
+                    high = gameHigh;
+                }
+            }
+
+            if (query.getStatus() == GameSession.GameStatus.IN_PROGRESS && inProgress.cardinality() < high - low) {
+                int[] candidates = inProgress.stream()
+                        .filter(record -> record < count && millis(record) >= fromMillis && millis(record) < toMillis
+                                && (millis(record) < afterMillis || millis(record) == afterMillis && record < afterRecord)
+                                && matches(record, game, status, player))
+                        .boxed()
+                        .sorted(this::compareRecords)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                for (int i = candidates.length - 1; i >= 0 && (!query.hasLimit() || result.size() < query.getLimit()); i--) {
+                    result.add(read(candidates[i]));
+                }
+                return result;
+            }
+
+            for (int i = high - 1; i >= low && (!query.hasLimit() || result.size() < query.getLimit()); i--) {
+                if (matches(records[i], game, status, player)) {
+                    result.add(read(records[i]));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // То же, что GameStatsSummary.of, но счётчики игроков — массивы по номерам из словаря
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        lock.readLock().lock();
+        try {
+            int game = gameNames.find(gameId);
+            if (game == NameDictionary.NONE) {
+                return GameStatsSummary.of(gameId, List.of());
+            }
+
+            int[] played = new int[playerNames.size()];
+            int[] wins = new int[playerNames.size()];
+            // Игроки в порядке первого появления, от новых сессий к старым
+            int[] seen = new int[playerNames.size()];
+            int seenCount = 0;
+            String gameName = null;
+            int total = 0;
+            int completed = 0;
+            List<LocalDateTime> inProgressDates = new ArrayList<>();
+
+            int[] records = recordsByGame.records(game);
+            for (int i = recordsByGame.count(game) - 1; i >= 0; i--) {
+                int offset = offset(records[i]);
+                if (gameName == null) {
+                    gameName = gameNames.get(buffer.getInt(offset + GAME_NAME_OFFSET));
+                }
+                total++;
+                if (buffer.get(offset + STATUS_OFFSET) == STATUS_PLAYED) {
+                    completed++;
+                } else {
+                    inProgressDates.add(toDateTime(buffer.getLong(offset + TIME_OFFSET)));
+                }
+
+                int winner = buffer.getInt(offset + WINNER_OFFSET);
+                boolean winnerPlayed = false;
+                int playerCount = buffer.get(offset + PLAYER_COUNT_OFFSET);
+                for (int p = 0; p < playerCount; p++) {
+                    int player = buffer.getInt(offset + PLAYERS_OFFSET + p * Integer.BYTES);
+                    if (played[player] == 0 && wins[player] == 0) {
+                        seen[seenCount++] = player;
+                    }
+                    played[player]++;
+                    if (player == winner) {
+                        wins[player]++;
+                        winnerPlayed = true;
+                    }
+                }
+                if (winner != NameDictionary.NONE && !winnerPlayed) {
+                    if (played[winner] == 0 && wins[winner] == 0) {
+                        seen[seenCount++] = winner;
+                    }
+                    wins[winner]++;
+                }
+            }
+
+            List<PlayerStats> players = new ArrayList<>(seenCount);
+            for (int i = 0; i < seenCount; i++) {
+                int player = seen[i];
+                players.add(new PlayerStats(playerNames.get(player), wins[player], played[player]));
+            }
+            return new GameStatsSummary(gameId, gameName, total, completed, players, inProgressDates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        SessionPage.checkLimit(limit);
+        lock.readLock().lock();
+        try {
+            int high = count;
+            if (afterCursor != null) {
+                SessionPage.Cursor cursor = SessionPage.Cursor.parse(afterCursor);
+                high = lowerBound(ceilMillis(cursor.getDateTime()), parseCursorRecord(cursor.getId()));
+            }
+            return SessionPage.of(readDescending(0, high, limit + 1), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Порядок фиксируется при открытии потока; записи читаются по одной, по мере обхода
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        int[] snapshot = orderSnapshot();
+        return IntStream.range(0, snapshot.length)
+                .mapToObj(i -> readLocked(snapshot[snapshot.length - 1 - i]));
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return Arrays.stream(orderSnapshot()).mapToObj(this::readLocked);
+    }
+
+    private int[] orderSnapshot() {
+        lock.readLock().lock();
+        try {
+            return Arrays.copyOf(order, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addGame(BoardGame game) {
+        addGames(Collections.singletonList(game));
+    }
+
+    @Override
+    public void addGameSession(GameSession session) {
+        addGameSessions(Collections.singletonList(session));
+    }
+
+    @Override
+    public void addGames(List<BoardGame> batch) {
+        lock.writeLock().lock();
+        try {
+            List<BoardGame> updated = new ArrayList<>(games);
+            for (BoardGame game : batch) {
+                if (game.getId() == null) {
+                    game.setId(UUID.randomUUID().toString());
+                }
+                updated.add(game);
+            }
+            writeGames(updated);
+            games.clear();
+            games.addAll(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Сначала на диск попадают новые имена, затем записи, и только потом счётчик в заголовке:
+    // сбой посреди пакета оставляет хранилище в состоянии до пакета.
+    // Время сессии округляется до миллисекунд, id заменяется номером записи
+    @Override
+    public void addGameSessions(List<GameSession> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (GameSession session : batch) {
+            if (session.getDateTime() == null) {
+                throw new IllegalArgumentException("У сессии не указано время");
+            }
+            if (session.getPlayers() != null && session.getPlayers().size() > MAX_PLAYERS) {
+                throw new IllegalArgumentException("В сессии не может быть больше " + MAX_PLAYERS + " игроков");
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (GameSession session : batch) {
+                gameNames.intern(session.getGameId());
+                gameNames.intern(session.getGameName());
+                playerNames.intern(session.getWinner());
+                if (session.getPlayers() != null) {
+                    session.getPlayers().forEach(playerNames::intern);
+                }
+            }
+            gameNames.flush();
+            playerNames.flush();
+
+            ensureCapacity(count + batch.size());
+            int first = count;
+            for (int i = 0; i < batch.size(); i++) {
+                write(first + i, batch.get(i));
+            }
+            buffer.force(offset(first), batch.size() * RECORD_SIZE);
+            buffer.putLong(COUNT_OFFSET, first + batch.size());
+            buffer.force(COUNT_OFFSET, Long.BYTES);
+
+            count = first + batch.size();
+            insertIntoOrder(first, batch.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateGameSessionStatus(GameSession session) {
+        lock.writeLock().lock();
+        try {
+            int record = parseRecord(session.getId());
+            if (record < 0) {
+                return;
+            }
+            byte status = encodeStatus(session.getStatus());
+            buffer.put(offset(record) + STATUS_OFFSET, status);
+            buffer.force(offset(record) + STATUS_OFFSET, 1);
+            inProgress.set(record, status == STATUS_IN_PROGRESS);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Байт статуса меняется на месте, на диск сбрасывается один диапазон от первой до последней записи
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        lock.writeLock().lock();
+        try {
+            long limit = ceilMillis(cutoff);
+            int updated = 0;
+            int first = -1;
+            int last = -1;
+            for (int record = inProgress.nextSetBit(0); record >= 0 && record < count; record = inProgress.nextSetBit(record + 1)) {
+                if (millis(record) < limit) {
+                    buffer.put(offset(record) + STATUS_OFFSET, STATUS_PLAYED);
+                    inProgress.clear(record);
+                    first = first < 0 ? record : first;
+                    last = record;
+                    updated++;
+                }
+            }
+            if (updated > 0) {
+                buffer.force(offset(first), offset(last) - offset(first) + RECORD_SIZE);
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть файл сессий в {}", gamesFile.getParent(), e);
+        } finally {
+            gameNames.close();
+            playerNames.close();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(int record, GameSession session) {
+        session.setId(Integer.toString(record));
+        long millis = toMillis(session.getDateTime());
+        session.setDateTime(toDateTime(millis));
+
+        int offset = offset(record);
+        List<String> players = session.getPlayers() != null ? session.getPlayers() : List.of();
+        byte status = encodeStatus(session.getStatus());
+        buffer.putLong(offset + TIME_OFFSET, millis);
+        buffer.putInt(offset + GAME_ID_OFFSET, gameNames.intern(session.getGameId()));
+        buffer.putInt(offset + GAME_NAME_OFFSET, gameNames.intern(session.getGameName()));
+        buffer.putInt(offset + WINNER_OFFSET, playerNames.intern(session.getWinner()));
+        buffer.put(offset + STATUS_OFFSET, status);
+        buffer.put(offset + PLAYER_COUNT_OFFSET, (byte) players.size());
+        for (int p = 0; p < players.size(); p++) {
+            buffer.putInt(offset + PLAYERS_OFFSET + p * Integer.BYTES, playerNames.intern(players.get(p)));
+        }
+        // Запись могла остаться от пакета, упавшего до обновления счётчика, поэтому бит ставится явно
+        inProgress.set(record, status == STATUS_IN_PROGRESS);
+    }
+
+    private GameSession read(int record) {
+        int offset = offset(record);
+        String[] players = new String[buffer.get(offset + PLAYER_COUNT_OFFSET)];
+        for (int p = 0; p < players.length; p++) {
+            players[p] = playerNames.get(buffer.getInt(offset + PLAYERS_OFFSET + p * Integer.BYTES));
+        }
+        return new GameSession(
+                Integer.toString(record),
+                gameNames.get(buffer.getInt(offset + GAME_ID_OFFSET)),
+                gameNames.get(buffer.getInt(offset + GAME_NAME_OFFSET)),
+                toDateTime(buffer.getLong(offset + TIME_OFFSET)),
+                Arrays.asList(players),
+                playerNames.get(buffer.getInt(offset + WINNER_OFFSET)),
+                decodeStatus(buffer.get(offset + STATUS_OFFSET))
+        );
+    }
+
+    private GameSession readLocked(int record) {
+        lock.readLock().lock();
+        try {
+            return read(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Записи order[low..high) от новых к старым
+    private List<GameSession> readDescending(int low, int high, int limit) {
+        List<GameSession> result = new ArrayList<>(limit > 0 ? Math.min(limit, Math.max(high - low, 0)) : 16);
+        for (int i = high - 1; i >= low && (limit <= 0 || result.size() < limit); i--) {
+            result.add(read(order[i]));
+        }
+        return result;
+    }
+
+    // Первая позиция в order, чья запись не меньше (millis, record); record = -1 — начало момента времени
+    private int lowerBound(long millis, int record) {
+        return lowerBound(order, count, millis, record);
+    }
+
+    // То же для любого упорядоченного так же списка записей, например списка одной игры
+    private int lowerBound(int[] records, int length, long millis, int record) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int candidate = records[middle];
+            long candidateMillis = millis(candidate);
+            if (candidateMillis < millis || candidateMillis == millis && candidate < record) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Пакет сортируется отдельно и сливается с уже упорядоченными записями за один проход;
+    // в обычном случае (новые сессии позже старых) он просто дописывается в конец
+    private void insertIntoOrder(int first, int size) {
+        int[] added = IntStream.range(first, first + size).boxed()
+                .sorted(this::compareRecords)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int existing = first;
+        if (existing == 0 || compareRecords(order[existing - 1], added[0]) <= 0) {
+            if (order.length < existing + size) {
+                order = Arrays.copyOf(order, Math.max(existing + size, order.length * 2));
+            }
+            System.arraycopy(added, 0, order, existing, size);
+            for (int record : added) {
+                recordsByGame.add(gameOf(record), record);
+            }
+            return;
+        }
+
+        int[] merged = new int[Math.max(existing + size, order.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < existing && j < size) {
+            merged[k++] = compareRecords(order[i], added[j]) <= 0 ? order[i++] : added[j++];
+        }
+        while (i < existing) {
+            merged[k++] = order[i++];
+        }
+        while (j < size) {
+            merged[k++] = added[j++];
+        }
+        order = merged;
+        recordsByGame.rebuild(order, existing + size, this::gameOf);
+    }
+
+    // NONE и STATUS_NONE — условие не задано
+    private boolean matches(int record, int game, byte status, int player) {
+        int offset = offset(record);
+        if (game != NameDictionary.NONE && buffer.getInt(offset + GAME_ID_OFFSET) != game) {
+            return false;
+        }
+        if (status != STATUS_NONE && buffer.get(offset + STATUS_OFFSET) != status) {
+            return false;
+        }
+        if (player == NameDictionary.NONE) {
+            return true;
+        }
+        int playerCount = buffer.get(offset + PLAYER_COUNT_OFFSET);
+        for (int p = 0; p < playerCount; p++) {
+            if (buffer.getInt(offset + PLAYERS_OFFSET + p * Integer.BYTES) == player) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compareRecords(int left, int right) {
+        int byTime = Long.compare(millis(left), millis(right));
+        return byTime != 0 ? byTime : Integer.compare(left, right);
+    }
+
+    private void ensureCapacity(int records) {
+        long needed = HEADER_SIZE + (long) records * RECORD_SIZE;
+        if (needed <= buffer.capacity()) {
+            return;
+        }
+        if (needed > MAX_FILE_SIZE) {
+            throw new IllegalStateException("Файл сессий достиг предельного размера");
+        }
+        // Старое отображение освободится сборщиком мусора; новое видит те же страницы файла
+        long size = Math.min(Math.max(needed, buffer.capacity() * 2L), MAX_FILE_SIZE);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось расширить файл сессий", e);
+        }
+    }
+
+    private int gameOf(int record) {
+        return buffer.getInt(offset(record) + GAME_ID_OFFSET);
+    }
+
+    private long millis(int record) {
+        return buffer.getLong(offset(record) + TIME_OFFSET);
+    }
+
+    private static int offset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    // Номер записи по id сессии или -1, если такой записи нет
+    private int parseRecord(String id) {
+        try {
+            int record = id != null ? Integer.parseInt(id) : -1;
+            return record < count ? record : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int parseCursorRecord(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверный курсор: " + id);
+        }
+    }
+
+    private static byte encodeStatus(GameSession.GameStatus status) {
+        if (status == null) {
+            return STATUS_NONE;
+        }
+        return status == GameSession.GameStatus.PLAYED ? STATUS_PLAYED : STATUS_IN_PROGRESS;
+    }
+
+    private static GameSession.GameStatus decodeStatus(byte status) {
+        switch (status) {
+            case STATUS_PLAYED:
+                return GameSession.GameStatus.PLAYED;
+            case STATUS_IN_PROGRESS:
+                return GameSession.GameStatus.IN_PROGRESS;
+            default:
+                return null;
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Сессии хранятся с точностью до миллисекунды, поэтому граница с долями миллисекунды
+    // округляется вверх: запись m раньше границы тогда и только тогда, когда m < ceilMillis
+    private static long ceilMillis(LocalDateTime dateTime) {
+        return toMillis(dateTime) + (dateTime.getNano() % 1_000_000 != 0 ? 1 : 0);
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private List<BoardGame> loadGames() {
+        if (!gamesFile.exists()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(gamesFile, new TypeReference<List<BoardGame>>() {});
+        } catch (IOException e) {
+            log.error("Не удалось прочитать игры из {}", gamesFile, e);
+            return new ArrayList<>();
+        }
+    }
+
+    // Как в JSON-хранилище: временный файл и атомарная подмена
+    private void writeGames(List<BoardGame> value) {
+        File tmp = new File(gamesFile.getPath() + ".tmp");
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp, value);
+            Files.move(tmp.toPath(), gamesFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить игры в " + gamesFile, e);
+        }
+    }
+}
@@ -1,22 +1,42 @@
 package org.example.dao;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.example.BoardGame;
 import org.example.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 public class BoardGameDaoJsonImpl implements BoardGameDao {
+    private static final Logger log = LoggerFactory.getLogger(BoardGameDaoJsonImpl.class);
+
+    // После стольких событий журнал сворачивается в снапшот sessions.json
+    private static final int COMPACTION_THRESHOLD = 500;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // Запись в файлы идёт под блокировкой; ReentrantLock, а не synchronized, чтобы виртуальный
+    // поток на время записи отпускал поток-носитель
+    private final ReentrantLock lock = new ReentrantLock();
     private final ObjectMapper objectMapper;
     private final File gamesFile;
     private final File sessionsFile;
+    private final SessionJournal journal;
+    private final ColumnarSessionStore sessions = new ColumnarSessionStore();
 
     public BoardGameDaoJsonImpl(String basePath) {
         this.objectMapper = new ObjectMapper();
@@ -29,6 +49,9 @@ public class BoardGameDaoJsonImpl implements BoardGameDao {
 
         this.gamesFile = new File(basePath + "/games.json");
         this.sessionsFile = new File(basePath + "/sessions.json");
+        this.journal = new SessionJournal(objectMapper, new File(basePath + "/sessions.journal"));
+
+        loadSessions();
     }
 
     @Override
@@ -40,73 +63,244 @@ public class BoardGameDaoJsonImpl implements BoardGameDao {
         try {
             return objectMapper.readValue(gamesFile, new TypeReference<List<BoardGame>>() {});
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Не удалось прочитать игры из {}", gamesFile, e);
             return new ArrayList<>();
         }
     }
 
     @Override
     public List<GameSession> getGameHistory() {
-        if (!sessionsFile.exists()) {
-            return new ArrayList<>();
+        return sessions.all();
+    }
+
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return sessions.between(from, to, limit);
+    }
+
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        return sessions.byGame(gameId, limit);
+    }
+
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        return GameStatsSummary.of(gameId, sessions.byGame(gameId, 0));
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        return sessions.page(limit, afterCursor);
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        return sessions.stream();
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return sessions.streamOldestFirst();
+    }
+
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        return sessions.find(query);
+    }
+
+    @Override
+    public void addGame(BoardGame game) {
+        lock.lock();
+        try {
+            List<BoardGame> games = getAllGames();
+            if (game.getId() == null) {
+                game.setId(UUID.randomUUID().toString());
+            }
+            games.add(game);
+            writeAtomically(gamesFile, games);
+        } finally {
+            lock.unlock();
         }
+    }
 
+    @Override
+    public void addGameSession(GameSession session) {
+        lock.lock();
         try {
-            List<GameSession> sessions = objectMapper.readValue(sessionsFile, new TypeReference<List<GameSession>>() {});
-            sessions.sort((s1, s2) -> s2.getDateTime().compareTo(s1.getDateTime()));
-            return sessions;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+            if (session.getId() == null) {
+                session.setId(UUID.randomUUID().toString());
+            }
+            journal.append(SessionJournal.Event.added(session));
+            sessions.put(session);
+            compactIfNeeded();
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
-    public void addGame(BoardGame game) {
-        List<BoardGame> games = getAllGames();
-        if (game.getId() == null) {
-            game.setId(UUID.randomUUID().toString());
+    public void addGames(List<BoardGame> batch) {
+        lock.lock();
+        try {
+            List<BoardGame> games = getAllGames();
+            for (BoardGame game : batch) {
+                if (game.getId() == null) {
+                    game.setId(UUID.randomUUID().toString());
+                }
+                games.add(game);
+            }
+            writeAtomically(gamesFile, games);
+        } finally {
+            lock.unlock();
         }
-        games.add(game);
-        saveGames(games);
     }
 
+    // Весь пакет — одна запись в журнал. Снапшот переписывается, только когда журнал
+    // дорастает до размера истории, поэтому импорт пакетами не переписывает его на каждый пакет
     @Override
-    public void addGameSession(GameSession session) {
-        List<GameSession> sessions = getGameHistory();
-        if (session.getId() == null) {
-            session.setId(UUID.randomUUID().toString());
+    public void addGameSessions(List<GameSession> batch) {
+        lock.lock();
+        try {
+            List<SessionJournal.Event> events = new ArrayList<>(batch.size());
+            for (GameSession session : batch) {
+                if (session.getId() == null) {
+                    session.setId(UUID.randomUUID().toString());
+                }
+                events.add(SessionJournal.Event.added(session));
+            }
+            journal.appendAll(events);
+            sessions.putAll(batch);
+            if (journal.size() >= Math.max(COMPACTION_THRESHOLD, sessions.size())) {
+                compact();
+            }
+        } finally {
+            lock.unlock();
         }
-        sessions.add(session);
-        saveSessions(sessions);
     }
 
     @Override
     public void updateGameSessionStatus(GameSession session) {
-        List<GameSession> sessions = getGameHistory();
-        sessions = sessions.stream()
-                .map(s -> s.getId().equals(session.getId()) ? session : s)
-                .collect(Collectors.toList());
-        saveSessions(sessions);
+        lock.lock();
+        try {
+            if (!sessions.contains(session.getId())) {
+                return;
+            }
+            journal.append(SessionJournal.Event.statusChanged(session.getId(), session.getStatus()));
+            sessions.updateStatus(session.getId(), session.getStatus());
+            compactIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Одно событие в журнале вместо записи на каждую сессию
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        lock.lock();
+        try {
+            journal.append(SessionJournal.Event.markedPlayedBefore(cutoff));
+            int updated = sessions.markPlayedBefore(cutoff);
+            compactIfNeeded();
+            return updated;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void close() {
+        lock.lock();
+        try {
+            if (journal.size() > 0) {
+                compact();
+            }
+            journal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void loadSessions() {
+        if (sessionsFile.exists()) {
+            // Снапшот читается потоково, по одной сессии, без промежуточного списка
+            try (MappingIterator<GameSession> snapshot = objectMapper.readerFor(GameSession.class).readValues(sessionsFile)) {
+                while (snapshot.hasNextValue()) {
+                    sessions.put(snapshot.nextValue());
+                }
+            } catch (IOException e) {
+                quarantineSnapshot(e);
+            }
+        }
+
+        // Повторное применение событий идемпотентно, поэтому сбой между
+        // записью снапшота и очисткой журнала не дублирует сессии
+        for (SessionJournal.Event event : journal.replay()) {
+            switch (event.getType()) {
+                case ADDED:
+                    sessions.put(event.getSession());
+                    break;
+                case STATUS_CHANGED:
+                    sessions.updateStatus(event.getSessionId(), event.getStatus());
+                    break;
+                case MARKED_PLAYED_BEFORE:
+                    sessions.markPlayedBefore(event.getCutoff());
+                    break;
+            }
+        }
     }
 
-    private void saveGames(List<BoardGame> games) {
+    // Следующее сворачивание журнала перезаписало бы снапшот только прочитанными сессиями,
+    // поэтому нечитаемый файл откладывается в сторону для ручного восстановления.
+    // Не удалось отложить — хранилище не открывается, чем потеряет историю
+    private void quarantineSnapshot(IOException cause) {
+        File corrupt = new File(sessionsFile.getPath() + ".corrupt-" + System.currentTimeMillis());
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(gamesFile, games);
+            Files.move(sessionsFile.toPath(), corrupt.toPath());
         } catch (IOException e) {
-            e.printStackTrace();
+            e.addSuppressed(cause);
+            throw new UncheckedIOException("Не удалось прочитать снапшот сессий " + sessionsFile
+                    + " и отложить его в сторону", e);
         }
+        log.error("Не удалось прочитать снапшот сессий {}: он перенесён в {}, загружено сессий: {}",
+                sessionsFile, corrupt, sessions.size(), cause);
     }
 
-    private void saveSessions(List<GameSession> sessions) {
+    private void compactIfNeeded() {
+        if (journal.size() >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        if (writeAtomically(sessionsFile, getGameHistory())) {
+            journal.reset();
+        }
+    }
+
+    // Пишем во временный файл и атомарно подменяем им основной,
+    // чтобы сбой посреди записи не оставил файл наполовину записанным
+    private boolean writeAtomically(File target, Object value) {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            // Пишем потоково: большая история не собирается целиком в массив байт
+            BufferedOutputStream buffered = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValue(buffered, value);
+            buffered.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            log.error("Не удалось записать {}", tmp, e);
+            return false;
+        }
+
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(sessionsFile, sessions);
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Не удалось заменить {} новой версией", target, e);
+            return false;
         }
     }
-}
\ No newline at end of file
+}
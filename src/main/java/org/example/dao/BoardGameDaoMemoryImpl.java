@@ -6,11 +6,11 @@ import org.example.GameSession;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BoardGameDaoMemoryImpl implements BoardGameDao {
     private final Map<String, BoardGame> games = new ConcurrentHashMap<>();
-    private final List<GameSession> sessions = Collections.synchronizedList(new ArrayList<>());
+    private final ColumnarSessionStore sessions = new ColumnarSessionStore();
 
     @Override
     public List<BoardGame> getAllGames() {
@@ -19,9 +19,42 @@ public class BoardGameDaoMemoryImpl implements BoardGameDao {
 
     @Override
     public List<GameSession> getGameHistory() {
-        return sessions.stream()
-                .sorted((s1, s2) -> s2.getDateTime().compareTo(s1.getDateTime()))
-                .collect(Collectors.toList());
+        return sessions.all();
+    }
+
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return sessions.between(from, to, limit);
+    }
+
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        return sessions.byGame(gameId, limit);
+    }
+
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        return GameStatsSummary.of(gameId, sessions.byGame(gameId, 0));
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        return sessions.page(limit, afterCursor);
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        return sessions.stream();
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return sessions.streamOldestFirst();
+    }
+
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        return sessions.find(query);
     }
 
     @Override
@@ -37,19 +70,34 @@ public class BoardGameDaoMemoryImpl implements BoardGameDao {
         if (session.getId() == null) {
             session.setId(UUID.randomUUID().toString());
         }
-        sessions.add(session);
+        sessions.put(session);
     }
 
     @Override
-    public void updateGameSessionStatus(GameSession session) {
-        synchronized (sessions) {
-            for (int i = 0; i < sessions.size(); i++) {
-                if (sessions.get(i).getId().equals(session.getId())) {
-                    sessions.set(i, session);
-                    break;
-                }
+    public void addGames(List<BoardGame> batch) {
+        batch.forEach(this::addGame);
+    }
+
+    @Override
+    public void addGameSessions(List<GameSession> batch) {
+        for (GameSession session : batch) {
+            if (session.getId() == null) {
+                session.setId(UUID.randomUUID().toString());
             }
         }
+        sessions.putAll(batch);
+    }
+
+    @Override
+    public void updateGameSessionStatus(GameSession session) {
+        if (sessions.contains(session.getId())) {
+            sessions.put(session);
+        }
+    }
+
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        return sessions.markPlayedBefore(cutoff);
     }
 
     @Override
@@ -4,68 +4,138 @@ package org.example.dao;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.BsonType;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.example.BoardGame;
 import org.example.GameSession;
+import org.example.PlayerStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BoardGameDaoMongoImpl implements BoardGameDao {
-    private final MongoCollection<Document> gamesCollection;
-    private final MongoCollection<Document> sessionsCollection;
+    private static final Logger log = LoggerFactory.getLogger(BoardGameDaoMongoImpl.class);
+    private static final int STREAM_BATCH_SIZE = 500;
+    // Сравнение названий без учёта регистра: индекс и запросы обязаны использовать одну коллацию
+    private static final Collation NAME_COLLATION = Collation.builder()
+            .locale("ru")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+    // С сервера забираются только поля, которые читают BoardGameCodec и GameSessionCodec
+    private static final Bson GAME_FIELDS = Projections.include(
+            "name", "description", "category", "minPlayers", "maxPlayers", "averageTime");
+    private static final Bson SESSION_FIELDS = Projections.include(
+            "gameId", "gameName", "date", "players", "winner", "status");
+    private static final Bson NEWEST_FIRST = Sorts.descending("date", "_id");
+    private static final Bson OLDEST_FIRST = Sorts.ascending("date", "_id");
+
+    private final MongoCollection<BoardGame> gamesCollection;
+    private final MongoCollection<GameSession> sessionsCollection;
     private final MongoClient mongoClient;
 
     public BoardGameDaoMongoImpl(String connectionString, String databaseName, String collectionPrefix) {
         this.mongoClient = MongoClients.create(connectionString);
-        MongoDatabase database = mongoClient.getDatabase(databaseName);
-        this.gamesCollection = database.getCollection(collectionPrefix + "_games");
-        this.sessionsCollection = database.getCollection(collectionPrefix + "_sessions");
+        // Документы декодируются кодеками сразу в доменные объекты, без промежуточного Document
+        MongoDatabase database = mongoClient.getDatabase(databaseName).withCodecRegistry(MongoCodecs.registry());
+        this.gamesCollection = database.getCollection(collectionPrefix + "_games", BoardGame.class);
+        this.sessionsCollection = database.getCollection(collectionPrefix + "_sessions", GameSession.class);
+        // Сервер недоступен или индекс не построился: клиент с его потоками мониторинга закрывается,
+        // иначе каждая неудачная /setstorage mongodb оставляла бы их работать
+        try {
+            ensureIndexes();
+            migratePlayersToArrays();
+        } catch (RuntimeException e) {
+            mongoClient.close();
+            throw e;
+        }
+    }
+
+    // Старые документы хранили игроков строкой "A, B"; переводим их в массив
+    // одним запросом на сервере, без выгрузки документов
+    private void migratePlayersToArrays() {
+        // Для массива $type совпадает, если строкой является хотя бы один элемент,
+        // поэтому уже перенесённые документы исключаем явно
+        Bson legacy = Filters.and(Filters.type("players", "string"), Filters.not(Filters.type("players", "array")));
+        if (sessionsCollection.find(legacy, Document.class).projection(Projections.include("_id")).first() == null) {
+            return;
+        }
+        sessionsCollection.updateMany(
+                legacy,
+                List.of(Aggregates.set(new Field<>("players", new Document("$map", new Document()
+                        .append("input", new Document("$split", List.of("$players", ",")))
+                        .append("as", "player")
+                        .append("in", new Document("$trim", new Document("input", "$$player"))))))));
+    }
+
+    // createIndex идемпотентен: существующие индексы с теми же ключами не пересоздаются
+    private void ensureIndexes() {
+        // Лента истории и постраничный курсор сортируют по (date, _id)
+        sessionsCollection.createIndex(Indexes.descending("date", "_id"));
+        // Равенство по первому полю плюс тот же порядок (date, _id) — сортировка без отдельной стадии SORT
+        sessionsCollection.createIndex(Indexes.compoundIndex(Indexes.ascending("gameId"), Indexes.descending("date", "_id")));
+        sessionsCollection.createIndex(Indexes.compoundIndex(Indexes.ascending("status"), Indexes.descending("date", "_id")));
+        gamesCollection.createIndex(Indexes.ascending("name"), new IndexOptions().collation(NAME_COLLATION));
     }
 
     @Override
     public List<BoardGame> getAllGames() {
+        List<BoardGame> games = new ArrayList<>();
         return gamesCollection.find()
-                .into(new ArrayList<>())
-                .stream()
-                .map(this::documentToBoardGame)
-                .collect(Collectors.toList());
+                .projection(GAME_FIELDS)
+                .sort(Sorts.ascending("name"))
+                .collation(NAME_COLLATION)
+                .batchSize(STREAM_BATCH_SIZE)
+                .into(games);
     }
 
 
+    // Кодек сам назначает ObjectId новым объектам, так что id сразу доступен вызывающему коду
     @Override
     public void addGame(BoardGame game) {
-        Document doc = new Document()
-                .append("name", game.getName())
-                .append("description", game.getDescription())
-                .append("category", game.getCategory())
-                .append("minPlayers", game.getMinPlayers())
-                .append("maxPlayers", game.getMaxPlayers())
-                .append("averageTime", game.getAverageTime());
-        gamesCollection.insertOne(doc);
+        gamesCollection.insertOne(game);
     }
 
     @Override
     public void addGameSession(GameSession session) {
-        String playersString = String.join(", ", session.getPlayers());
-
-        Date date = Date.from(session.getDateTime().atZone(ZoneId.systemDefault()).toInstant());
+        sessionsCollection.insertOne(session);
+    }
 
-        Document doc = new Document()
-                .append("gameId", session.getGameId())
-                .append("gameName", session.getGameName())
-                .append("date", date)
-                .append("players", playersString)
-                .append("winner", session.getWinner())
-                .append("status", session.getStatus().toString());
+    @Override
+    public void addGames(List<BoardGame> games) {
+        if (!games.isEmpty()) {
+            gamesCollection.insertMany(games);
+        }
+    }
 
-        sessionsCollection.insertOne(doc);
+    // Неупорядоченная вставка: сервер пишет пакет без ожидания каждого документа по очереди
+    @Override
+    public void addGameSessions(List<GameSession> sessions) {
+        if (!sessions.isEmpty()) {
+            sessionsCollection.insertMany(sessions, new InsertManyOptions().ordered(false));
+        }
     }
 
     @Override
@@ -73,60 +143,220 @@ public class BoardGameDaoMongoImpl implements BoardGameDao {
         mongoClient.close();
     }
 
-    private BoardGame documentToBoardGame(Document doc) {
-        return new BoardGame(
-                doc.getObjectId("_id").toString(),
-                doc.getString("name"),
-                doc.getString("description"),
-                doc.getString("category"),
-                doc.getInteger("minPlayers", 2),
-                doc.getInteger("maxPlayers", 4),
-                doc.getInteger("averageTime", 30)
-        );
-    }
-
     @Override
     public void updateGameSessionStatus(GameSession session) {
         Document update = new Document("$set", new Document()
                 .append("status", session.getStatus().toString()));
 
-        sessionsCollection.updateOne(Filters.eq("_id", new ObjectId(session.getId())), update);
+        sessionsCollection.updateOne(Filters.eq("_id", ObjectId.isValid(session.getId())
+                ? new ObjectId(session.getId()) : session.getId()), update);
     }
-    private GameSession documentToGameSession(Document doc) {
-        LocalDateTime dateTime = doc.getDate("date").toInstant()
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime();
-
-        String playersString = doc.getString("players");
-        List<String> players = Arrays.stream(playersString.split(","))
-                .map(String::trim)
-                .collect(Collectors.toList());
 
-        String statusString = doc.getString("status");
-        GameSession.GameStatus status = (statusString != null) ? GameSession.GameStatus.valueOf(statusString) : GameSession.GameStatus.PLAYED;
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        return (int) sessionsCollection.updateMany(
+                Filters.and(
+                        Filters.eq("status", GameSession.GameStatus.IN_PROGRESS.toString()),
+                        Filters.lt("date", toDate(cutoff))),
+                Updates.set("status", GameSession.GameStatus.PLAYED.toString())
+        ).getModifiedCount();
+    }
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
 
-        return new GameSession(
-                doc.getObjectId("_id").toString(),
-                doc.getString("gameId"),
-                doc.getString("gameName"),
-                dateTime,
-                players,
-                doc.getString("winner"),
-                status
-        );
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
     }
 
     @Override
     public List<GameSession> getGameHistory() {
-        System.out.println("DEBUG: Fetching fresh game history from MongoDB");
-        List<Document> documents = sessionsCollection.find()
-                .sort(Sorts.descending("date"))
-                .into(new ArrayList<>());
+        List<GameSession> sessions = toSessions(sessionsQuery(new Document(), 0).batchSize(STREAM_BATCH_SIZE));
+        log.debug("Загружена история из MongoDB: {} сессий", sessions.size());
+        return sessions;
+    }
 
-        System.out.println("DEBUG: Found " + documents.size() + " sessions in DB");
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return toSessions(sessionsQuery(betweenFilter(from, to), limit));
+    }
+
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        return toSessions(sessionsQuery(Filters.eq("gameId", gameId), limit));
+    }
+
+    // Все условия уходят на сервер одним фильтром, индекс (date, gameId или status) выбирает он сам
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        return toSessions(sessionsQuery(queryFilter(query), query.getLimit()));
+    }
+
+    // Один запрос $facet: итоги, даты незавершённых сессий и победы по игрокам.
+    // С сервера приходит один документ размером с число игроков, а не все сессии игры.
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        Document inProgress = new Document("$eq", List.of("$status", GameSession.GameStatus.IN_PROGRESS.toString()));
+        Document players = new Document("$ifNull", List.of("$players", List.of()));
+        // Победитель считается, даже если его нет в списке игроков (старые сессии)
+        Document participants = new Document("$setUnion", List.of(players, List.of("$winner")));
+
+        Document result = sessionsCollection.withDocumentClass(Document.class).aggregate(List.of(
+                Aggregates.match(Filters.eq("gameId", gameId)),
+                Aggregates.project(Projections.include("gameName", "date", "players", "winner", "status")),
+                Aggregates.facet(
+                        new Facet("totals", Aggregates.group(null,
+                                Accumulators.first("gameName", "$gameName"),
+                                Accumulators.sum("total", 1),
+                                Accumulators.sum("completed", new Document("$cond", List.of(inProgress, 0, 1))))),
+                        new Facet("inProgress",
+                                Aggregates.match(Filters.eq("status", GameSession.GameStatus.IN_PROGRESS.toString())),
+                                Aggregates.project(Projections.fields(Projections.excludeId(), Projections.include("date")))),
+                        new Facet("players",
+                                Aggregates.project(new Document("players", players)
+                                        .append("winner", 1)
+                                        .append("participant", participants)),
+                                Aggregates.unwind("$participant"),
+                                Aggregates.match(Filters.ne("participant", null)),
+                                Aggregates.group("$participant",
+                                        Accumulators.sum("played", new Document("$cond",
+                                                List.of(new Document("$in", List.of("$participant", "$players")), 1, 0))),
+                                        Accumulators.sum("wins", new Document("$cond",
+                                                List.of(new Document("$eq", List.of("$participant", "$winner")), 1, 0)))),
+                                Aggregates.sort(Sorts.orderBy(Sorts.descending("played"), Sorts.ascending("_id")))))
+        )).first();
+
+        List<Document> totals = result != null ? result.getList("totals", Document.class) : List.of();
+        if (totals.isEmpty()) {
+            return new GameStatsSummary(gameId, null, 0, 0, new ArrayList<>(), new ArrayList<>());
+        }
+        Document total = totals.get(0);
+
+        List<PlayerStats> playerStats = new ArrayList<>();
+        for (Document row : result.getList("players", Document.class)) {
+            playerStats.add(new PlayerStats(row.getString("_id"), row.getInteger("wins"), row.getInteger("played")));
+        }
+        List<LocalDateTime> inProgressDates = new ArrayList<>();
+        for (Document row : result.getList("inProgress", Document.class)) {
+            inProgressDates.add(toLocalDateTime(row.getDate("date")));
+        }
+        return new GameStatsSummary(gameId, total.getString("gameName"), total.getInteger("total"),
+                total.getInteger("completed"), playerStats, inProgressDates);
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        SessionPage.checkLimit(limit);
+        // Берём на одну сессию больше, чтобы понять, есть ли следующая страница
+        return SessionPage.of(toSessions(sessionsQuery(afterFilter(afterCursor), limit + 1)), limit);
+    }
+
+    // Планы запросов для проверки, что выборки идут по индексам, а не полным сканом
+    public Document explainSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return sessionsQuery(betweenFilter(from, to), limit).explain();
+    }
+
+    public Document explainSessionsByGame(String gameId, int limit) {
+        return sessionsQuery(Filters.eq("gameId", gameId), limit).explain();
+    }
+
+    public Document explainFindSessions(SessionQuery query) {
+        return sessionsQuery(queryFilter(query), query.getLimit()).explain();
+    }
+
+    public Document explainRecentSessions(int limit, String afterCursor) {
+        return sessionsQuery(afterFilter(afterCursor), limit + 1).explain();
+    }
+
+    public Document explainAllGames() {
+        return gamesCollection.find()
+                .projection(GAME_FIELDS)
+                .sort(Sorts.ascending("name"))
+                .collation(NAME_COLLATION)
+                .explain();
+    }
+
+    // Общая форма выборки сессий: только нужные поля, новые первыми, limit <= 0 — без ограничения
+    private FindIterable<GameSession> sessionsQuery(Bson filter, int limit) {
+        FindIterable<GameSession> query = sessionsCollection.find(filter)
+                .projection(SESSION_FIELDS)
+                .sort(NEWEST_FIRST);
+        if (limit > 0) {
+            // Весь результат приходит одной пачкой, без лишних getMore
+            query = query.limit(limit).batchSize(limit);
+        }
+        return query;
+    }
+
+    private static Bson betweenFilter(LocalDateTime from, LocalDateTime to) {
+        return queryFilter(SessionQuery.all().between(from, to));
+    }
+
+    private static Bson queryFilter(SessionQuery query) {
+        List<Bson> conditions = new ArrayList<>();
+        if (query.getFrom() != null) {
+            conditions.add(Filters.gte("date", toDate(query.getFrom())));
+        }
+        if (query.getTo() != null) {
+            conditions.add(Filters.lt("date", toDate(query.getTo())));
+        }
+        if (query.getGameId() != null) {
+            conditions.add(Filters.eq("gameId", query.getGameId()));
+        }
+        if (query.getStatus() != null) {
+            conditions.add(Filters.eq("status", query.getStatus().name()));
+        }
+        if (query.getAfter() != null) {
+            conditions.add(afterFilter(query.getAfter()));
+        }
+        if (query.getPlayer() != null) {
+            // Равенство с массивом — совпадение с любым его элементом
+            conditions.add(Filters.eq("players", query.getPlayer()));
+        }
+        return conditions.isEmpty() ? new Document() : Filters.and(conditions);
+    }
+
+    private static Bson afterFilter(String afterCursor) {
+        if (afterCursor == null) {
+            return new Document();
+        }
+        return afterFilter(SessionPage.Cursor.parse(afterCursor));
+    }
+
+    private static Bson afterFilter(SessionPage.Cursor cursor) {
+        Date date = toDate(cursor.getDateTime());
+        return Filters.or(
+                Filters.lt("date", date),
+                Filters.and(Filters.eq("date", date), beforeId(cursor.getId())));
+    }
+
+    // Кодек пишет id строкой, если это не ObjectId. Сравнение $lt работает только внутри одного
+    // типа BSON, а при сортировке строки идут раньше ObjectId, то есть по убыванию — после них
+    private static Bson beforeId(String id) {
+        if (ObjectId.isValid(id)) {
+            return Filters.or(Filters.lt("_id", new ObjectId(id)), Filters.type("_id", BsonType.STRING));
+        }
+        return Filters.lt("_id", id);
+    }
+
+    private List<GameSession> toSessions(FindIterable<GameSession> query) {
+        return query.into(new ArrayList<>());
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        return stream(sessionsQuery(new Document(), 0));
+    }
+
+    // Индекс (date, _id) обходится в обратную сторону, сортировки в памяти сервера нет
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return stream(sessionsQuery(new Document(), 0).sort(OLDEST_FIRST));
+    }
 
-        return documents.stream()
-                .map(this::documentToGameSession)
-                .collect(Collectors.toList());
+    private static Stream<GameSession> stream(FindIterable<GameSession> query) {
+        MongoCursor<GameSession> cursor = query.batchSize(STREAM_BATCH_SIZE).cursor();
+        Spliterator<GameSession> sessions = Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED);
+        return StreamSupport.stream(sessions, false).onClose(cursor::close);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package org.example.dao;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Держит игры и сессии в памяти и пишет изменения сквозь себя в обёрнутое хранилище.
+// Пока запись в хранилище не упала, кэш остаётся авторитетной копией данных.
+public class CachingBoardGameDao implements BoardGameDao {
+    private final BoardGameDao delegate;
+    // Не монитор: под блокировкой идёт запись в хранилище, а виртуальный поток, заблокированный
+    // внутри synchronized, держит поток-носитель (JDK 21–23)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private List<BoardGame> games;
+    private ColumnarSessionStore sessions;
+
+    public CachingBoardGameDao(BoardGameDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<BoardGame> getAllGames() {
+        lock.lock();
+        try {
+            if (games != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                games = new ArrayList<>(delegate.getAllGames());
+            }
+            return new ArrayList<>(games);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<GameSession> getGameHistory() {
+        return loadedSessions().all();
+    }
+
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return loadedSessions().between(from, to, limit);
+    }
+
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        return loadedSessions().byGame(gameId, limit);
+    }
+
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        return GameStatsSummary.of(gameId, loadedSessions().byGame(gameId, 0));
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        return loadedSessions().page(limit, afterCursor);
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        return loadedSessions().stream();
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return loadedSessions().streamOldestFirst();
+    }
+
+    // Пока история не загружена, выборка уходит в хранилище целиком (у Mongo — одним запросом),
+    // а не тянет всю историю в кэш ради нескольких сессий
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        ColumnarSessionStore loaded;
+        lock.lock();
+        try {
+            loaded = sessions;
+        } finally {
+            lock.unlock();
+        }
+        if (loaded == null) {
+            misses.increment();
+            return delegate.findSessions(query);
+        }
+        hits.increment();
+        return loaded.find(query);
+    }
+
+    @Override
+    public void addGame(BoardGame game) {
+        lock.lock();
+        try {
+            try {
+                delegate.addGame(game);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (games != null) {
+                if (game.getId() != null) {
+                    games.add(game);
+                } else {
+                    games = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addGameSession(GameSession session) {
+        lock.lock();
+        try {
+            try {
+                delegate.addGameSession(session);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (sessions == null) {
+                return;
+            }
+            if (session.getId() != null) {
+                sessions.put(session);
+            } else {
+                sessions = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addGames(List<BoardGame> batch) {
+        lock.lock();
+        try {
+            try {
+                delegate.addGames(batch);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (games != null) {
+                if (batch.stream().allMatch(game -> game.getId() != null)) {
+                    games.addAll(batch);
+                } else {
+                    games = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addGameSessions(List<GameSession> batch) {
+        lock.lock();
+        try {
+            try {
+                delegate.addGameSessions(batch);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (sessions == null) {
+                return;
+            }
+            if (batch.stream().allMatch(session -> session.getId() != null)) {
+                sessions.putAll(batch);
+            } else {
+                sessions = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateGameSessionStatus(GameSession session) {
+        lock.lock();
+        try {
+            try {
+                delegate.updateGameSessionStatus(session);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (sessions != null) {
+                sessions.updateStatus(session.getId(), session.getStatus());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        lock.lock();
+        try {
+            int updated;
+            try {
+                updated = delegate.markPlayedBefore(cutoff);
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+
+            if (sessions != null) {
+                sessions.markPlayedBefore(cutoff);
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidate();
+        delegate.close();
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            games = null;
+            sessions = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public BoardGameDao getDelegate() {
+        return delegate;
+    }
+
+    private ColumnarSessionStore loadedSessions() {
+        lock.lock();
+        try {
+            if (sessions != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                ColumnarSessionStore loaded = new ColumnarSessionStore();
+                loaded.putAll(delegate.getGameHistory());
+                sessions = loaded;
+            }
+            return sessions;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
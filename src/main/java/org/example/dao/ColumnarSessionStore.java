@@ -0,0 +1,652 @@
+package org.example.dao;
+
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Сессии по колонкам: время, игра, победитель, статус и игроки лежат в параллельных примитивных
+// массивах, названия игр и имена игроков — номерами из словарей, поэтому одно имя в тысячах сессий
+// хранится один раз. GameSession собирается только для того, что уходит наружу, и изменения
+// отданного объекта в хранилище не попадают — для этого есть put и updateStatus.
+// Порядок по (dateTime, id) держит отдельный массив номеров записей; вставка не в конец
+// только помечает его, досортировка происходит при первом чтении. Сессии одной игры
+// в том же порядке лежат в GameRecordIndex.
+class ColumnarSessionStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // id вида UUID и ObjectId Mongo хранятся двумя long, остальные — строкой
+    private static final byte ID_UUID = 0;
+    private static final byte ID_OBJECT_ID = 1;
+    private static final byte ID_OTHER = 2;
+
+    private static final byte STATUS_NONE = -1;
+    private static final GameSession.GameStatus[] STATUSES = GameSession.GameStatus.values();
+
+    private NameDictionary games;
+    private NameDictionary players;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] seconds;
+    private int[] nanos;
+    private int[] gameIds;
+    private int[] gameNames;
+    private int[] winners;
+    private byte[] statuses;
+    // Игроки записи — playerCounts[r] номеров в playerPool начиная с playerStarts[r]
+    private int[] playerStarts;
+    private int[] playerCounts;
+    private int[] playerPool;
+    private int playerPoolSize;
+
+    private byte[] idKinds;
+    private long[] idHigh;
+    private long[] idLow;
+    private final List<String> otherIds = new ArrayList<>();
+    private final Map<String, Integer> otherIdRecords = new HashMap<>();
+    // Открытая адресация по (high, low): номер записи + 1, 0 — пусто
+    private int[] idTable;
+    private int idTableCount;
+
+    private int[] order;
+    private boolean unsorted;
+    private final GameRecordIndex recordsByGame = new GameRecordIndex();
+    private final BitSet inProgress = new BitSet();
+
+    ColumnarSessionStore() {
+        allocate();
+    }
+
+    // Добавляет сессию или заменяет сессию с тем же id
+    void put(GameSession session) {
+        lock.writeLock().lock();
+        try {
+            write(session);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void putAll(List<GameSession> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // false — сессии с таким id нет
+    boolean updateStatus(String id, GameSession.GameStatus status) {
+        lock.writeLock().lock();
+        try {
+            int record = recordOf(id);
+            if (record < 0) {
+                return false;
+            }
+            statuses[record] = encodeStatus(status);
+            inProgress.set(record, status == GameSession.GameStatus.IN_PROGRESS);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Завершает все незавершённые сессии старше cutoff, обходя только их; возвращает их число
+    int markPlayedBefore(LocalDateTime cutoff) {
+        lock.writeLock().lock();
+        try {
+            long cutoffSecond = cutoff.toEpochSecond(ZoneOffset.UTC);
+            int cutoffNano = cutoff.getNano();
+            int updated = 0;
+            for (int record = inProgress.nextSetBit(0); record >= 0; record = inProgress.nextSetBit(record + 1)) {
+                if (compareTime(record, cutoffSecond, cutoffNano) < 0) {
+                    statuses[record] = (byte) GameSession.GameStatus.PLAYED.ordinal();
+                    inProgress.clear(record);
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return recordOf(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // from — включительно, to — не включительно, null — без границы; новые сессии первыми
+    List<GameSession> between(LocalDateTime from, LocalDateTime to, int limit) {
+        lockSortedForRead();
+        try {
+            int low = from != null ? lowerBound(from, null) : 0;
+            int high = to != null ? lowerBound(to, null) : size;
+            return readDescending(low, high, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Сессии одной игры, новые первыми: обходится только список записей этой игры
+    List<GameSession> byGame(String gameId, int limit) {
+        lockSortedForRead();
+        try {
+            int game = games.find(gameId);
+            int[] records = recordsByGame.records(game);
+            int count = recordsByGame.count(game);
+            List<GameSession> result = new ArrayList<>(limit > 0 ? Math.min(limit, count) : count);
+            for (int i = count - 1; i >= 0 && (limit <= 0 || result.size() < limit); i--) {
+                result.add(read(records[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Выборка за один проход по колонкам: диапазон дат сужается двоичным поиском по order
+    // или, если задана игра и её сессий в диапазоне меньше, по списку записей этой игры.
+    // Статус и игрок сравниваются номерами из словарей, GameSession собирается только
+    // для подошедших записей, обход останавливается на limit. Незавершённые сессии, если их
+    // меньше, чем кандидатов, берутся прямо из inProgress
+    List<GameSession> find(SessionQuery query) {
+        lockSortedForRead();
+        try {
+            List<GameSession> result = new ArrayList<>();
+            int game = query.getGameId() != null ? games.find(query.getGameId()) : NameDictionary.NONE;
+            int player = query.getPlayer() != null ? players.find(query.getPlayer()) : NameDictionary.NONE;
+            if (query.getGameId() != null && game == NameDictionary.NONE
+                    || query.getPlayer() != null && player == NameDictionary.NONE) {
+                return result;
+            }
+            // STATUS_NONE — статус не важен
+            byte status = query.getStatus() != null ? encodeStatus(query.getStatus()) : STATUS_NONE;
+            int[] records = order;
+            int low = query.getFrom() != null ? lowerBound(query.getFrom(), null) : 0;
+            int high = query.getTo() != null ? lowerBound(query.getTo(), null) : size;
+            SessionPage.Cursor after = query.getAfter();
+            if (after != null) {
+                high = Math.min(high, lowerBound(after.getDateTime(), after.getId()));
+            }
+            if (game != NameDictionary.NONE) {
+                int[] gameRecords = recordsByGame.records(game);
+                int count = recordsByGame.count(game);
+                int gameLow = query.getFrom() != null ? lowerBound(gameRecords, count, query.getFrom(), null) : 0;
+                int gameHigh = query.getTo() != null ? lowerBound(gameRecords, count, query.getTo(), null) : count;
+                if (after != null) {
+                    gameHigh = Math.min(gameHigh, lowerBound(gameRecords, count, after.getDateTime(), after.getId()));
+                }
+                if (gameHigh - gameLow < high - low) {
+                    records = gameRecords;
+                    low = gameLow;
+                    high = gameHigh;
+                }
+            }
+
+            if (query.getStatus() == GameSession.GameStatus.IN_PROGRESS && inProgress.cardinality() < high - low) {
+                int[] candidates = new int[inProgress.cardinality()];
+                int found = 0;
+                for (int record = inProgress.nextSetBit(0); record >= 0; record = inProgress.nextSetBit(record + 1)) {
+                    if (withinTime(record, query.getFrom(), query.getTo()) && before(record, after)
+                            && matches(record, game, status, player)) {
+                        candidates[found++] = record;
+                    }
+                }
+                mergeSort(candidates, new int[found], 0, found);
+                for (int i = found - 1; i >= 0 && (!query.hasLimit() || result.size() < query.getLimit()); i--) {
+                    result.add(read(candidates[i]));
+                }
+                return result;
+            }
+
+            for (int i = high - 1; i >= low && (!query.hasLimit() || result.size() < query.getLimit()); i--) {
+                if (matches(records[i], game, status, player)) {
+                    result.add(read(records[i]));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Сессии строго старше курсора (или самые новые, если курсора нет)
+    SessionPage page(int limit, String afterCursor) {
+        SessionPage.checkLimit(limit);
+        lockSortedForRead();
+        try {
+            int high = size;
+            if (afterCursor != null) {
+                SessionPage.Cursor cursor = SessionPage.Cursor.parse(afterCursor);
+                high = lowerBound(cursor.getDateTime(), cursor.getId());
+            }
+            return SessionPage.of(readDescending(0, high, limit + 1), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ленивый обход от новых к старым: порядок фиксируется при открытии, сессии собираются по одной
+    Stream<GameSession> stream() {
+        int[] snapshot = orderSnapshot();
+        return IntStream.range(0, snapshot.length)
+                .mapToObj(i -> readLocked(snapshot[snapshot.length - 1 - i]));
+    }
+
+    // То же от старых к новым, без разворота истории в памяти
+    Stream<GameSession> streamOldestFirst() {
+        return Arrays.stream(orderSnapshot()).mapToObj(this::readLocked);
+    }
+
+    private int[] orderSnapshot() {
+        lockSortedForRead();
+        try {
+            return Arrays.copyOf(order, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<GameSession> all() {
+        return between(null, null, 0);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            allocate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void allocate() {
+        games = new NameDictionary();
+        players = new NameDictionary();
+        size = 0;
+        seconds = new long[INITIAL_CAPACITY];
+        nanos = new int[INITIAL_CAPACITY];
+        gameIds = new int[INITIAL_CAPACITY];
+        gameNames = new int[INITIAL_CAPACITY];
+        winners = new int[INITIAL_CAPACITY];
+        statuses = new byte[INITIAL_CAPACITY];
+        playerStarts = new int[INITIAL_CAPACITY];
+        playerCounts = new int[INITIAL_CAPACITY];
+        playerPool = new int[INITIAL_CAPACITY * 4];
+        playerPoolSize = 0;
+        idKinds = new byte[INITIAL_CAPACITY];
+        idHigh = new long[INITIAL_CAPACITY];
+        idLow = new long[INITIAL_CAPACITY];
+        otherIds.clear();
+        otherIdRecords.clear();
+        idTable = new int[INITIAL_CAPACITY * 2];
+        idTableCount = 0;
+        order = new int[INITIAL_CAPACITY];
+        unsorted = false;
+        recordsByGame.clear();
+        inProgress.clear();
+    }
+
+    private void write(GameSession session) {
+        String id = Objects.requireNonNull(session.getId(), "id");
+        LocalDateTime dateTime = session.getDateTime();
+        int record = recordOf(id);
+        if (record < 0) {
+            record = size;
+            ensureCapacity(size + 1);
+            storeId(record, id);
+            order[size] = record;
+            size++;
+        } else {
+            // У заменённой сессии могло поменяться время
+            unsorted = true;
+        }
+
+        seconds[record] = dateTime.toEpochSecond(ZoneOffset.UTC);
+        nanos[record] = dateTime.getNano();
+        gameIds[record] = games.intern(session.getGameId());
+        gameNames[record] = games.intern(session.getGameName());
+        winners[record] = players.intern(session.getWinner());
+        statuses[record] = encodeStatus(session.getStatus());
+        inProgress.set(record, session.getStatus() == GameSession.GameStatus.IN_PROGRESS);
+
+        // При замене старые номера игроков остаются в пуле: замены редки
+        List<String> sessionPlayers = session.getPlayers() != null ? session.getPlayers() : List.of();
+        if (playerPool.length < playerPoolSize + sessionPlayers.size()) {
+            playerPool = Arrays.copyOf(playerPool, Math.max(playerPoolSize + sessionPlayers.size(), playerPool.length * 2));
+        }
+        playerStarts[record] = playerPoolSize;
+        playerCounts[record] = sessionPlayers.size();
+        for (String player : sessionPlayers) {
+            playerPool[playerPoolSize++] = players.intern(player);
+        }
+
+        if (!unsorted && size > 1 && order[size - 1] == record && compareRecords(order[size - 2], record) > 0) {
+            unsorted = true;
+        }
+        // Иначе запись попадёт в список игры при досортировке
+        if (!unsorted) {
+            recordsByGame.add(gameIds[record], record);
+        }
+    }
+
+    private GameSession read(int record) {
+        String[] names = new String[playerCounts[record]];
+        for (int p = 0; p < names.length; p++) {
+            names[p] = players.get(playerPool[playerStarts[record] + p]);
+        }
+        return new GameSession(
+                idOf(record),
+                games.get(gameIds[record]),
+                games.get(gameNames[record]),
+                LocalDateTime.ofEpochSecond(seconds[record], nanos[record], ZoneOffset.UTC),
+                Arrays.asList(names),
+                players.get(winners[record]),
+                statuses[record] == STATUS_NONE ? null : STATUSES[statuses[record]]
+        );
+    }
+
+    private GameSession readLocked(int record) {
+        lock.readLock().lock();
+        try {
+            return read(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Записи order[low..high) от новых к старым
+    private List<GameSession> readDescending(int low, int high, int limit) {
+        List<GameSession> result = new ArrayList<>(limit > 0 ? Math.min(limit, Math.max(high - low, 0)) : 16);
+        for (int i = high - 1; i >= low && (limit <= 0 || result.size() < limit); i--) {
+            result.add(read(order[i]));
+        }
+        return result;
+    }
+
+    // Берёт блокировку чтения, предварительно досортировав порядок, если он помечен
+    private void lockSortedForRead() {
+        lock.readLock().lock();
+        if (!unsorted) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (unsorted) {
+                sortOrder();
+                unsorted = false;
+            }
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Сортировка слиянием по примитивному массиву: без упаковки номеров в Integer.
+    // Уже упорядоченные половины не сливаются, так что дописанный в конец хвост обходится дёшево
+    private void sortOrder() {
+        int[] buffer = new int[size];
+        mergeSort(order, buffer, 0, size);
+        recordsByGame.rebuild(order, size, record -> gameIds[record]);
+    }
+
+    private void mergeSort(int[] values, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(values, buffer, from, middle);
+        mergeSort(values, buffer, middle, to);
+        if (compareRecords(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || i < middle && compareRecords(buffer[i], buffer[j]) <= 0) {
+                values[k] = buffer[i++];
+            } else {
+                values[k] = buffer[j++];
+            }
+        }
+    }
+
+    // Первая позиция в order не меньше (dateTime, id); id == null — начало момента времени
+    private int lowerBound(LocalDateTime dateTime, String id) {
+        return lowerBound(order, size, dateTime, id);
+    }
+
+    // То же для любого упорядоченного так же списка записей, например списка одной игры
+    private int lowerBound(int[] records, int length, LocalDateTime dateTime, String id) {
+        long second = dateTime.toEpochSecond(ZoneOffset.UTC);
+        int nano = dateTime.getNano();
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int record = records[middle];
+            int byTime = compareTime(record, second, nano);
+            if (byTime < 0 || byTime == 0 && id != null && idOf(record).compareTo(id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // NONE и STATUS_NONE — условие не задано
+    private boolean matches(int record, int game, byte status, int player) {
+        if (game != NameDictionary.NONE && gameIds[record] != game) {
+            return false;
+        }
+        if (status != STATUS_NONE && statuses[record] != status) {
+            return false;
+        }
+        if (player == NameDictionary.NONE) {
+            return true;
+        }
+        int start = playerStarts[record];
+        for (int p = start; p < start + playerCounts[record]; p++) {
+            if (playerPool[p] == player) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean withinTime(int record, LocalDateTime from, LocalDateTime to) {
+        return (from == null || compareTime(record, from.toEpochSecond(ZoneOffset.UTC), from.getNano()) >= 0)
+                && (to == null || compareTime(record, to.toEpochSecond(ZoneOffset.UTC), to.getNano()) < 0);
+    }
+
+    // Запись строго старше курсора; null — курсора нет
+    private boolean before(int record, SessionPage.Cursor cursor) {
+        if (cursor == null) {
+            return true;
+        }
+        LocalDateTime dateTime = cursor.getDateTime();
+        int byTime = compareTime(record, dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano());
+        return byTime < 0 || byTime == 0 && idOf(record).compareTo(cursor.getId()) < 0;
+    }
+
+    private int compareTime(int record, long second, int nano) {
+        int bySecond = Long.compare(seconds[record], second);
+        return bySecond != 0 ? bySecond : Integer.compare(nanos[record], nano);
+    }
+
+    // Как сравнение строк id: у UUID и ObjectId в нижнем регистре оно совпадает с беззнаковым сравнением чисел
+    private int compareRecords(int left, int right) {
+        int byTime = compareTime(left, seconds[right], nanos[right]);
+        if (byTime != 0) {
+            return byTime;
+        }
+        if (idKinds[left] == idKinds[right] && idKinds[left] != ID_OTHER) {
+            int byHigh = Long.compareUnsigned(idHigh[left], idHigh[right]);
+            return byHigh != 0 ? byHigh : Long.compareUnsigned(idLow[left], idLow[right]);
+        }
+        return idOf(left).compareTo(idOf(right));
+    }
+
+    private void ensureCapacity(int records) {
+        if (records <= seconds.length) {
+            return;
+        }
+        int capacity = Math.max(records, seconds.length * 2);
+        seconds = Arrays.copyOf(seconds, capacity);
+        nanos = Arrays.copyOf(nanos, capacity);
+        gameIds = Arrays.copyOf(gameIds, capacity);
+        gameNames = Arrays.copyOf(gameNames, capacity);
+        winners = Arrays.copyOf(winners, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        playerStarts = Arrays.copyOf(playerStarts, capacity);
+        playerCounts = Arrays.copyOf(playerCounts, capacity);
+        idKinds = Arrays.copyOf(idKinds, capacity);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+
+    // Номер записи по id или -1
+    private int recordOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        long[] parsed = new long[2];
+        byte kind = parseId(id, parsed);
+        if (kind == ID_OTHER) {
+            Integer record = otherIdRecords.get(id);
+            return record != null ? record : -1;
+        }
+        int mask = idTable.length - 1;
+        for (int slot = hash(kind, parsed[0], parsed[1]) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int record = idTable[slot] - 1;
+            if (idKinds[record] == kind && idHigh[record] == parsed[0] && idLow[record] == parsed[1]) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private void storeId(int record, String id) {
+        long[] parsed = new long[2];
+        byte kind = parseId(id, parsed);
+        idKinds[record] = kind;
+        if (kind == ID_OTHER) {
+            idHigh[record] = 0;
+            idLow[record] = otherIds.size();
+            otherIds.add(id);
+            otherIdRecords.put(id, record);
+            return;
+        }
+        idHigh[record] = parsed[0];
+        idLow[record] = parsed[1];
+        if ((idTableCount + 1) * 2 > idTable.length) {
+            rehash(idTable.length * 2);
+        }
+        insertId(record);
+        idTableCount++;
+    }
+
+    private void insertId(int record) {
+        int mask = idTable.length - 1;
+        int slot = hash(idKinds[record], idHigh[record], idLow[record]) & mask;
+        while (idTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idTable[slot] = record + 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] previous = idTable;
+        idTable = new int[capacity];
+        for (int entry : previous) {
+            if (entry != 0) {
+                insertId(entry - 1);
+            }
+        }
+    }
+
+    private static int hash(byte kind, long high, long low) {
+        long mixed = (high * 0x9E3779B97F4A7C15L + low) * 0xC2B2AE3D27D4EB4FL + kind;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private String idOf(int record) {
+        switch (idKinds[record]) {
+            case ID_UUID:
+                return new UUID(idHigh[record], idLow[record]).toString();
+            case ID_OBJECT_ID:
+                char[] hex = new char[24];
+                writeHex(hex, 0, idHigh[record], 8);
+                writeHex(hex, 8, idLow[record], 16);
+                return new String(hex);
+            default:
+                return otherIds.get((int) idLow[record]);
+        }
+    }
+
+    // UUID в каноническом виде (36 символов) или ObjectId (24 hex-символа), только нижний регистр:
+    // тогда idOf вернёт ровно ту же строку
+    private static byte parseId(String id, long[] parsed) {
+        if (id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-'
+                && id.charAt(18) == '-' && id.charAt(23) == '-') {
+            if (parseHex(id, 0, 8, parsed, 0) && parseHex(id, 9, 13, parsed, 0) && parseHex(id, 14, 18, parsed, 0)
+                    && parseHex(id, 19, 23, parsed, 1) && parseHex(id, 24, 36, parsed, 1)) {
+                return ID_UUID;
+            }
+        } else if (id.length() == 24 && parseHex(id, 0, 8, parsed, 0) && parseHex(id, 8, 24, parsed, 1)) {
+            return ID_OBJECT_ID;
+        }
+        return ID_OTHER;
+    }
+
+    // Дописывает hex-цифры value[from..to) к parsed[index]
+    private static boolean parseHex(String value, int from, int to, long[] parsed, int index) {
+        long result = parsed[index];
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (digit < 0) {
+                return false;
+            }
+            result = result << 4 | digit;
+        }
+        parsed[index] = result;
+        return true;
+    }
+
+    private static void writeHex(char[] target, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            target[offset + i] = Character.forDigit((int) (value & 0xF), 16);
+            value >>>= 4;
+        }
+    }
+
+    private static byte encodeStatus(GameSession.GameStatus status) {
+        return status == null ? STATUS_NONE : (byte) status.ordinal();
+    }
+}
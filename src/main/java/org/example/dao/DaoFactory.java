@@ -2,6 +2,14 @@ package org.example.dao;
 
 public class DaoFactory {
     public static BoardGameDao createTaskDao(String type) {
+        // Бинарное хранилище читает сессии прямо из отображённого файла, кэш в куче ему не нужен
+        if (type.equalsIgnoreCase("binary")) {
+            return new BoardGameDaoBinaryImpl("data/binary");
+        }
+        return new CachingBoardGameDao(createStorage(type));
+    }
+
+    private static BoardGameDao createStorage(String type) {
         switch (type.toLowerCase()) {
             case "memory":
                 return new BoardGameDaoMemoryImpl();
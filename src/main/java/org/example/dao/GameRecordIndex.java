@@ -0,0 +1,55 @@
+package org.example.dao;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+// Номера записей каждой игры (по номеру id игры в словаре) в том же порядке по времени, что и общий
+// order хранилища. Хранилище дописывает сюда запись, только когда она встала в конец order;
+// после пересортировки order списки строятся заново одним проходом. Не потокобезопасен:
+// доступ защищает блокировка хранилища.
+class GameRecordIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private int[][] records = new int[16][];
+    private int[] counts = new int[16];
+
+    void add(int game, int record) {
+        if (game == NameDictionary.NONE) {
+            return;
+        }
+        if (game >= counts.length) {
+            int capacity = Math.max(game + 1, counts.length * 2);
+            records = Arrays.copyOf(records, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int[] list = records[game];
+        if (list == null) {
+            list = records[game] = new int[4];
+        } else if (counts[game] == list.length) {
+            list = records[game] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[counts[game]++] = record;
+    }
+
+    // order[0..size) — все записи по порядку, gameOf — номер игры записи
+    void rebuild(int[] order, int size, IntUnaryOperator gameOf) {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < size; i++) {
+            add(gameOf.applyAsInt(order[i]), order[i]);
+        }
+    }
+
+    int count(int game) {
+        return game >= 0 && game < counts.length ? counts[game] : 0;
+    }
+
+    // Действительны первые count(game) элементов
+    int[] records(int game) {
+        return count(game) > 0 ? records[game] : EMPTY;
+    }
+
+    void clear() {
+        records = new int[16][];
+        counts = new int[16];
+    }
+}
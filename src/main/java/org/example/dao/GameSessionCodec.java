@@ -0,0 +1,141 @@
+package org.example.dao;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.example.GameSession;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// GameSession <-> BSON напрямую: игроки читаются из массива сразу в итоговый список,
+// строковая форма старых документов ("A, B") тоже понимается
+public class GameSessionCodec implements CollectibleCodec<GameSession> {
+    private final MongoCodecs.DateConverter dates;
+
+    public GameSessionCodec(ZoneId zone) {
+        this.dates = new MongoCodecs.DateConverter(zone);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, GameSession session, EncoderContext context) {
+        writer.writeStartDocument();
+        if (session.getId() != null) {
+            MongoCodecs.writeId(writer, session.getId());
+        }
+        MongoCodecs.writeStringOrNull(writer, "gameId", session.getGameId());
+        MongoCodecs.writeStringOrNull(writer, "gameName", session.getGameName());
+        if (session.getDateTime() != null) {
+            writer.writeDateTime("date", dates.toEpochMillis(session.getDateTime()));
+        } else {
+            writer.writeNull("date");
+        }
+        writer.writeStartArray("players");
+        if (session.getPlayers() != null) {
+            for (String player : session.getPlayers()) {
+                writer.writeString(player);
+            }
+        }
+        writer.writeEndArray();
+        MongoCodecs.writeStringOrNull(writer, "winner", session.getWinner());
+        writer.writeString("status", (session.getStatus() != null ? session.getStatus() : GameSession.GameStatus.PLAYED).name());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public GameSession decode(BsonReader reader, DecoderContext context) {
+        GameSession session = new GameSession();
+        // Сессии без статуса сохранялись до появления статусов и считаются сыгранными
+        session.setStatus(GameSession.GameStatus.PLAYED);
+        session.setPlayers(new ArrayList<>());
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    session.setId(MongoCodecs.readId(reader));
+                    break;
+                case "gameId":
+                    session.setGameId(MongoCodecs.readString(reader));
+                    break;
+                case "gameName":
+                    session.setGameName(MongoCodecs.readString(reader));
+                    break;
+                case "date":
+                    if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+                        session.setDateTime(dates.fromEpochMillis(reader.readDateTime()));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "players":
+                    session.setPlayers(readPlayers(reader));
+                    break;
+                case "winner":
+                    session.setWinner(MongoCodecs.readString(reader));
+                    break;
+                case "status":
+                    String status = MongoCodecs.readString(reader);
+                    if (status != null) {
+                        session.setStatus(GameSession.GameStatus.valueOf(status));
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return session;
+    }
+
+    private static List<String> readPlayers(BsonReader reader) {
+        List<String> players = new ArrayList<>();
+        if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String player = MongoCodecs.readString(reader);
+                if (player != null) {
+                    players.add(player);
+                }
+            }
+            reader.readEndArray();
+        } else if (reader.getCurrentBsonType() == BsonType.STRING) {
+            for (String player : reader.readString().split(",")) {
+                players.add(player.trim());
+            }
+        } else {
+            reader.skipValue();
+        }
+        return players;
+    }
+
+    @Override
+    public Class<GameSession> getEncoderClass() {
+        return GameSession.class;
+    }
+
+    @Override
+    public GameSession generateIdIfAbsentFromDocument(GameSession session) {
+        if (session.getId() == null) {
+            session.setId(new ObjectId().toHexString());
+        }
+        return session;
+    }
+
+    @Override
+    public boolean documentHasId(GameSession session) {
+        return session.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(GameSession session) {
+        return ObjectId.isValid(session.getId()) ? new BsonObjectId(new ObjectId(session.getId())) : new BsonString(session.getId());
+    }
+}
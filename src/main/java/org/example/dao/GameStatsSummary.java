@@ -0,0 +1,68 @@
+package org.example.dao;
+
+import org.example.GameSession;
+import org.example.PlayerStats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Сводка побед и партий по одной игре, посчитанная на стороне хранилища.
+// Даты незавершённых сессий нужны, чтобы потом учесть их массовое завершение.
+public class GameStatsSummary {
+    private final String gameId;
+    private final String gameName;
+    private final int totalSessions;
+    private final int completedSessions;
+    private final List<PlayerStats> players;
+    private final List<LocalDateTime> inProgressDates;
+
+    public GameStatsSummary(String gameId, String gameName, int totalSessions, int completedSessions,
+                            List<PlayerStats> players, List<LocalDateTime> inProgressDates) {
+        this.gameId = gameId;
+        this.gameName = gameName;
+        this.totalSessions = totalSessions;
+        this.completedSessions = completedSessions;
+        this.players = players;
+        this.inProgressDates = inProgressDates;
+    }
+
+    // Подсчёт в памяти для хранилищ без собственного движка агрегации
+    public static GameStatsSummary of(String gameId, Collection<GameSession> sessions) {
+        String gameName = null;
+        int completed = 0;
+        Map<String, PlayerStats> players = new LinkedHashMap<>();
+        List<LocalDateTime> inProgressDates = new ArrayList<>();
+        for (GameSession session : sessions) {
+            if (gameName == null) {
+                gameName = session.getGameName();
+            }
+            if (session.getStatus() == GameSession.GameStatus.PLAYED) {
+                completed++;
+            } else {
+                inProgressDates.add(session.getDateTime());
+            }
+
+            String winner = session.getWinner();
+            List<String> sessionPlayers = session.getPlayers() != null ? session.getPlayers() : List.of();
+            for (String player : sessionPlayers) {
+                players.computeIfAbsent(player, PlayerStats::new).recordGame(player.equals(winner));
+            }
+            if (winner != null && !sessionPlayers.contains(winner)) {
+                players.computeIfAbsent(winner, PlayerStats::new).recordWin();
+            }
+        }
+        return new GameStatsSummary(gameId, gameName, sessions.size(), completed,
+                new ArrayList<>(players.values()), inProgressDates);
+    }
+
+    public String getGameId() { return gameId; }
+    public String getGameName() { return gameName; }
+    public int getTotalSessions() { return totalSessions; }
+    public int getCompletedSessions() { return completedSessions; }
+    public List<PlayerStats> getPlayers() { return players; }
+    public List<LocalDateTime> getInProgressDates() { return inProgressDates; }
+}
@@ -0,0 +1,104 @@
+package org.example.dao;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+
+// Реестр кодеков Mongo для доменных классов и общие для них преобразования BSON.
+// Даты хранятся как BSON date, а LocalDateTime трактуется в часовом поясе сервера бота,
+// как и раньше при ручном преобразовании через Date.
+public final class MongoCodecs {
+
+    private MongoCodecs() {
+    }
+
+    public static CodecRegistry registry() {
+        return registry(ZoneId.systemDefault());
+    }
+
+    public static CodecRegistry registry(ZoneId zone) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new BoardGameCodec(), new GameSessionCodec(zone)),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    // id из Mongo — 24 шестнадцатеричных символа ObjectId; остальные id хранятся строкой
+    static void writeId(BsonWriter writer, String id) {
+        if (ObjectId.isValid(id)) {
+            writer.writeObjectId("_id", new ObjectId(id));
+        } else {
+            writer.writeString("_id", id);
+        }
+    }
+
+    static String readId(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                ? reader.readObjectId().toHexString()
+                : readString(reader);
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static int readInt(BsonReader reader, int defaultValue) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return defaultValue;
+        }
+    }
+
+    static void writeStringOrNull(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        } else {
+            writer.writeNull(name);
+        }
+    }
+
+    // Перевод без промежуточных Instant/Date, если у пояса постоянное смещение (например, UTC)
+    static final class DateConverter {
+        private final ZoneRules rules;
+        private final ZoneOffset fixedOffset;
+
+        DateConverter(ZoneId zone) {
+            this.rules = zone.getRules();
+            this.fixedOffset = rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) : null;
+        }
+
+        long toEpochMillis(LocalDateTime dateTime) {
+            ZoneOffset offset = fixedOffset != null ? fixedOffset : rules.getOffset(dateTime);
+            return dateTime.toEpochSecond(offset) * 1000 + dateTime.getNano() / 1_000_000;
+        }
+
+        LocalDateTime fromEpochMillis(long millis) {
+            long seconds = Math.floorDiv(millis, 1000);
+            int nanos = Math.floorMod(millis, 1000) * 1_000_000;
+            ZoneOffset offset = fixedOffset != null
+                    ? fixedOffset
+                    : rules.getOffset(Instant.ofEpochSecond(seconds));
+            return LocalDateTime.ofEpochSecond(seconds, nanos, offset);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Словарь строк: каждое имя хранится один раз, в записях — его номер. У бинарного хранилища
+// словарь лежит в файле, который только дописывается (длина + UTF-8); недописанное последнее имя
+// после сбоя отбрасывается. Без файла словарь живёт только в памяти.
+class NameDictionary implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(NameDictionary.class);
+    // Номер для null
+    static final int NONE = -1;
+
+    private final File file;
+    private final FileChannel channel;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    // Имена до этого номера уже лежат на диске
+    private int persisted;
+
+    NameDictionary() {
+        this.file = null;
+        this.channel = null;
+    }
+
+    NameDictionary(File file) {
+        this.file = file;
+        try {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть словарь " + file, e);
+        }
+    }
+
+    private void load() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        while (bytes.remaining() >= Integer.BYTES) {
+            int length = bytes.getInt(bytes.position());
+            if (length < 0 || length > bytes.remaining() - Integer.BYTES) {
+                break;
+            }
+            bytes.position(bytes.position() + Integer.BYTES);
+            String name = new String(bytes.array(), bytes.position(), length, StandardCharsets.UTF_8);
+            bytes.position(bytes.position() + length);
+            ids.put(name, names.size());
+            names.add(name);
+        }
+        if (bytes.position() < channel.size()) {
+            channel.truncate(bytes.position());
+            channel.force(true);
+        }
+        channel.position(bytes.position());
+        persisted = names.size();
+    }
+
+    // Номер имени; новое имя попадает на диск при следующем flush
+    int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    // Номер уже известного имени или NONE; словарь не меняется
+    int find(String name) {
+        Integer id = name != null ? ids.get(name) : null;
+        return id != null ? id : NONE;
+    }
+
+    // Возвращает тот же экземпляр строки для всех записей с этим номером
+    String get(int id) {
+        return id == NONE ? null : names.get(id);
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    // Дописывает новые имена одним write и force. Вызывается до записи ссылающихся на них сессий,
+    // при ошибке новые имена забываются, чтобы номера в памяти не разошлись с файлом
+    void flush() {
+        if (channel == null || persisted == names.size()) {
+            persisted = names.size();
+            return;
+        }
+        List<String> pending = names.subList(persisted, names.size());
+        long start = -1;
+        try {
+            start = channel.position();
+            List<byte[]> encoded = new ArrayList<>(pending.size());
+            int total = 0;
+            for (String name : pending) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                total += Integer.BYTES + bytes.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(total);
+            for (byte[] bytes : encoded) {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            persisted = names.size();
+        } catch (IOException e) {
+            pending.forEach(ids::remove);
+            pending.clear();
+            truncateTo(start);
+            throw new UncheckedIOException("Не удалось записать словарь " + file, e);
+        }
+    }
+
+    // Отрезает частично записанный хвост; не вышло — его всё равно отбросит следующая загрузка
+    private void truncateTo(long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            log.warn("Не удалось отрезать недописанный хвост словаря {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть словарь {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.dao;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Журнал событий сессий (append-only, одна JSON-строка на событие).
+// Незавершённая последняя строка после сбоя отбрасывается при чтении;
+// повреждённая строка в середине пропускается, события после неё применяются.
+class SessionJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SessionJournal.class);
+
+    enum EventType {
+        ADDED, STATUS_CHANGED, MARKED_PLAYED_BEFORE
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Event {
+        private final EventType type;
+        private final GameSession session;
+        private final String sessionId;
+        private final GameSession.GameStatus status;
+        private final LocalDateTime cutoff;
+
+        @JsonCreator
+        Event(@JsonProperty("type") EventType type,
+              @JsonProperty("session") GameSession session,
+              @JsonProperty("sessionId") String sessionId,
+              @JsonProperty("status") GameSession.GameStatus status,
+              @JsonProperty("cutoff") LocalDateTime cutoff) {
+            this.type = type;
+            this.session = session;
+            this.sessionId = sessionId;
+            this.status = status;
+            this.cutoff = cutoff;
+        }
+
+        static Event added(GameSession session) {
+            return new Event(EventType.ADDED, session, null, null, null);
+        }
+
+        static Event statusChanged(String sessionId, GameSession.GameStatus status) {
+            return new Event(EventType.STATUS_CHANGED, null, sessionId, status, null);
+        }
+
+        static Event markedPlayedBefore(LocalDateTime cutoff) {
+            return new Event(EventType.MARKED_PLAYED_BEFORE, null, null, null, cutoff);
+        }
+
+        public EventType getType() { return type; }
+        public GameSession getSession() { return session; }
+        public String getSessionId() { return sessionId; }
+        public GameSession.GameStatus getStatus() { return status; }
+        public LocalDateTime getCutoff() { return cutoff; }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final File file;
+    private FileChannel channel;
+    private int size;
+
+    SessionJournal(ObjectMapper objectMapper, File file) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+    }
+
+    // Читает все целые записи журнала и обрезает файл по последнему переводу строки
+    List<Event> replay() {
+        List<Event> events = new ArrayList<>();
+        try {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int lineStart = 0;
+            int line = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                line++;
+                try {
+                    events.add(objectMapper.readValue(bytes, lineStart, i - lineStart, Event.class));
+                } catch (IOException e) {
+                    // Записи пишутся целыми строками, так что следующие строки от этой не зависят
+                    log.warn("Пропущена повреждённая строка {} журнала {}", line, file, e);
+                }
+                lineStart = i + 1;
+            }
+            int validLength = lineStart;
+
+            if (validLength < bytes.length) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            size = events.size();
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал " + file, e);
+        }
+    }
+
+    void append(Event event) {
+        appendAll(Collections.singletonList(event));
+    }
+
+    // Пакет событий пишется одним вызовом write и одним force
+    void appendAll(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (Event event : events) {
+                objectMapper.writeValue(bytes, event);
+                bytes.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            size += events.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать событие в журнал " + file, e);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Вызывается после того, как снапшот атомарно записан на диск
+    void reset() {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            size = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось очистить журнал " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть журнал {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.dao;
+
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Страница истории сессий (новые первыми) и курсор для продолжения
+public class SessionPage {
+
+    // Позиция в истории: (dateTime, id) последней выданной сессии.
+    // В строковом виде достаточно короткий, чтобы поместиться в callback_data Telegram.
+    public static final class Cursor {
+        private final LocalDateTime dateTime;
+        private final String id;
+
+        public Cursor(LocalDateTime dateTime, String id) {
+            this.dateTime = dateTime;
+            this.id = id;
+        }
+
+        public static Cursor after(GameSession session) {
+            return new Cursor(session.getDateTime(), session.getId());
+        }
+
+        public static Cursor parse(String value) {
+            String[] parts = value.split("\\.", 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Неверный курсор: " + value);
+            }
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(
+                    Long.parseLong(parts[0], Character.MAX_RADIX),
+                    Integer.parseInt(parts[1], Character.MAX_RADIX),
+                    ZoneOffset.UTC);
+            return new Cursor(dateTime, parts[2]);
+        }
+
+        // Сессия идёт после курсора в порядке "новые первыми", id сравниваются как строки
+        public boolean isAfter(GameSession session) {
+            int byTime = session.getDateTime().compareTo(dateTime);
+            return byTime < 0 || byTime == 0 && session.getId().compareTo(id) < 0;
+        }
+
+        public LocalDateTime getDateTime() { return dateTime; }
+        public String getId() { return id; }
+
+        @Override
+        public String toString() {
+            return Long.toString(dateTime.toEpochSecond(ZoneOffset.UTC), Character.MAX_RADIX) + "." +
+                    Integer.toString(dateTime.getNano(), Character.MAX_RADIX) + "." + id;
+        }
+    }
+
+    private final List<GameSession> sessions;
+    private final String nextCursor;
+
+    public SessionPage(List<GameSession> sessions, String nextCursor) {
+        this.sessions = sessions;
+        this.nextCursor = nextCursor;
+    }
+
+    // Вызывается хранилищем до чтения: страница из нуля сессий не даёт курсора для продолжения
+    public static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+    }
+
+    // limit + 1 сессий, прочитанных из хранилища, превращаются в страницу из limit штук
+    public static SessionPage of(List<GameSession> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new SessionPage(fetched, null);
+        }
+        List<GameSession> page = new ArrayList<>(fetched.subList(0, limit));
+        return new SessionPage(page, Cursor.after(page.get(limit - 1)).toString());
+    }
+
+    public List<GameSession> getSessions() { return sessions; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,102 @@
+package org.example.dao;
+
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+
+// Условия выборки сессий для BoardGameDao.findSessions: диапазон дат, игра, статус, игрок, курсор и лимит.
+// Неизменяемый: каждый метод возвращает новый запрос. Хранилище само выбирает, по какому
+// индексу идти, и проверяет остальные условия за один проход, останавливаясь на limit.
+public final class SessionQuery {
+    private static final SessionQuery ALL = new SessionQuery(null, null, null, null, null, null, 0);
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String gameId;
+    private final GameSession.GameStatus status;
+    private final String player;
+    private final SessionPage.Cursor after;
+    private final int limit;
+
+    private SessionQuery(LocalDateTime from, LocalDateTime to, String gameId, GameSession.GameStatus status,
+                         String player, SessionPage.Cursor after, int limit) {
+        this.from = from;
+        this.to = to;
+        this.gameId = gameId;
+        this.status = status;
+        this.player = player;
+        this.after = after;
+        this.limit = limit;
+    }
+
+    public static SessionQuery all() {
+        return ALL;
+    }
+
+    // from — включительно, to — не включительно, null — граница не задана
+    public SessionQuery between(LocalDateTime from, LocalDateTime to) {
+        return new SessionQuery(from, to, gameId, status, player, after, limit);
+    }
+
+    public SessionQuery game(String gameId) {
+        return new SessionQuery(from, to, gameId, status, player, after, limit);
+    }
+
+    public SessionQuery status(GameSession.GameStatus status) {
+        return new SessionQuery(from, to, gameId, status, player, after, limit);
+    }
+
+    // Игрок среди участников сессии, имя сравнивается точно
+    public SessionQuery player(String player) {
+        return new SessionQuery(from, to, gameId, status, player, after, limit);
+    }
+
+    // Только сессии строго старше курсора из SessionPage, null — с самых новых
+    public SessionQuery after(String cursor) {
+        return new SessionQuery(from, to, gameId, status, player,
+                cursor != null ? SessionPage.Cursor.parse(cursor) : null, limit);
+    }
+
+    // limit <= 0 — без ограничения
+    public SessionQuery limit(int limit) {
+        return new SessionQuery(from, to, gameId, status, player, after, limit);
+    }
+
+    public LocalDateTime getFrom() { return from; }
+    public LocalDateTime getTo() { return to; }
+    public String getGameId() { return gameId; }
+    public GameSession.GameStatus getStatus() { return status; }
+    public String getPlayer() { return player; }
+    public SessionPage.Cursor getAfter() { return after; }
+    public int getLimit() { return limit; }
+
+    public boolean hasLimit() {
+        return limit > 0;
+    }
+
+    // Все условия разом, для хранилищ, которые проверяют готовые объекты
+    public boolean matches(GameSession session) {
+        if (from != null && session.getDateTime().isBefore(from)) {
+            return false;
+        }
+        if (to != null && !session.getDateTime().isBefore(to)) {
+            return false;
+        }
+        if (after != null && !after.isAfter(session)) {
+            return false;
+        }
+        if (gameId != null && !gameId.equals(session.getGameId())) {
+            return false;
+        }
+        if (status != null && session.getStatus() != status) {
+            return false;
+        }
+        return player == null || session.getPlayers() != null && session.getPlayers().contains(player);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionQuery{from=" + from + ", to=" + to + ", gameId=" + gameId + ", status=" + status
+                 + ", player=" + player + ", after=" + after + ", limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,288 @@
+package org.example.dao;
+
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Замеряет каждый метод обёрнутого хранилища: время, число прочитанных или записанных
+// сессий и игр, число ошибок. Метрики заводятся в конструкторе, сам вызов ничего не выделяет.
+public class TimedBoardGameDao implements BoardGameDao {
+
+    private static final class Method {
+        private final LatencyHistogram time;
+        private final LongAdder rows;
+        private final LongAdder errors;
+
+        Method(MetricsRegistry registry, String storage, String name) {
+            time = registry.histogram("boardgame_dao_seconds", "Время вызова метода хранилища",
+                    "storage", storage, "method", name);
+            rows = registry.counter("boardgame_dao_rows_total", "Игры и сессии, прочитанные или записанные хранилищем",
+                    "storage", storage, "method", name);
+            errors = registry.counter("boardgame_dao_errors_total", "Вызовы хранилища, завершившиеся исключением",
+                    "storage", storage, "method", name);
+        }
+    }
+
+    private final BoardGameDao delegate;
+    private final Method getAllGames;
+    private final Method getGameHistory;
+    private final Method getSessionsBetween;
+    private final Method getSessionsByGame;
+    private final Method getGameStatistics;
+    private final Method getRecentSessions;
+    private final Method streamGameHistory;
+    private final Method streamGameHistoryOldestFirst;
+    private final Method findSessions;
+    private final Method addGame;
+    private final Method addGameSession;
+    private final Method addGames;
+    private final Method addGameSessions;
+    private final Method updateGameSessionStatus;
+    private final Method markPlayedBefore;
+
+    public TimedBoardGameDao(BoardGameDao delegate, MetricsRegistry registry, String storage) {
+        this.delegate = delegate;
+        getAllGames = new Method(registry, storage, "getAllGames");
+        getGameHistory = new Method(registry, storage, "getGameHistory");
+        getSessionsBetween = new Method(registry, storage, "getSessionsBetween");
+        getSessionsByGame = new Method(registry, storage, "getSessionsByGame");
+        getGameStatistics = new Method(registry, storage, "getGameStatistics");
+        getRecentSessions = new Method(registry, storage, "getRecentSessions");
+        streamGameHistory = new Method(registry, storage, "streamGameHistory");
+        streamGameHistoryOldestFirst = new Method(registry, storage, "streamGameHistoryOldestFirst");
+        findSessions = new Method(registry, storage, "findSessions");
+        addGame = new Method(registry, storage, "addGame");
+        addGameSession = new Method(registry, storage, "addGameSession");
+        addGames = new Method(registry, storage, "addGames");
+        addGameSessions = new Method(registry, storage, "addGameSessions");
+        updateGameSessionStatus = new Method(registry, storage, "updateGameSessionStatus");
+        markPlayedBefore = new Method(registry, storage, "markPlayedBefore");
+    }
+
+    @Override
+    public List<BoardGame> getAllGames() {
+        long start = System.nanoTime();
+        try {
+            List<BoardGame> games = delegate.getAllGames();
+            getAllGames.rows.add(games.size());
+            return games;
+        } catch (RuntimeException e) {
+            getAllGames.errors.increment();
+            throw e;
+        } finally {
+            getAllGames.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<GameSession> getGameHistory() {
+        long start = System.nanoTime();
+        try {
+            List<GameSession> sessions = delegate.getGameHistory();
+            getGameHistory.rows.add(sessions.size());
+            return sessions;
+        } catch (RuntimeException e) {
+            getGameHistory.errors.increment();
+            throw e;
+        } finally {
+            getGameHistory.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<GameSession> getSessionsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<GameSession> sessions = delegate.getSessionsBetween(from, to, limit);
+            getSessionsBetween.rows.add(sessions.size());
+            return sessions;
+        } catch (RuntimeException e) {
+            getSessionsBetween.errors.increment();
+            throw e;
+        } finally {
+            getSessionsBetween.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<GameSession> getSessionsByGame(String gameId, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<GameSession> sessions = delegate.getSessionsByGame(gameId, limit);
+            getSessionsByGame.rows.add(sessions.size());
+            return sessions;
+        } catch (RuntimeException e) {
+            getSessionsByGame.errors.increment();
+            throw e;
+        } finally {
+            getSessionsByGame.time.recordSince(start);
+        }
+    }
+
+    // Строки — сессии, вошедшие в сводку
+    @Override
+    public GameStatsSummary getGameStatistics(String gameId) {
+        long start = System.nanoTime();
+        try {
+            GameStatsSummary summary = delegate.getGameStatistics(gameId);
+            getGameStatistics.rows.add(summary.getTotalSessions());
+            return summary;
+        } catch (RuntimeException e) {
+            getGameStatistics.errors.increment();
+            throw e;
+        } finally {
+            getGameStatistics.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public SessionPage getRecentSessions(int limit, String afterCursor) {
+        long start = System.nanoTime();
+        try {
+            SessionPage page = delegate.getRecentSessions(limit, afterCursor);
+            getRecentSessions.rows.add(page.getSessions().size());
+            return page;
+        } catch (RuntimeException e) {
+            getRecentSessions.errors.increment();
+            throw e;
+        } finally {
+            getRecentSessions.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistory() {
+        return timed(streamGameHistory, delegate::streamGameHistory);
+    }
+
+    @Override
+    public Stream<GameSession> streamGameHistoryOldestFirst() {
+        return timed(streamGameHistoryOldestFirst, delegate::streamGameHistoryOldestFirst);
+    }
+
+    // Поток ленивый: время считается от открытия до закрытия, строки — по мере чтения
+    private static Stream<GameSession> timed(Method method, Supplier<Stream<GameSession>> open) {
+        long start = System.nanoTime();
+        try {
+            return open.get()
+                    .peek(session -> method.rows.increment())
+                    .onClose(() -> method.time.recordSince(start));
+        } catch (RuntimeException e) {
+            method.errors.increment();
+            method.time.recordSince(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<GameSession> findSessions(SessionQuery query) {
+        long start = System.nanoTime();
+        try {
+            List<GameSession> sessions = delegate.findSessions(query);
+            findSessions.rows.add(sessions.size());
+            return sessions;
+        } catch (RuntimeException e) {
+            findSessions.errors.increment();
+            throw e;
+        } finally {
+            findSessions.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void addGame(BoardGame game) {
+        long start = System.nanoTime();
+        try {
+            delegate.addGame(game);
+            addGame.rows.increment();
+        } catch (RuntimeException e) {
+            addGame.errors.increment();
+            throw e;
+        } finally {
+            addGame.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void addGameSession(GameSession session) {
+        long start = System.nanoTime();
+        try {
+            delegate.addGameSession(session);
+            addGameSession.rows.increment();
+        } catch (RuntimeException e) {
+            addGameSession.errors.increment();
+            throw e;
+        } finally {
+            addGameSession.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void addGames(List<BoardGame> games) {
+        long start = System.nanoTime();
+        try {
+            delegate.addGames(games);
+            addGames.rows.add(games.size());
+        } catch (RuntimeException e) {
+            addGames.errors.increment();
+            throw e;
+        } finally {
+            addGames.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void addGameSessions(List<GameSession> sessions) {
+        long start = System.nanoTime();
+        try {
+            delegate.addGameSessions(sessions);
+            addGameSessions.rows.add(sessions.size());
+        } catch (RuntimeException e) {
+            addGameSessions.errors.increment();
+            throw e;
+        } finally {
+            addGameSessions.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void updateGameSessionStatus(GameSession session) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateGameSessionStatus(session);
+            updateGameSessionStatus.rows.increment();
+        } catch (RuntimeException e) {
+            updateGameSessionStatus.errors.increment();
+            throw e;
+        } finally {
+            updateGameSessionStatus.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public int markPlayedBefore(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        try {
+            int updated = delegate.markPlayedBefore(cutoff);
+            markPlayedBefore.rows.add(updated);
+            return updated;
+        } catch (RuntimeException e) {
+            markPlayedBefore.errors.increment();
+            throw e;
+        } finally {
+            markPlayedBefore.time.recordSince(start);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
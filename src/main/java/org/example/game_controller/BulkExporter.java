@@ -0,0 +1,153 @@
+package org.example.game_controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.example.dao.BoardGameDao;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Выгрузка коллекции и истории в CSV или JSON с теми же колонками, что понимает BulkImporter.
+// Сессии пишутся по мере чтения из хранилища, вся история в памяти не собирается.
+public class BulkExporter {
+    private final BoardGameDao boardGameDao;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public BulkExporter(BoardGameDao boardGameDao) {
+        this.boardGameDao = boardGameDao;
+    }
+
+    // Возвращает число выгруженных игр; out закрывает вызывающий код
+    public long exportGames(Writer out, TransferFormat format) throws IOException {
+        List<BoardGame> games = boardGameDao.getAllGames();
+        try (RowWriter writer = open(out, format, BulkImporter.GAME_COLUMNS)) {
+            for (BoardGame game : games) {
+                writer.write(game.getName(), game.getDescription(), game.getCategory(),
+                        game.getMinPlayers(), game.getMaxPlayers(), game.getAverageTime());
+            }
+        }
+        return games.size();
+    }
+
+    // Возвращает число выгруженных сессий, новые первыми; out закрывает вызывающий код
+    public long exportSessions(Writer out, TransferFormat format) throws IOException {
+        long count = 0;
+        try (Stream<GameSession> history = boardGameDao.streamGameHistory();
+             RowWriter writer = open(out, format, BulkImporter.SESSION_COLUMNS)) {
+            Iterator<GameSession> sessions = history.iterator();
+            while (sessions.hasNext()) {
+                GameSession session = sessions.next();
+                writer.write(session.getGameName(), session.getDateTime(), session.getPlayers(),
+                        session.getWinner(), session.getStatus());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private RowWriter open(Writer out, TransferFormat format, List<String> columns) throws IOException {
+        return format == TransferFormat.CSV ? new CsvRowWriter(out, columns) : new JsonRowWriter(jsonFactory, out, columns);
+    }
+
+    // Значения передаются в порядке колонок; числа пишутся числами, списки — списками
+    private interface RowWriter extends AutoCloseable {
+        void write(Object... values) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(Writer out, List<String> columns) throws IOException {
+            this.out = out;
+            write(columns.toArray());
+        }
+
+        @Override
+        public void write(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = values[i];
+                if (value instanceof List) {
+                    StringBuilder items = new StringBuilder();
+                    for (Object item : (List<?>) value) {
+                        items.append(items.length() > 0 ? "," : "").append(item);
+                    }
+                    writeField(items.toString());
+                } else if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            out.write('\n');
+        }
+
+        // В кавычки берутся только поля с разделителями, кавычками и переводами строк
+        private void writeField(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r') {
+                    out.write('"');
+                    out.write(value.replace("\"", "\"\""));
+                    out.write('"');
+                    return;
+                }
+            }
+            out.write(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class JsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final List<String> columns;
+
+        JsonRowWriter(JsonFactory jsonFactory, Writer out, List<String> columns) throws IOException {
+            this.generator = jsonFactory.createGenerator(out).useDefaultPrettyPrinter();
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.columns = columns;
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void write(Object... values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                generator.writeFieldName(columns.get(i));
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Integer) {
+                    generator.writeNumber((Integer) value);
+                } else if (value instanceof List) {
+                    generator.writeStartArray();
+                    for (Object item : (List<?>) value) {
+                        generator.writeString(item.toString());
+                    }
+                    generator.writeEndArray();
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+}
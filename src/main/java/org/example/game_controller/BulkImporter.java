@@ -0,0 +1,396 @@
+package org.example.game_controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.BoardGame;
+import org.example.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Пакетный импорт игр и сессий из CSV или JSON. Файл читается потоково, по одной строке;
+// проверенные строки копятся в пакет, и каждый пакет пишется в хранилище одной операцией.
+// Ошибочная строка не прерывает импорт, а попадает в отчёт.
+public class BulkImporter {
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+    static final int BATCH_SIZE = 5000;
+
+    // Колонки CSV и поля JSON; в том же виде их пишет BulkExporter
+    static final List<String> GAME_COLUMNS =
+            List.of("name", "description", "category", "minPlayers", "maxPlayers", "averageTime");
+    static final List<String> SESSION_COLUMNS =
+            List.of("gameName", "dateTime", "players", "winner", "status");
+    private static final List<String> REQUIRED_GAME_COLUMNS =
+            List.of("name", "minPlayers", "maxPlayers", "averageTime");
+    private static final List<String> REQUIRED_SESSION_COLUMNS =
+            List.of("gameName", "dateTime", "players", "winner");
+
+    // Строка входного файла: значения по имени колонки или поля, пустые значения — null
+    private interface Row {
+        String get(String column);
+        List<String> getList(String column);
+        LocalDateTime getDateTime(String column);
+    }
+
+    private interface RowSource extends Closeable {
+        // null — строки закончились
+        Row next() throws IOException;
+        // Где в файле последняя прочитанная строка — для отчёта об ошибках
+        String position();
+    }
+
+    private final GameCatalog catalog;
+    private final GameSessionManager sessionManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public BulkImporter(GameCatalog catalog, GameSessionManager sessionManager) {
+        this.catalog = catalog;
+        this.sessionManager = sessionManager;
+    }
+
+    public ImportReport importGames(Path file) throws IOException {
+        return importGames(Files.newBufferedReader(file, StandardCharsets.UTF_8), formatOf(file));
+    }
+
+    public ImportReport importSessions(Path file) throws IOException {
+        return importSessions(Files.newBufferedReader(file, StandardCharsets.UTF_8), formatOf(file));
+    }
+
+    // Игры с названием, которое уже есть в коллекции или выше в файле, отклоняются
+    public ImportReport importGames(Reader in, TransferFormat format) throws IOException {
+        GameCatalog.Snapshot existing = catalog.snapshot();
+        Set<String> seen = new HashSet<>();
+        return importRows(open(in, format, GAME_COLUMNS, REQUIRED_GAME_COLUMNS), row -> {
+            BoardGame game = parseGame(row);
+            if (existing.findByName(game.getName()) != null || !seen.add(NameNormalizer.normalize(game.getName()))) {
+                throw new IllegalArgumentException("Игра «" + game.getName() + "» уже есть в коллекции");
+            }
+            return game;
+        }, catalog::addGames);
+    }
+
+    // Игра сессии ищется по названию в текущем каталоге; id сессиям назначает хранилище
+    public ImportReport importSessions(Reader in, TransferFormat format) throws IOException {
+        GameCatalog.Snapshot games = catalog.snapshot();
+        Map<String, BoardGame> gamesByName = new HashMap<>();
+        return importRows(open(in, format, SESSION_COLUMNS, REQUIRED_SESSION_COLUMNS),
+                row -> parseSession(row, gameName -> gamesByName.computeIfAbsent(gameName, games::findByName)),
+                sessionManager::addSessions);
+    }
+
+    private <T> ImportReport importRows(RowSource rows, Function<Row, T> parser, Consumer<List<T>> writer) throws IOException {
+        ImportReport report = new ImportReport();
+        List<T> batch = new ArrayList<>();
+        String batchStart = null;
+        try (rows) {
+            while (true) {
+                Row row;
+                try {
+                    row = rows.next();
+                } catch (JsonProcessingException e) {
+                    report.recordFailed(rows.position(), "Файл повреждён, импорт остановлен: " + e.getOriginalMessage(), 0);
+                    break;
+                }
+                if (row == null) {
+                    break;
+                }
+
+                try {
+                    T value = parser.apply(row);
+                    if (batch.isEmpty()) {
+                        batchStart = rows.position();
+                    }
+                    batch.add(value);
+                } catch (IllegalArgumentException e) {
+                    report.recordFailed(rows.position(), e.getMessage(), 1);
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    write(batch, batchStart, writer, report);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        write(batch, batchStart, writer, report);
+        return report;
+    }
+
+    private static <T> void write(List<T> batch, String batchStart, Consumer<List<T>> writer, ImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writer.accept(batch);
+            report.recordImported(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Пакет из {} строк, начиная с {}, не записан в хранилище", batch.size(), batchStart, e);
+            report.recordFailed("пакет из " + batch.size() + " строк, начиная с " + batchStart,
+                    "Не записан в хранилище: " + e.getMessage(), batch.size());
+        }
+    }
+
+    private static BoardGame parseGame(Row row) {
+        String name = required(row, "name");
+        int minPlayers = parseInt(row, "minPlayers");
+        int maxPlayers = parseInt(row, "maxPlayers");
+        int averageTime = parseInt(row, "averageTime");
+        GameManager.validateGameParameters(name, minPlayers, maxPlayers, averageTime);
+
+        return new BoardGame(
+                null,
+                name,
+                Objects.toString(row.get("description"), ""),
+                Objects.toString(row.get("category"), ""),
+                minPlayers,
+                maxPlayers,
+                averageTime
+        );
+    }
+
+    private static GameSession parseSession(Row row, Function<String, BoardGame> findGame) {
+        String gameName = required(row, "gameName");
+        List<String> players = row.getList("players");
+        String winner = row.get("winner");
+        GameSessionManager.validateSessionParameters(gameName, winner, players);
+
+        BoardGame game = findGame.apply(gameName);
+        if (game == null) {
+            throw new IllegalArgumentException("Игра «" + gameName + "» не найдена в коллекции");
+        }
+        LocalDateTime dateTime = row.getDateTime("dateTime");
+        if (dateTime == null) {
+            throw new IllegalArgumentException("Не заполнено поле dateTime");
+        }
+
+        return new GameSession(
+                null,
+                game.getId(),
+                game.getName(),
+                dateTime,
+                players,
+                winner,
+                parseStatus(row.get("status"))
+        );
+    }
+
+    private static String required(Row row, String column) {
+        String value = row.get(column);
+        if (value == null) {
+            throw new IllegalArgumentException("Не заполнено поле " + column);
+        }
+        return value;
+    }
+
+    private static int parseInt(Row row, String column) {
+        String value = required(row, column);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Поле " + column + ": ожидается целое число, получено «" + value + "»");
+        }
+    }
+
+    // Импортируется история, поэтому без статуса сессия считается сыгранной
+    private static GameSession.GameStatus parseStatus(String value) {
+        if (value == null) {
+            return GameSession.GameStatus.PLAYED;
+        }
+        try {
+            return GameSession.GameStatus.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный статус «" + value + "», допустимы: "
+                    + Arrays.toString(GameSession.GameStatus.values()));
+        }
+    }
+
+    // ГГГГ-ММ-ДД (начало дня) или ГГГГ-ММ-ДДTчч:мм[:сс[.нс]]
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Неверная дата «" + value + "», ожидается ГГГГ-ММ-ДД или ГГГГ-ММ-ДДTчч:мм");
+        }
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.isBlank()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static TransferFormat formatOf(Path file) {
+        TransferFormat format = TransferFormat.fromFileName(file.getFileName().toString());
+        if (format == null) {
+            throw new IllegalArgumentException("Поддерживаются файлы .csv и .json");
+        }
+        return format;
+    }
+
+    private RowSource open(Reader in, TransferFormat format, List<String> columns, List<String> required) throws IOException {
+        return format == TransferFormat.CSV ? new CsvRowSource(in, columns, required) : new JsonRowSource(objectMapper, in);
+    }
+
+    private static final class CsvRowSource implements RowSource {
+        private final CsvReader reader;
+        private final Map<String, Integer> header = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        CsvRowSource(Reader in, List<String> columns, List<String> required) throws IOException {
+            this.reader = new CsvReader(in);
+            List<String> names = reader.next();
+            if (names != null) {
+                for (int i = 0; i < names.size(); i++) {
+                    header.putIfAbsent(names.get(i).trim(), i);
+                }
+            }
+            // Без нужной колонки отклонялась бы каждая строка, поэтому сразу отказываемся от файла
+            for (String column : required) {
+                if (!header.containsKey(column)) {
+                    reader.close();
+                    throw new IllegalArgumentException("В первой строке CSV нет колонки " + column
+                            + ". Ожидаются колонки: " + String.join(",", columns));
+                }
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> values = reader.next();
+            if (values == null) {
+                return null;
+            }
+            return new Row() {
+                @Override
+                public String get(String column) {
+                    Integer index = header.get(column);
+                    if (index == null || index >= values.size()) {
+                        return null;
+                    }
+                    String value = values.get(index).trim();
+                    return value.isEmpty() ? null : value;
+                }
+
+                @Override
+                public List<String> getList(String column) {
+                    return splitList(get(column));
+                }
+
+                @Override
+                public LocalDateTime getDateTime(String column) {
+                    return parseDateTime(get(column));
+                }
+            };
+        }
+
+        @Override
+        public String position() {
+            return "строка " + reader.getRecordLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // Массив объектов верхнего уровня; в памяти одновременно только текущий объект
+    private static final class JsonRowSource implements RowSource {
+        private final JsonParser parser;
+        private long index;
+
+        JsonRowSource(ObjectMapper objectMapper, Reader in) throws IOException {
+            this.parser = objectMapper.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new IllegalArgumentException("JSON должен быть массивом объектов");
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            index++;
+            JsonNode node = parser.readValueAsTree();
+            return new Row() {
+                @Override
+                public String get(String column) {
+                    JsonNode value = node.get(column);
+                    if (value == null || value.isNull()) {
+                        return null;
+                    }
+                    if (value.isContainerNode()) {
+                        throw new IllegalArgumentException("Поле " + column + ": ожидается строка или число");
+                    }
+                    String text = value.asText().trim();
+                    return text.isEmpty() ? null : text;
+                }
+
+                @Override
+                public List<String> getList(String column) {
+                    JsonNode value = node.get(column);
+                    if (value == null || !value.isArray()) {
+                        return splitList(get(column));
+                    }
+                    List<String> items = new ArrayList<>(value.size());
+                    for (JsonNode item : value) {
+                        if (!item.asText().isBlank()) {
+                            items.add(item.asText().trim());
+                        }
+                    }
+                    return items;
+                }
+
+                // Кроме строки понимает массив [год, месяц, день, час, минута, секунда, нс] из sessions.json
+                @Override
+                public LocalDateTime getDateTime(String column) {
+                    JsonNode value = node.get(column);
+                    if (value == null || !value.isArray()) {
+                        return parseDateTime(get(column));
+                    }
+                    try {
+                        return LocalDateTime.of(value.path(0).asInt(), value.path(1).asInt(), value.path(2).asInt(),
+                                value.path(3).asInt(), value.path(4).asInt(), value.path(5).asInt(), value.path(6).asInt());
+                    } catch (DateTimeException e) {
+                        throw new IllegalArgumentException("Неверная дата " + value);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public String position() {
+            return "запись " + index;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
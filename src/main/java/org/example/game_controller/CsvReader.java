@@ -0,0 +1,146 @@
+package org.example.game_controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Потоковый разбор CSV (RFC 4180): кавычки, удвоенные кавычки и переводы строк внутри полей.
+// Разделитель — запятая или точка с запятой (так сохраняет русский Excel), выбирается по первой строке.
+class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Excel дописывает BOM в начало CSV в UTF-8
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char delimiter;
+    private long line = 1;
+    private long recordLine;
+    private final StringBuilder field = new StringBuilder();
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Следующая запись или null в конце файла; пустые строки пропускаются
+    List<String> next() throws IOException {
+        if (delimiter == 0 && !detectDelimiter()) {
+            return null;
+        }
+        while (true) {
+            if (!ensure()) {
+                return null;
+            }
+            char c = buffer[position];
+            if (c == '\r' || c == '\n') {
+                consumeLineBreak();
+                continue;
+            }
+            return readRecord();
+        }
+    }
+
+    // Номер строки файла, с которой началась последняя прочитанная запись
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    private List<String> readRecord() throws IOException {
+        recordLine = line;
+        List<String> values = new ArrayList<>();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        field.setLength(0);
+
+        while (ensure()) {
+            char c = buffer[position];
+            if (quoted) {
+                position++;
+                if (c == '"') {
+                    if (ensure() && buffer[position] == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                position++;
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                position++;
+                values.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n') {
+                consumeLineBreak();
+                break;
+            } else {
+                position++;
+                field.append(c);
+            }
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    private void consumeLineBreak() throws IOException {
+        if (buffer[position++] == '\r' && ensure() && buffer[position] == '\n') {
+            position++;
+        }
+        line++;
+    }
+
+    // Смотрит на первую строку в буфере: чего больше вне кавычек, то и разделитель
+    private boolean detectDelimiter() throws IOException {
+        if (!ensure()) {
+            return false;
+        }
+        if (buffer[position] == BYTE_ORDER_MARK) {
+            position++;
+        }
+        int commas = 0;
+        int semicolons = 0;
+        boolean quoted = false;
+        for (int i = position; i < limit && buffer[i] != '\n' && buffer[i] != '\r'; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == ',') {
+                commas++;
+            } else if (!quoted && c == ';') {
+                semicolons++;
+            }
+        }
+        delimiter = semicolons > commas ? ';' : ',';
+        return true;
+    }
+
+    private boolean ensure() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.game_controller;
+
+import org.example.BoardGame;
+import org.example.dao.BoardGameDao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Единый каталог игр для всех менеджеров. Читатели берут текущий неизменяемый снимок
+// без блокировок; запись собирает новый снимок и атомарно подменяет ссылку.
+public class GameCatalog {
+
+    public static final class Snapshot {
+        private final long version;
+        private final List<BoardGame> games;
+        private final GameLookupIndex lookupIndex;
+        private final PlayerCountIndex playerCountIndex;
+        private final GameSearchIndex searchIndex;
+
+        private Snapshot(long version, List<BoardGame> games, GameLookupIndex lookupIndex,
+                         PlayerCountIndex playerCountIndex, GameSearchIndex searchIndex) {
+            this.version = version;
+            this.games = games;
+            this.lookupIndex = lookupIndex;
+            this.playerCountIndex = playerCountIndex;
+            this.searchIndex = searchIndex;
+        }
+
+        public long getVersion() { return version; }
+        public List<BoardGame> getGames() { return games; }
+        public int size() { return games.size(); }
+        public PlayerCountIndex getPlayerCountIndex() { return playerCountIndex; }
+        public GameSearchIndex getSearchIndex() { return searchIndex; }
+
+        public BoardGame findByName(String name) {
+            return lookupIndex.findByName(name);
+        }
+
+        public List<BoardGame> findByCategory(String category) {
+            return lookupIndex.findByCategory(category);
+        }
+    }
+
+    private final BoardGameDao boardGameDao;
+    // Только для записи, которая ходит в хранилище; читатели снимка её не берут
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public GameCatalog(BoardGameDao boardGameDao) {
+        this.boardGameDao = boardGameDao;
+        reload();
+    }
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    // Полная перезагрузка из хранилища с перестройкой всех индексов
+    public void reload() {
+        writeLock.lock();
+        try {
+            List<BoardGame> games = Collections.unmodifiableList(new ArrayList<>(boardGameDao.getAllGames()));
+            Snapshot previous = current.get();
+            current.set(new Snapshot(previous != null ? previous.version + 1 : 1, games,
+                    new GameLookupIndex(games), new PlayerCountIndex(games), new GameSearchIndex(games)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void addGame(BoardGame game) {
+        writeLock.lock();
+        try {
+            boardGameDao.addGame(game);
+
+            Snapshot previous = current.get();
+            List<BoardGame> games = new ArrayList<>(previous.games.size() + 1);
+            games.addAll(previous.games);
+            games.add(game);
+            List<BoardGame> added = Collections.singletonList(game);
+            current.set(new Snapshot(previous.version + 1, Collections.unmodifiableList(games),
+                    previous.lookupIndex.with(game), previous.playerCountIndex.withAll(added),
+                    previous.searchIndex.withAll(added)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Пакет игр: одна запись в хранилище и одна новая версия каталога на весь пакет
+    public void addGames(List<BoardGame> batch) {
+        writeLock.lock();
+        try {
+            if (batch.isEmpty()) {
+                return;
+            }
+            boardGameDao.addGames(batch);
+
+            Snapshot previous = current.get();
+            List<BoardGame> games = new ArrayList<>(previous.games.size() + batch.size());
+            games.addAll(previous.games);
+            games.addAll(batch);
+            current.set(new Snapshot(previous.version + 1, Collections.unmodifiableList(games),
+                    previous.lookupIndex.withAll(batch), previous.playerCountIndex.withAll(batch),
+                    previous.searchIndex.withAll(batch)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
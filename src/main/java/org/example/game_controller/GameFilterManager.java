@@ -1,52 +1,80 @@
 package org.example.game_controller;
 
+import org.example.BoardGame;
 import org.example.GameSession;
 import org.example.dao.BoardGameDao;
+import org.example.dao.SessionPage;
+import org.example.dao.SessionQuery;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GameFilterManager {
-    private BoardGameDao boardGameDao;
-    private List<GameSession> gameHistory;
+    private final BoardGameDao boardGameDao;
+    private final GameCatalog catalog;
 
     public GameFilterManager(BoardGameDao boardGameDao) {
+        this(boardGameDao, new GameCatalog(boardGameDao));
+    }
+
+    public GameFilterManager(BoardGameDao boardGameDao, GameCatalog catalog) {
         this.boardGameDao = boardGameDao;
-        this.gameHistory = boardGameDao.getGameHistory();
+        this.catalog = catalog;
     }
 
     public List<GameSession> applyFilter(LocalDate fromDate, LocalDate toDate, String gameName, GameSession.GameStatus status) {
-        List<GameSession> filteredSessions = new ArrayList<>(gameHistory);
+        return applyFilter(fromDate, toDate, gameName, status, null, 0);
+    }
 
-        if (fromDate != null) {
-            filteredSessions = filteredSessions.stream()
-                    .filter(s -> !s.getDateTime().toLocalDate().isBefore(fromDate))
-                    .collect(Collectors.toList());
-        }
+    // Все условия собираются в один SessionQuery: хранилище само выбирает индекс и проверяет
+    // остальное за один проход, без промежуточных списков. null — условие не задано,
+    // limit <= 0 — без ограничения; новые сессии первыми
+    public List<GameSession> applyFilter(LocalDate fromDate, LocalDate toDate, String gameName,
+                                         GameSession.GameStatus status, String player, int limit) {
+        return find(fromDate, toDate, gameName, status, player, limit, null);
+    }
 
-        if (toDate != null) {
-            filteredSessions = filteredSessions.stream()
-                    .filter(s -> !s.getDateTime().toLocalDate().isAfter(toDate))
-                    .collect(Collectors.toList());
-        }
+    // Страница результата фильтра, как история в getRecentSessions: курсор (дата, id) последней
+    // показанной сессии, следующая страница читает только limit + 1 сессий старше него
+    public SessionPage applyFilterPage(LocalDate fromDate, LocalDate toDate, String gameName,
+                                       GameSession.GameStatus status, String player, int limit, String afterCursor) {
+        SessionPage.checkLimit(limit);
+        return SessionPage.of(find(fromDate, toDate, gameName, status, player, limit + 1, afterCursor), limit);
+    }
 
+    private List<GameSession> find(LocalDate fromDate, LocalDate toDate, String gameName,
+                                   GameSession.GameStatus status, String player, int limit, String afterCursor) {
+        SessionQuery query = SessionQuery.all()
+                .between(fromDate != null ? fromDate.atStartOfDay() : null,
+                        toDate != null ? toDate.plusDays(1).atStartOfDay() : null)
+                .status(status)
+                .player(player)
+                .after(afterCursor)
+                .limit(limit);
         if (gameName != null && !gameName.equals("Все игры")) {
-            filteredSessions = filteredSessions.stream()
-                    .filter(s -> s.getGameName().equals(gameName))
-                    .collect(Collectors.toList());
+            BoardGame game = catalog.snapshot().findByName(gameName);
+            if (game == null || game.getId() == null) {
+                return findByGameName(query, gameName, limit);
+            }
+            query = query.game(game.getId());
         }
+        return boardGameDao.findSessions(query);
+    }
 
-        if (status != null) {
-            filteredSessions = filteredSessions.stream()
-                    .filter(s -> s.getStatus() == status)
-                    .collect(Collectors.toList());
+    // Игры нет в каталоге, но её сессии могли остаться: они сравниваются по названию, как до
+    // SessionQuery. Хранилище отдаёт выборку без условия на игру, лимит применяется после сравнения
+    private List<GameSession> findByGameName(SessionQuery query, String gameName, int limit) {
+        String gameKey = NameNormalizer.normalize(gameName);
+        List<GameSession> result = new ArrayList<>();
+        for (GameSession session : boardGameDao.findSessions(query.limit(0))) {
+            if (session.getGameName() != null && NameNormalizer.normalize(session.getGameName()).equals(gameKey)) {
+                result.add(session);
+                if (limit > 0 && result.size() == limit) {
+                    break;
+                }
+            }
         }
-
-        filteredSessions.sort((s1, s2) -> s2.getDateTime().compareTo(s1.getDateTime()));
-
-        return filteredSessions;
+        return result;
     }
 }
-
@@ -0,0 +1,61 @@
+package org.example.game_controller;
+
+import org.example.BoardGame;
+
+import java.util.*;
+
+// Хеш-индексы игр по нормализованному названию и категории (см. NameNormalizer).
+// Неизменяемый: добавление игры возвращает новую копию, поэтому читать можно без блокировок.
+public class GameLookupIndex {
+    private final Map<String, BoardGame> byName;
+    private final Map<String, List<BoardGame>> byCategory;
+
+    public GameLookupIndex(List<BoardGame> games) {
+        this(new HashMap<>(), new HashMap<>());
+        games.forEach(this::put);
+    }
+
+    private GameLookupIndex(Map<String, BoardGame> byName, Map<String, List<BoardGame>> byCategory) {
+        this.byName = byName;
+        this.byCategory = byCategory;
+    }
+
+    public GameLookupIndex with(BoardGame game) {
+        return withAll(Collections.singletonList(game));
+    }
+
+    // Пакет игр добавляется за одно копирование карт, а не по копии на каждую игру
+    public GameLookupIndex withAll(List<BoardGame> games) {
+        Map<String, List<BoardGame>> categories = new HashMap<>(byCategory);
+        Set<String> copied = new HashSet<>();
+        for (BoardGame game : games) {
+            if (game.getCategory() != null) {
+                String category = NameNormalizer.normalize(game.getCategory());
+                // Копируются только списки тех категорий, в которые попали новые игры
+                if (copied.add(category)) {
+                    categories.computeIfPresent(category, (c, list) -> new ArrayList<>(list));
+                }
+            }
+        }
+        GameLookupIndex copy = new GameLookupIndex(new HashMap<>(byName), categories);
+        games.forEach(copy::put);
+        return copy;
+    }
+
+    private void put(BoardGame game) {
+        // При совпадении названий побеждает первая игра — как раньше при линейном поиске
+        byName.putIfAbsent(NameNormalizer.normalize(game.getName()), game);
+        if (game.getCategory() != null) {
+            byCategory.computeIfAbsent(NameNormalizer.normalize(game.getCategory()), c -> new ArrayList<>()).add(game);
+        }
+    }
+
+    public BoardGame findByName(String name) {
+        return byName.get(NameNormalizer.normalize(name));
+    }
+
+    public List<BoardGame> findByCategory(String category) {
+        List<BoardGame> games = byCategory.get(NameNormalizer.normalize(category));
+        return games == null ? new ArrayList<>() : new ArrayList<>(games);
+    }
+}
@@ -5,21 +5,23 @@ import org.example.GameSession;
 import org.example.dao.BoardGameDao;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GameManager {
-    private final BoardGameDao boardGameDao;
-    private List<BoardGame> allGames;
+    private final GameCatalog catalog;
 
     public GameManager(BoardGameDao boardGameDao) {
-        this.boardGameDao = boardGameDao;
-        refreshGames();
+        this(new GameCatalog(boardGameDao));
+    }
+
+    public GameManager(GameCatalog catalog) {
+        this.catalog = catalog;
     }
 
     public void refreshGames() {
-        this.allGames = boardGameDao.getAllGames();
+        catalog.reload();
     }
 
     // Основные методы управления играми
@@ -63,11 +65,12 @@ public class GameManager {
                 avgTime
         );
 
-        boardGameDao.addGame(newGame);
-        refreshGames();
+        // Каталог дополняет индексы новой игрой, а не перестраивает их заново
+        catalog.addGame(newGame);
     }
 
-    private void validateGameParameters(String name, int minPlayers, int maxPlayers, int avgTime) {
+    // Общая проверка для /addgame и пакетного импорта
+    static void validateGameParameters(String name, int minPlayers, int maxPlayers, int avgTime) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Название игры обязательно");
         }
@@ -83,6 +86,7 @@ public class GameManager {
     }
 
     public String listAllGames() {
+        List<BoardGame> allGames = catalog.snapshot().getGames();
         if (allGames.isEmpty()) {
             return "🎲 В коллекции пока нет игр.";
         }
@@ -94,6 +98,32 @@ public class GameManager {
         return sb.toString();
     }
 
+    // Отрисовывается только запрошенная страница, поэтому время ответа не зависит от размера коллекции
+    public String listGamesPage(int page, int pageSize) {
+        List<BoardGame> games = catalog.snapshot().getGames();
+        if (games.isEmpty()) {
+            return "🎲 В коллекции пока нет игр.";
+        }
+
+        int pageCount = Math.max(1, (games.size() + pageSize - 1) / pageSize);
+        int from = Math.min(page, pageCount - 1) * pageSize;
+        int to = Math.min(from + pageSize, games.size());
+
+        StringBuilder sb = new StringBuilder("🎲 <b>Коллекция игр</b>");
+        if (pageCount > 1) {
+            sb.append(" (стр. ").append(from / pageSize + 1).append(" из ").append(pageCount).append(")");
+        }
+        sb.append(":\n\n");
+        for (BoardGame game : games.subList(from, to)) {
+            sb.append(game.toFormattedString()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    public int getGamesPageCount(int pageSize) {
+        return Math.max(1, (catalog.snapshot().size() + pageSize - 1) / pageSize);
+    }
+
     public String getGameInfo(String gameName) {
         if (gameName == null || gameName.isEmpty()) {
             return "ℹ️ Укажите название игры: /filtergame НазваниеИгры";
@@ -101,23 +131,23 @@ public class GameManager {
 
         BoardGame game = findGameByName(gameName);
         if (game == null) {
-            return "❌ Игра \"" + gameName + "\" не найдена в коллекции.";
+            return "❌ Игра \"" + gameName + "\" не найдена в коллекции." + catalog.snapshot().getSearchIndex().didYouMean(gameName);
         }
 
         return game.toDetailedString();
     }
 
     public BoardGame findGameByName(String gameName) {
-        return allGames.stream()
-                .filter(g -> g.getName().equalsIgnoreCase(gameName))
-                .findFirst()
-                .orElse(null);
+        return catalog.snapshot().findByName(gameName);
+    }
+
+    // Нечёткий поиск по названию и описанию, лучшие совпадения первыми
+    public List<BoardGame> searchGames(String query, int limit) {
+        return catalog.snapshot().getSearchIndex().search(query, limit);
     }
 
     public List<BoardGame> findGamesByCategory(String category) {
-        return allGames.stream()
-                .filter(g -> g.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        return catalog.snapshot().findByCategory(category);
     }
 
     public String listGamesByCategory(String category) {
@@ -144,9 +174,12 @@ public class GameManager {
     }
 
     public List<BoardGame> getGamesForPlayers(int playersCount) {
-        return allGames.stream()
-                .filter(g -> g.getMinPlayers() <= playersCount && g.getMaxPlayers() >= playersCount)
-                .collect(Collectors.toList());
+        return catalog.snapshot().getPlayerCountIndex().find(playersCount, null, 0);
+    }
+
+    // category == null — любая категория, maxAverageTime <= 0 — без ограничения по времени
+    public List<BoardGame> getGamesForPlayers(int playersCount, String category, int maxAverageTime) {
+        return catalog.snapshot().getPlayerCountIndex().find(playersCount, category, maxAverageTime);
     }
 
     public String suggestGamesForPlayers(int playersCount) {
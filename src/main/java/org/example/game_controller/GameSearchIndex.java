@@ -0,0 +1,287 @@
+package org.example.game_controller;
+
+import org.example.BoardGame;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Нечёткий поиск игр: триграммы нормализованных названий плюс слова описаний.
+// Кандидаты набираются по спискам вхождений, поэтому время запроса зависит
+// от длины запроса и частоты его триграмм, а не от размера коллекции.
+// Неизменяемый, как GameLookupIndex: добавление игр возвращает новую копию.
+public class GameSearchIndex {
+    // Ниже этого порога кандидат считается случайным совпадением
+    private static final double MIN_SCORE = 0.35;
+    private static final double DESCRIPTION_WEIGHT = 0.5;
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int COMMON_WORD_MIN_POSTINGS = 100;
+    // Короткий список кандидатов ищется в длинном списке вхождений двоичным поиском
+    private static final int BINARY_SEARCH_RATIO = 16;
+
+    // Список вхождений: порядковые номера игр по возрастанию, без повторов
+    private static final class Postings {
+        private int[] ids;
+        private int size;
+
+        Postings() {
+            ids = new int[4];
+        }
+
+        Postings(Postings other) {
+            ids = Arrays.copyOf(other.ids, other.size + 4);
+            size = other.size;
+        }
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    // Счётчики совпадений одного запроса. Переиспользуются между запросами
+    // и после каждого запроса обнуляются только у затронутых игр
+    private static final class Hits {
+        private final int[] name;
+        private final int[] word;
+
+        Hits(int games) {
+            name = new int[games];
+            word = new int[games];
+        }
+    }
+
+    private final List<BoardGame> games;
+    private final List<String> nameKeys;
+    private int[] nameTrigramCounts;
+    private final Map<Long, Postings> byNameTrigram;
+    private final Map<String, Postings> byDescriptionWord;
+    // Свободные счётчики: параллельные запросы берут каждый свои, без блокировок
+    private final Queue<Hits> freeHits = new ConcurrentLinkedQueue<>();
+
+    public GameSearchIndex(List<BoardGame> games) {
+        this(new ArrayList<>(), new ArrayList<>(), new int[Math.max(games.size(), 16)], new HashMap<>(), new HashMap<>());
+        Set<Postings> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        games.forEach(game -> put(game, owned));
+    }
+
+    private GameSearchIndex(List<BoardGame> games, List<String> nameKeys, int[] nameTrigramCounts,
+                            Map<Long, Postings> byNameTrigram, Map<String, Postings> byDescriptionWord) {
+        this.games = games;
+        this.nameKeys = nameKeys;
+        this.nameTrigramCounts = nameTrigramCounts;
+        this.byNameTrigram = byNameTrigram;
+        this.byDescriptionWord = byDescriptionWord;
+    }
+
+    // Копируются карты и только те списки вхождений, в которые попали новые игры
+    public GameSearchIndex withAll(List<BoardGame> added) {
+        int[] counts = Arrays.copyOf(nameTrigramCounts, Math.max(nameTrigramCounts.length, games.size() + added.size()));
+        GameSearchIndex copy = new GameSearchIndex(new ArrayList<>(games), new ArrayList<>(nameKeys), counts,
+                new HashMap<>(byNameTrigram), new HashMap<>(byDescriptionWord));
+        Set<Postings> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        added.forEach(game -> copy.put(game, owned));
+        return copy;
+    }
+
+    // owned — списки, созданные или скопированные для этой версии; остальные принадлежат предыдущей
+    private void put(BoardGame game, Set<Postings> owned) {
+        int ordinal = games.size();
+        String nameKey = NameNormalizer.normalize(game.getName());
+        games.add(game);
+        nameKeys.add(nameKey);
+
+        Set<Long> trigrams = trigrams(nameKey);
+        if (ordinal == nameTrigramCounts.length) {
+            nameTrigramCounts = Arrays.copyOf(nameTrigramCounts, ordinal * 2);
+        }
+        nameTrigramCounts[ordinal] = trigrams.size();
+        for (Long trigram : trigrams) {
+            byNameTrigram.compute(trigram, (t, postings) -> own(postings, owned)).add(ordinal);
+        }
+        for (String word : words(game.getDescription())) {
+            byDescriptionWord.compute(word, (w, postings) -> own(postings, owned)).add(ordinal);
+        }
+    }
+
+    private static Postings own(Postings postings, Set<Postings> owned) {
+        if (postings == null || !owned.contains(postings)) {
+            postings = postings == null ? new Postings() : new Postings(postings);
+            owned.add(postings);
+        }
+        return postings;
+    }
+
+    // Лучшие совпадения первыми: точное название, затем начало названия, затем сходство триграмм
+    public List<BoardGame> search(String query, int limit) {
+        String queryKey = NameNormalizer.normalize(query);
+        Set<Long> queryTrigrams = trigrams(queryKey);
+        if (queryTrigrams.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Название должно содержать хотя бы половину триграмм запроса, значит такая игра
+        // встретится в одном из (всего - нужно + 1) самых коротких списков
+        List<Postings> lists = new ArrayList<>();
+        for (Long trigram : queryTrigrams) {
+            Postings postings = byNameTrigram.get(trigram);
+            lists.add(postings != null ? postings : new Postings());
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        int required = (lists.size() + 1) / 2;
+        int seeds = lists.size() - required + 1;
+
+        Hits hits = freeHits.poll();
+        if (hits == null) {
+            hits = new Hits(games.size());
+        }
+        int[] nameHits = hits.name;
+        int[] wordHits = hits.word;
+        Postings candidates = new Postings();
+        for (int l = 0; l < seeds; l++) {
+            Postings postings = lists.get(l);
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (nameHits[id]++ == 0) {
+                    candidates.add(id);
+                }
+            }
+        }
+        for (int l = seeds; l < lists.size(); l++) {
+            countHits(lists.get(l), candidates, nameHits);
+        }
+
+        Set<String> queryWords = words(queryKey);
+        int commonWordLimit = Math.max(COMMON_WORD_MIN_POSTINGS, games.size() / 10);
+        for (String word : queryWords) {
+            Postings postings = byDescriptionWord.get(word);
+            // Слишком частое слово ничего не различает
+            if (postings != null && postings.size <= commonWordLimit) {
+                for (int i = 0; i < postings.size; i++) {
+                    int id = postings.ids[i];
+                    if (wordHits[id]++ == 0 && nameHits[id] == 0) {
+                        candidates.add(id);
+                    }
+                }
+            }
+        }
+
+        int[] topIds = new int[limit];
+        double[] topScores = new double[limit];
+        int found = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            int id = candidates.ids[i];
+            double score = score(id, hits, queryKey, lists.size(), required, queryWords.size());
+            nameHits[id] = 0;
+            wordHits[id] = 0;
+            if (score < MIN_SCORE) {
+                continue;
+            }
+            // Вставка в короткий упорядоченный список лучших
+            int position = found;
+            while (position > 0 && isBetter(id, score, topIds[position - 1], topScores[position - 1])) {
+                position--;
+            }
+            if (position < limit) {
+                int moved = Math.min(found, limit - 1) - position;
+                System.arraycopy(topIds, position, topIds, position + 1, moved);
+                System.arraycopy(topScores, position, topScores, position + 1, moved);
+                topIds[position] = id;
+                topScores[position] = score;
+                found = Math.min(found + 1, limit);
+            }
+        }
+
+        // Все затронутые счётчики уже обнулены
+        freeHits.offer(hits);
+
+        List<BoardGame> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(games.get(topIds[i]));
+        }
+        return result;
+    }
+
+    // Добавляет совпадения из длинного списка только уже найденным кандидатам
+    private static void countHits(Postings postings, Postings candidates, int[] nameHits) {
+        if ((long) candidates.size * BINARY_SEARCH_RATIO < postings.size) {
+            for (int i = 0; i < candidates.size; i++) {
+                int id = candidates.ids[i];
+                if (Arrays.binarySearch(postings.ids, 0, postings.size, id) >= 0) {
+                    nameHits[id]++;
+                }
+            }
+        } else {
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (nameHits[id] > 0) {
+                    nameHits[id]++;
+                }
+            }
+        }
+    }
+
+    private double score(int id, Hits hits, String queryKey, int queryTrigrams, int required, int queryWords) {
+        double score = 0;
+        if (hits.name[id] >= required) {
+            // Коэффициент Дайса по триграммам названия
+            score = 2.0 * hits.name[id] / (queryTrigrams + nameTrigramCounts[id]);
+        }
+        if (queryWords > 0) {
+            score += DESCRIPTION_WEIGHT * hits.word[id] / queryWords;
+        }
+        String nameKey = nameKeys.get(id);
+        if (nameKey.equals(queryKey)) {
+            score += 2;
+        } else if (nameKey.startsWith(queryKey)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    private boolean isBetter(int id, double score, int otherId, double otherScore) {
+        int byScore = Double.compare(score, otherScore);
+        return byScore != 0 ? byScore > 0 : nameKeys.get(id).compareTo(nameKeys.get(otherId)) < 0;
+    }
+
+    // Подсказка к сообщению «не найдено»; пустая строка, если предложить нечего
+    public String didYouMean(String query) {
+        List<BoardGame> suggestions = search(query, 3);
+        if (suggestions.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("\n💡 Возможно, вы имели в виду: ");
+        for (int i = 0; i < suggestions.size(); i++) {
+            sb.append(i > 0 ? ", " : "").append(suggestions.get(i).getName());
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    // Начало названия дополняется пробелом, поэтому короткий запрос совпадает с началом названия
+    private static Set<Long> trigrams(String key) {
+        String padded = " " + key;
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return result;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> result = new HashSet<>();
+        if (text == null) {
+            return result;
+        }
+        for (String word : NameNormalizer.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= MIN_WORD_LENGTH) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+}
@@ -2,44 +2,73 @@ package org.example.game_controller;
 
 import org.example.BoardGame;
 import org.example.GameSession;
+import org.example.PlayerStats;
 import org.example.dao.BoardGameDao;
+import org.example.dao.SessionPage;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class GameSessionManager {
+    private static final int LEADERBOARD_SIZE = 5;
+    // Ниже этого числа партий процент побед слишком случаен для общего рейтинга
+    private static final int LEADERBOARD_MIN_GAMES = 3;
+    private static final int RATING_TOP_SIZE = 10;
+
     private final BoardGameDao boardGameDao;
-    private final List<BoardGame> allGames;
+    private final GameCatalog catalog;
+    private final GameStatisticsEngine statisticsEngine = new GameStatisticsEngine();
+    // Запись сессии и обновление движка атомарны относительно загрузки сводки из хранилища,
+    // иначе только что добавленная сессия могла бы учесться дважды. ReentrantLock, а не монитор:
+    // под ней идут запросы к хранилищу, и виртуальный поток не должен держать поток-носитель
+    private final ReentrantLock statisticsLock = new ReentrantLock();
+    // Сводка по всей истории под statisticsLock; null — ещё не посчитана или устарела
+    private Leaderboard leaderboard;
+    // Рейтинги под statisticsLock; null — ещё не посчитаны или устарели
+    private RatingEngine ratingEngine;
+    // Под statisticsLock; растёт с каждой записанной сессией и перестройкой статистики.
+    // Сводка и рейтинги, посчитанные без блокировки, публикуются, только если история за это время не менялась
+    private long historyVersion;
 
     public GameSessionManager(BoardGameDao boardGameDao) {
+        this(boardGameDao, new GameCatalog(boardGameDao));
+    }
+
+    // Каталог общий с GameManager, поэтому игры, добавленные после запуска, сразу видны
+    public GameSessionManager(BoardGameDao boardGameDao, GameCatalog catalog) {
         this.boardGameDao = boardGameDao;
-        this.allGames = boardGameDao.getAllGames(); // Кэшируем только игры, так как они редко меняются
+        this.catalog = catalog;
     }
 
-    public void addPlayedGame(String gameName, String winner, List<String> players) {
-        if (gameName == null || gameName.isEmpty()) {
-            throw new IllegalArgumentException("Выберите игру");
+    // Полная перестройка статистики по всей истории; без неё игры подгружаются по первому /stats
+    public void rebuildStatistics() {
+        statisticsLock.lock();
+        try {
+            try (Stream<GameSession> history = boardGameDao.streamGameHistory()) {
+                statisticsEngine.rebuild(history);
+            }
+            historyVersion++;
+            leaderboard = null;
+            ratingEngine = null;
+        } finally {
+            statisticsLock.unlock();
         }
+    }
 
-        if (winner == null || winner.isEmpty()) {
-            throw new IllegalArgumentException("Укажите победителя");
-        }
+    public void addPlayedGame(String gameName, String winner, List<String> players) {
+        validateSessionParameters(gameName, winner, players);
 
-        if (players == null || players.isEmpty()) {
-            throw new IllegalArgumentException("Укажите игроков");
+        GameCatalog.Snapshot games = catalog.snapshot();
+        BoardGame game = games.findByName(gameName);
+        if (game == null) {
+            throw new IllegalArgumentException("Игра не найдена" + games.getSearchIndex().didYouMean(gameName));
         }
 
-        if (!players.contains(winner)) {
-            throw new IllegalArgumentException("Победитель должен быть в списке игроков");
-        }
-
-        BoardGame game = allGames.stream()
-                .filter(g -> g.getName().equalsIgnoreCase(gameName))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Игра не найдена"));
-
         GameSession session = new GameSession(
                 null,
                 game.getId(),
@@ -50,39 +79,169 @@ public class GameSessionManager {
                 GameSession.GameStatus.IN_PROGRESS
         );
 
-        boardGameDao.addGameSession(session);
+        statisticsLock.lock();
+        try {
+            boardGameDao.addGameSession(session);
+            statisticsEngine.onSessionAdded(session);
+            updateHistoryViews(session);
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    // Пакет уже проверенных сессий: одна запись в хранилище, движок статистики обновляется по каждой
+    public void addSessions(List<GameSession> batch) {
+        statisticsLock.lock();
+        try {
+            boardGameDao.addGameSessions(batch);
+            batch.forEach(statisticsEngine::onSessionAdded);
+            batch.forEach(this::updateHistoryViews);
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    // Новая сессия дописывается в сводку и рейтинги за O(число игроков в ней). Импортированная сессия
+    // из прошлого нарушила бы порядок событий — тогда они пересчитываются целиком при следующем запросе
+    private void updateHistoryViews(GameSession session) {
+        historyVersion++;
+        if (leaderboard != null) {
+            if (leaderboard.canAppend(session)) {
+                leaderboard.add(session);
+            } else {
+                leaderboard = null;
+            }
+        }
+        if (ratingEngine != null) {
+            if (ratingEngine.canAppend(session)) {
+                ratingEngine.apply(session);
+            } else {
+                ratingEngine = null;
+            }
+        }
+    }
+
+    // Сводке нужен доступ по индексу, чтобы делить историю на отрезки
+    private List<GameSession> historyOldestFirst() {
+        try (Stream<GameSession> stream = boardGameDao.streamGameHistoryOldestFirst()) {
+            return stream.collect(Collectors.toCollection(ArrayList::new));
+        }
     }
 
-    public void updateGameStatuses() {
-        // Получаем свежие данные из БД каждый раз
-        List<GameSession> sessions = boardGameDao.getGameHistory();
+    // Вызывается без statisticsLock: история читается и сворачивается вне блокировки, чтобы запись
+    // сессий не ждала пересчёта. Если за это время история изменилась, результат отдаётся только
+    // этому запросу, а пересчёт достанется следующему. Читать сводку нужно под statisticsLock:
+    // опубликованную дополняет updateHistoryViews
+    private Leaderboard leaderboard() {
+        long version;
+        statisticsLock.lock();
+        try {
+            if (leaderboard != null) {
+                return leaderboard;
+            }
+            version = historyVersion;
+        } finally {
+            statisticsLock.unlock();
+        }
 
-        for (GameSession session : sessions) {
-            if (session.getDateTime().toLocalDate().isBefore(LocalDate.now().minusDays(1)) &&
-                    session.getStatus() != GameSession.GameStatus.PLAYED) {
-                session.setStatus(GameSession.GameStatus.PLAYED);
-                boardGameDao.updateGameSessionStatus(session);
+        Leaderboard computed = Leaderboard.compute(historyOldestFirst(), ForkJoinPool.commonPool());
+
+        statisticsLock.lock();
+        try {
+            if (leaderboard != null) {
+                return leaderboard;
             }
+            if (historyVersion == version) {
+                leaderboard = computed;
+            }
+            return computed;
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    // Вызывается без statisticsLock, публикуется так же, как сводка в leaderboard()
+    private RatingEngine ratings() {
+        long version;
+        statisticsLock.lock();
+        try {
+            if (ratingEngine != null) {
+                return ratingEngine;
+            }
+            version = historyVersion;
+        } finally {
+            statisticsLock.unlock();
+        }
+
+        RatingEngine computed = new RatingEngine();
+        try (Stream<GameSession> history = boardGameDao.streamGameHistoryOldestFirst()) {
+            computed.rebuild(history);
+        }
+
+        statisticsLock.lock();
+        try {
+            if (ratingEngine != null) {
+                return ratingEngine;
+            }
+            if (historyVersion == version) {
+                ratingEngine = computed;
+            }
+            return computed;
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    // Общая проверка для /addsession и пакетного импорта
+    static void validateSessionParameters(String gameName, String winner, List<String> players) {
+        if (gameName == null || gameName.isEmpty()) {
+            throw new IllegalArgumentException("Выберите игру");
+        }
+
+        if (winner == null || winner.isEmpty()) {
+            throw new IllegalArgumentException("Укажите победителя");
+        }
+
+        if (players == null || players.isEmpty()) {
+            throw new IllegalArgumentException("Укажите игроков");
+        }
+
+        if (!players.contains(winner)) {
+            throw new IllegalArgumentException("Победитель должен быть в списке игроков");
+        }
+    }
+
+    // Сессии, начатые раньше вчерашнего дня, считаются сыгранными
+    public int updateGameStatuses() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(1).atStartOfDay();
+        statisticsLock.lock();
+        try {
+            int updated = boardGameDao.markPlayedBefore(cutoff);
+            statisticsEngine.markPlayedBefore(cutoff);
+            return updated;
+        } finally {
+            statisticsLock.unlock();
         }
     }
 
     public String getRecentSessions(int limit) {
-        List<GameSession> history = boardGameDao.getGameHistory();
+        // Из хранилища читается только одна страница, а не вся история
+        List<GameSession> history = boardGameDao.getRecentSessions(limit, null).getSessions();
 
         if (history.isEmpty()) {
             return "История игр пуста.";
         }
 
-        history.sort((s1, s2) -> s2.getDateTime().compareTo(s1.getDateTime()));
-
         StringBuilder sb = new StringBuilder("Последние игры:\n");
-        history.stream()
-                .limit(limit)
-                .forEach(session -> sb.append(session.toString()).append("\n\n"));
+        history.forEach(session -> sb.append(session.toString()).append("\n\n"));
 
         return sb.toString();
     }
 
+    public SessionPage getHistoryPage(int limit, String afterCursor) {
+        return boardGameDao.getRecentSessions(limit, afterCursor);
+    }
+
     public String addSession(String input) {
         if (input == null || input.isEmpty()) {
             return "ℹ️ Укажите параметры: /addsession Игра;Игроки (через запятую);Победитель";
@@ -110,60 +269,203 @@ public class GameSessionManager {
         }
     }
 
+    // Первый запрос по игре считает сводку в хранилище, дальше движок обновляется по событиям
+    private GameStatisticsEngine.GameStats loadStatistics(String gameId) {
+        statisticsLock.lock();
+        try {
+            if (!statisticsEngine.isLoaded(gameId)) {
+                statisticsEngine.load(boardGameDao.getGameStatistics(gameId));
+            }
+        } finally {
+            statisticsLock.unlock();
+        }
+        return statisticsEngine.getGameStatsById(gameId);
+    }
+
     public String getWinStatistics(String gameName) {
         if (gameName == null || gameName.isEmpty()) {
             return "ℹ️ Укажите название игры: /stats [название игры]";
         }
 
-        // Получаем все сессии по игре
-        List<GameSession> gameSessions = boardGameDao.getGameHistory().stream()
-                .filter(session -> session.getGameName().equalsIgnoreCase(gameName))
-                .collect(Collectors.toList());
-
-        if (gameSessions.isEmpty()) {
+        // Статистика ведётся по id игры из каталога
+        BoardGame game = catalog.snapshot().findByName(gameName);
+        GameStatisticsEngine.GameStats stats = game != null && game.getId() != null
+                ? loadStatistics(game.getId()) : null;
+        if (stats == null || stats.getTotalSessions() == 0) {
             return "ℹ️ Нет данных по игре \"" + gameName + "\"";
         }
 
-        // Собираем всех уникальных игроков
-        Set<String> allPlayers = new HashSet<>();
-        gameSessions.forEach(session -> allPlayers.addAll(session.getPlayers()));
-
-        // Статистика побед
-        Map<String, Integer> winStats = new HashMap<>();
-        allPlayers.forEach(player -> winStats.put(player, 0)); // Инициализируем всех игроков с 0 побед
-
-        gameSessions.forEach(session -> {
-            String winner = session.getWinner();
-            winStats.put(winner, winStats.getOrDefault(winner, 0) + 1);
-        });
-
-        // Дополнительная статистика
-        long totalGames = gameSessions.size();
-        long completedGames = gameSessions.stream()
-                .filter(s -> s.getStatus() == GameSession.GameStatus.PLAYED)
-                .count();
-
-        // Сортировка по количеству побед (по убыванию)
-        List<Map.Entry<String, Integer>> sortedStats = new ArrayList<>(winStats.entrySet());
-        sortedStats.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
+        long totalGames = stats.getTotalSessions();
 
         // Формируем результат
         StringBuilder sb = new StringBuilder();
         sb.append("🏆 Статистика по игре \"").append(gameName).append("\":\n\n");
         sb.append("Всего сессий: ").append(totalGames).append("\n");
-        sb.append("Завершённых: ").append(completedGames).append("\n");
-        sb.append("В процессе: ").append(totalGames - completedGames).append("\n\n");
+        sb.append("Завершённых: ").append(stats.getCompletedSessions()).append("\n");
+        sb.append("В процессе: ").append(stats.getInProgressSessions()).append("\n\n");
         sb.append("Все игроки:\n");
 
-        for (Map.Entry<String, Integer> entry : sortedStats) {
-            String player = entry.getKey();
-            int wins = entry.getValue();
+        for (PlayerStats player : stats.getPlayers()) {
+            int wins = player.getWins();
             double winPercentage = totalGames > 0 ? (double) wins / totalGames * 100 : 0;
 
             sb.append(String.format("• %s: %d побед (%.1f%%)%n",
-                    player, wins, winPercentage));
+                    player.getPlayerName(), wins, winPercentage));
         }
 
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    public String getLeaderboard() {
+        Leaderboard board = leaderboard();
+        statisticsLock.lock();
+        try {
+            if (board.getTotalSessions() == 0) {
+                return "История игр пуста.";
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("🏆 Общий рейтинг по ").append(board.getTotalSessions()).append(" сессиям:\n\n");
+
+            List<PlayerStats> players = board.getTopPlayers(LEADERBOARD_SIZE, LEADERBOARD_MIN_GAMES);
+            if (!players.isEmpty()) {
+                sb.append("Лучшие игроки (от ").append(LEADERBOARD_MIN_GAMES).append(" партий):\n");
+                for (int i = 0; i < players.size(); i++) {
+                    PlayerStats player = players.get(i);
+                    sb.append(String.format("%d. %s: %.1f%% побед (%d из %d)%n", i + 1,
+                            player.getPlayerName(), player.getWinPercentage(), player.getWins(), player.getTotalGames()));
+                }
+                sb.append("\n");
+            }
+
+            sb.append("🎲 Самые популярные игры:\n");
+            List<Leaderboard.GameCount> games = board.getMostPlayedGames(LEADERBOARD_SIZE);
+            for (int i = 0; i < games.size(); i++) {
+                sb.append(String.format("%d. %s — %d сессий%n", i + 1,
+                        games.get(i).getGameName(), games.get(i).getSessions()));
+            }
+
+            List<Leaderboard.Streak> streaks = board.getLongestStreaks(LEADERBOARD_SIZE);
+            if (!streaks.isEmpty()) {
+                sb.append("\n🔥 Самые длинные серии побед:\n");
+                for (Leaderboard.Streak streak : streaks) {
+                    sb.append(String.format("• %s: %d подряд (сейчас %d)%n",
+                            streak.getPlayer(), streak.getBest(), streak.getCurrent()));
+                }
+            }
+
+            List<Leaderboard.HeadToHead> rivalries = board.getTopRivalries(LEADERBOARD_SIZE);
+            if (!rivalries.isEmpty()) {
+                sb.append("\n⚔️ Чаще всего играли вместе:\n");
+                for (Leaderboard.HeadToHead record : rivalries) {
+                    sb.append(String.format("• %s — %s: %d:%d за %d партий%n", record.getPlayer1(),
+                            record.getPlayer2(), record.getWins1(), record.getWins2(), record.getGames()));
+                }
+            }
+            return sb.toString();
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    public String getHeadToHead(String input) {
+        String[] names = input == null ? new String[0] : input.split(";");
+        if (names.length != 2 || names[0].isBlank() || names[1].isBlank()) {
+            return "ℹ️ Укажите двух игроков: /h2h Игрок1;Игрок2";
+        }
+        String player = names[0].trim();
+        String other = names[1].trim();
+        if (player.equals(other)) {
+            return "❌ Ошибка: Укажите двух разных игроков";
+        }
+
+        Leaderboard.HeadToHead record;
+        Leaderboard.Streak streak;
+        Leaderboard.Streak otherStreak;
+        Leaderboard board = leaderboard();
+        statisticsLock.lock();
+        try {
+            record = board.getHeadToHead(player, other);
+            streak = board.getStreak(player);
+            otherStreak = board.getStreak(other);
+        } finally {
+            statisticsLock.unlock();
+        }
+        if (record == null) {
+            return "ℹ️ " + player + " и " + other + " ещё не играли вместе";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("⚔️ ").append(player).append(" против ").append(other).append(":\n\n");
+        sb.append("Совместных партий: ").append(record.getGames()).append("\n");
+        sb.append("Побед ").append(player).append(": ").append(record.getWins1()).append("\n");
+        sb.append("Побед ").append(other).append(": ").append(record.getWins2()).append("\n");
+        sb.append("Выиграли другие: ").append(record.getGames() - record.getWins1() - record.getWins2()).append("\n\n");
+        sb.append("Лучшая серия побед: ").append(player).append(" — ").append(streak.getBest())
+                .append(", ").append(other).append(" — ").append(otherStreak.getBest()).append("\n");
+        return sb.toString();
+    }
+
+    public String getRating(String player) {
+        if (player == null || player.isBlank()) {
+            return "ℹ️ Укажите имя игрока: /rating [имя]";
+        }
+        player = player.trim();
+
+        RatingEngine.PlayerRating rating;
+        List<RatingEngine.PlayerRating> gameRatings;
+        RatingEngine engine = ratings();
+        statisticsLock.lock();
+        try {
+            rating = engine.getRating(player);
+            gameRatings = engine.getGameRatings(player);
+        } finally {
+            statisticsLock.unlock();
+        }
+        if (rating == null) {
+            return "ℹ️ Нет рейтинга игрока \"" + player + "\"";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("📈 Рейтинг игрока %s: %.0f (партий: %d)%n%n",
+                player, rating.getRating(), rating.getGames()));
+        sb.append("По играм:\n");
+        for (RatingEngine.PlayerRating gameRating : gameRatings) {
+            sb.append(String.format("• %s: %.0f (партий: %d)%n",
+                    gameRating.getGameName(), gameRating.getRating(), gameRating.getGames()));
+        }
+        return sb.toString();
+    }
+
+    // Без аргумента — общий рейтинг, с названием игры — рейтинг в этой игре
+    public String getTopRatings(String gameName) {
+        String name = gameName != null ? gameName.trim() : "";
+        BoardGame game = name.isEmpty() ? null : catalog.snapshot().findByName(name);
+
+        List<RatingEngine.PlayerRating> top;
+        RatingEngine engine = ratings();
+        statisticsLock.lock();
+        try {
+            top = name.isEmpty()
+                    ? engine.getTop(RATING_TOP_SIZE, LEADERBOARD_MIN_GAMES)
+                    : engine.getTopForGame(game != null ? game.getId() : null, name, RATING_TOP_SIZE, 1);
+        } finally {
+            statisticsLock.unlock();
+        }
+        if (top.isEmpty()) {
+            return name.isEmpty()
+                    ? "ℹ️ Пока нет игроков с " + LEADERBOARD_MIN_GAMES + " и более партиями"
+                    : "ℹ️ Нет данных по игре \"" + name + "\"";
+        }
+
+        StringBuilder sb = new StringBuilder(name.isEmpty()
+                ? "🏅 Лучшие игроки по рейтингу:\n\n"
+                : "🏅 Лучшие игроки в \"" + name + "\" по рейтингу:\n\n");
+        for (int i = 0; i < top.size(); i++) {
+            RatingEngine.PlayerRating rating = top.get(i);
+            sb.append(String.format("%d. %s: %.0f (партий: %d)%n",
+                    i + 1, rating.getPlayer(), rating.getRating(), rating.getGames()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.game_controller;
+
+import org.example.GameSession;
+import org.example.PlayerStats;
+import org.example.dao.GameStatsSummary;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Накопительная статистика по играм и игрокам. Обновляется за O(1) на каждое
+// событие сессии, поэтому /stats не перебирает историю. Игра попадает в движок
+// либо при полной перестройке, либо по требованию из сводки хранилища (load);
+// события по ещё не загруженным играм пропускаются — их учтёт будущая загрузка.
+public class GameStatisticsEngine {
+
+    public static class GameStats {
+        private final String gameId;
+        private final String gameName;
+        private int totalSessions;
+        private int completedSessions;
+        private final Map<String, PlayerStats> players = new LinkedHashMap<>();
+
+        GameStats(String gameId, String gameName) {
+            this.gameId = gameId;
+            this.gameName = gameName;
+        }
+
+        public String getGameId() { return gameId; }
+        public String getGameName() { return gameName; }
+        public int getTotalSessions() { return totalSessions; }
+        public int getCompletedSessions() { return completedSessions; }
+        public int getInProgressSessions() { return totalSessions - completedSessions; }
+
+        // Игроки отсортированы по количеству побед (по убыванию)
+        public List<PlayerStats> getPlayers() {
+            List<PlayerStats> result = new ArrayList<>(players.values());
+            result.sort((p1, p2) -> Integer.compare(p2.getWins(), p1.getWins()));
+            return result;
+        }
+
+        private GameStats copy() {
+            GameStats copy = new GameStats(gameId, gameName);
+            copy.totalSessions = totalSessions;
+            copy.completedSessions = completedSessions;
+            players.forEach((name, stats) -> copy.players.put(name, stats.copy()));
+            return copy;
+        }
+    }
+
+    // rebuild читает ленивый поток хранилища под блокировкой, поэтому не монитор
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, GameStats> statsByGameId = new HashMap<>();
+    // Незавершённые сессии по времени: при массовом завершении известно, каким играм менять счётчики
+    private final NavigableMap<LocalDateTime, List<String>> inProgressByTime = new TreeMap<>();
+
+    public void rebuild(Stream<GameSession> history) {
+        lock.lock();
+        try {
+            statsByGameId.clear();
+            inProgressByTime.clear();
+            history.forEach(session -> {
+                GameStats stats = statsByGameId.get(gameKey(session));
+                if (stats == null) {
+                    stats = new GameStats(gameKey(session), session.getGameName());
+                    statsByGameId.put(stats.gameId, stats);
+                }
+                apply(stats, session);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isLoaded(String gameId) {
+        lock.lock();
+        try {
+            return statsByGameId.containsKey(gameId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Заполняет статистику игры из сводки хранилища, если её ещё нет
+    public void load(GameStatsSummary summary) {
+        lock.lock();
+        try {
+            if (statsByGameId.containsKey(summary.getGameId())) {
+                return;
+            }
+            GameStats stats = new GameStats(summary.getGameId(), summary.getGameName());
+            statsByGameId.put(stats.gameId, stats);
+            stats.totalSessions = summary.getTotalSessions();
+            stats.completedSessions = summary.getCompletedSessions();
+            for (PlayerStats player : summary.getPlayers()) {
+                stats.players.put(player.getPlayerName(), player.copy());
+            }
+            for (LocalDateTime dateTime : summary.getInProgressDates()) {
+                inProgressByTime.computeIfAbsent(dateTime, t -> new ArrayList<>()).add(stats.gameId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSessionAdded(GameSession session) {
+        lock.lock();
+        try {
+            GameStats stats = statsByGameId.get(gameKey(session));
+            if (stats != null) {
+                apply(stats, session);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(GameStats stats, GameSession session) {
+        stats.totalSessions++;
+        if (session.getStatus() == GameSession.GameStatus.PLAYED) {
+            stats.completedSessions++;
+        } else {
+            inProgressByTime.computeIfAbsent(session.getDateTime(), t -> new ArrayList<>()).add(stats.gameId);
+        }
+
+        String winner = session.getWinner();
+        List<String> players = session.getPlayers() != null ? session.getPlayers() : List.of();
+        for (String player : players) {
+            stats.players.computeIfAbsent(player, PlayerStats::new).recordGame(player.equals(winner));
+        }
+        if (winner != null && !players.contains(winner)) {
+            stats.players.computeIfAbsent(winner, PlayerStats::new).recordWin();
+        }
+    }
+
+    // Зеркало BoardGameDao.markPlayedBefore: завершает незавершённые сессии старше cutoff
+    public void markPlayedBefore(LocalDateTime cutoff) {
+        lock.lock();
+        try {
+            Map<LocalDateTime, List<String>> stale = inProgressByTime.headMap(cutoff, false);
+            for (List<String> gameIds : stale.values()) {
+                for (String gameId : gameIds) {
+                    statsByGameId.get(gameId).completedSessions++;
+                }
+            }
+            stale.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Возвращает копию, чтобы вызывающий код не видел последующих обновлений
+    public GameStats getGameStatsById(String gameId) {
+        lock.lock();
+        try {
+            GameStats stats = statsByGameId.get(gameId);
+            return stats != null ? stats.copy() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String gameKey(GameSession session) {
+        return session.getGameId() != null ? session.getGameId() : nameKey(session.getGameName());
+    }
+
+    private static String nameKey(String gameName) {
+        return NameNormalizer.normalize(gameName);
+    }
+}
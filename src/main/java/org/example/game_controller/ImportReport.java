@@ -0,0 +1,49 @@
+package org.example.game_controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог пакетного импорта: сколько строк записано, сколько отклонено и почему
+public class ImportReport {
+    // Больше ошибок в ответ не выводим, остальные только считаем
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private long imported;
+    private long failed;
+    // Сколько отклонённых строк покрыто выведенными ошибками
+    private long reported;
+    private final List<String> errors = new ArrayList<>();
+
+    void recordImported(int count) {
+        imported += count;
+    }
+
+    void recordFailed(String position, String message, int count) {
+        failed += count;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(position + ": " + message);
+            reported += count;
+        }
+    }
+
+    public long getImported() { return imported; }
+    public long getFailed() { return failed; }
+    public List<String> getErrors() { return errors; }
+
+    public String format(String title) {
+        StringBuilder sb = new StringBuilder("📥 ").append(title)
+                .append(": добавлено ").append(imported)
+                .append(", отклонено ").append(failed).append('.');
+        if (!errors.isEmpty()) {
+            sb.append("\n\n⚠️ Ошибки:");
+            for (String error : errors) {
+                sb.append("\n• ").append(error);
+            }
+            long hidden = failed - reported;
+            if (hidden > 0) {
+                sb.append("\n… и ещё ").append(hidden);
+            }
+        }
+        return sb.toString();
+    }
+}
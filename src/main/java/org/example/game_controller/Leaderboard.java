@@ -0,0 +1,438 @@
+package org.example.game_controller;
+
+import org.example.GameSession;
+import org.example.PlayerStats;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Сводка по всей истории: победы игроков во всех играх, самые популярные игры, личные встречи
+// и серии побед. Считается параллельно: история делится пополам, пока отрезки не станут
+// достаточно мелкими, каждый отрезок сворачивается в свой Leaderboard, соседние сливаются через merge.
+// Серии зависят от порядка, поэтому отрезки сливаются слева направо и история идёт от старых к новым.
+// Сам объект не потокобезопасен: доступ синхронизирует владелец, GameSessionManager.
+public class Leaderboard {
+    // Отрезок меньше этого не делится: создание задачи и слияние карт обходятся дороже выигрыша
+    private static final int MIN_CHUNK = 4096;
+    // На поток приходится несколько отрезков, чтобы простаивающие потоки могли забрать чужую работу
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    public static class GameCount {
+        private final String gameName;
+        private int sessions;
+
+        GameCount(String gameName) {
+            this.gameName = gameName;
+        }
+
+        public String getGameName() { return gameName; }
+        public int getSessions() { return sessions; }
+
+        private GameCount copy() {
+            GameCount copy = new GameCount(gameName);
+            copy.sessions = sessions;
+            return copy;
+        }
+    }
+
+    // Совместные партии двух игроков и победы каждого из них; остальное выиграли другие участники
+    public static class HeadToHead {
+        private final String player1;
+        private final String player2;
+        private final int games;
+        private final int wins1;
+        private final int wins2;
+
+        HeadToHead(String player1, String player2, int games, int wins1, int wins2) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.games = games;
+            this.wins1 = wins1;
+            this.wins2 = wins2;
+        }
+
+        public String getPlayer1() { return player1; }
+        public String getPlayer2() { return player2; }
+        public int getGames() { return games; }
+        public int getWins1() { return wins1; }
+        public int getWins2() { return wins2; }
+    }
+
+    // Серия побед подряд в партиях игрока. Для слияния отрезков кроме лучшей и текущей
+    // (последней) серии хранится начальная и признак, что в отрезке не было поражений
+    public static class Streak {
+        private final String player;
+        private int best;
+        private int current;
+        private int leading;
+        private boolean unbeaten = true;
+
+        Streak(String player) {
+            this.player = player;
+        }
+
+        public String getPlayer() { return player; }
+        public int getBest() { return best; }
+        public int getCurrent() { return current; }
+
+        private void record(boolean won) {
+            if (won) {
+                current++;
+                if (unbeaten) {
+                    leading++;
+                }
+                best = Math.max(best, current);
+            } else {
+                current = 0;
+                unbeaten = false;
+            }
+        }
+
+        // other — отрезок сразу после этого
+        private void merge(Streak other) {
+            best = Math.max(Math.max(best, other.best), current + other.leading);
+            if (unbeaten) {
+                leading += other.leading;
+            }
+            current = other.unbeaten ? current + other.current : other.current;
+            unbeaten = unbeaten && other.unbeaten;
+        }
+
+        private Streak copy() {
+            Streak copy = new Streak(player);
+            copy.best = best;
+            copy.current = current;
+            copy.leading = leading;
+            copy.unbeaten = unbeaten;
+            return copy;
+        }
+    }
+
+    // Игрок получает номер в пределах своей сводки; по номерам устроена таблица пар
+    private static final class Player {
+        private final int id;
+        private final PlayerStats stats;
+        private final Streak streak;
+
+        Player(int id, String name) {
+            this.id = id;
+            this.stats = new PlayerStats(name);
+            this.streak = new Streak(name);
+        }
+    }
+
+    // Личные встречи по паре номеров (меньший, больший): открытая адресация по ключу long
+    // и счётчики в параллельных массивах. Пар порядка квадрата числа игроков, и поиск по
+    // вложенным картам с ключами-строками занимал большую часть свёртки
+    private static final class PairTable {
+        // Ключ 0 означает пустую ячейку: у настоящей пары больший номер не меньше 1
+        private long[] keys = new long[1024];
+        private int[] games = new int[1024];
+        private int[] winsLow = new int[1024];
+        private int[] winsHigh = new int[1024];
+        private int size;
+
+        private static long key(int low, int high) {
+            return (long) low << 32 | high;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // winner — номер победителя или -1
+        void record(int low, int high, int winner) {
+            add(low, high, 1, winner == low ? 1 : 0, winner == high ? 1 : 0);
+        }
+
+        void add(int low, int high, int games, int winsLow, int winsHigh) {
+            long key = key(low, high);
+            int slot = find(key);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            this.games[slot] += games;
+            this.winsLow[slot] += winsLow;
+            this.winsHigh[slot] += winsHigh;
+        }
+
+        // Ячейка пары или -1
+        int slot(int low, int high) {
+            int slot = find(key(low, high));
+            return keys[slot] != 0 ? slot : -1;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldGames = games;
+            int[] oldWinsLow = winsLow;
+            int[] oldWinsHigh = winsHigh;
+            keys = new long[oldKeys.length * 2];
+            games = new int[keys.length];
+            winsLow = new int[keys.length];
+            winsHigh = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    games[slot] = oldGames[i];
+                    winsLow[slot] = oldWinsLow[i];
+                    winsHigh[slot] = oldWinsHigh[i];
+                }
+            }
+        }
+    }
+
+    private final Map<String, Player> players = new HashMap<>();
+    private final List<Player> playersById = new ArrayList<>();
+    private final PairTable pairs = new PairTable();
+    private final Map<String, GameCount> games = new HashMap<>();
+    // Ключи игр без id по названию: нормализация дорогая, а различных названий немного
+    private final Map<String, String> nameKeys = new HashMap<>();
+    // Номера участников текущей сессии, чтобы не выделять массив на каждую
+    private int[] sessionIds = new int[8];
+    private int totalSessions;
+    private LocalDateTime lastDateTime;
+
+    // history — от старых к новым, с быстрым доступом по индексу (ArrayList)
+    public static Leaderboard compute(List<GameSession> history, ForkJoinPool pool) {
+        int chunk = Math.max(MIN_CHUNK, history.size() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        return pool.invoke(new AggregateTask(history, 0, history.size(), chunk));
+    }
+
+    // Задачи ForkJoin не сериализуются, несмотря на Serializable у ForkJoinTask
+    @SuppressWarnings("serial")
+    private static final class AggregateTask extends RecursiveTask<Leaderboard> {
+        private final List<GameSession> history;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        AggregateTask(List<GameSession> history, int from, int to, int chunk) {
+            this.history = history;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Leaderboard compute() {
+            if (to - from <= chunk) {
+                Leaderboard result = new Leaderboard();
+                for (int i = from; i < to; i++) {
+                    result.add(history.get(i));
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(history, from, middle, chunk);
+            left.fork();
+            Leaderboard right = new AggregateTask(history, middle, to, chunk).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // Сессия должна быть не старше уже учтённых, иначе серии посчитаются неверно (см. canAppend).
+    // Как и /stats, учитываются все сессии, включая незавершённые: победитель известен сразу
+    public void add(GameSession session) {
+        totalSessions++;
+        if (lastDateTime == null || session.getDateTime().isAfter(lastDateTime)) {
+            lastDateTime = session.getDateTime();
+        }
+        games.computeIfAbsent(gameKey(session), key -> new GameCount(session.getGameName())).sessions++;
+
+        String winner = session.getWinner();
+        List<String> sessionPlayers = session.getPlayers() != null ? session.getPlayers() : List.of();
+        if (sessionIds.length < sessionPlayers.size()) {
+            sessionIds = new int[sessionPlayers.size()];
+        }
+        int winnerId = -1;
+        for (int i = 0; i < sessionPlayers.size(); i++) {
+            Player player = player(sessionPlayers.get(i));
+            boolean won = player.stats.getPlayerName().equals(winner);
+            player.stats.recordGame(won);
+            player.streak.record(won);
+            sessionIds[i] = player.id;
+            if (won) {
+                winnerId = player.id;
+            }
+        }
+        for (int i = 0; i < sessionPlayers.size(); i++) {
+            for (int j = i + 1; j < sessionPlayers.size(); j++) {
+                int a = sessionIds[i];
+                int b = sessionIds[j];
+                if (a != b) {
+                    pairs.record(Math.min(a, b), Math.max(a, b), winnerId);
+                }
+            }
+        }
+        // Победитель может отсутствовать в списке игроков старых сессий
+        if (winner != null && winnerId < 0) {
+            player(winner).stats.recordWin();
+        }
+    }
+
+    public boolean canAppend(GameSession session) {
+        return lastDateTime == null || !session.getDateTime().isBefore(lastDateTime);
+    }
+
+    // other — сводка по отрезку истории сразу после этого; other после слияния не используется.
+    // Номера игроков в other переводятся в номера этой сводки
+    public Leaderboard merge(Leaderboard other) {
+        totalSessions += other.totalSessions;
+        if (lastDateTime == null || other.lastDateTime != null && other.lastDateTime.isAfter(lastDateTime)) {
+            lastDateTime = other.lastDateTime;
+        }
+        int[] ids = new int[other.playersById.size()];
+        for (Player theirs : other.playersById) {
+            Player mine = player(theirs.stats.getPlayerName());
+            mine.stats.add(theirs.stats);
+            mine.streak.merge(theirs.streak);
+            ids[theirs.id] = mine.id;
+        }
+        PairTable theirPairs = other.pairs;
+        for (int slot = 0; slot < theirPairs.keys.length; slot++) {
+            long key = theirPairs.keys[slot];
+            if (key == 0) {
+                continue;
+            }
+            int low = ids[(int) (key >>> 32)];
+            int high = ids[(int) key];
+            if (low < high) {
+                pairs.add(low, high, theirPairs.games[slot], theirPairs.winsLow[slot], theirPairs.winsHigh[slot]);
+            } else {
+                pairs.add(high, low, theirPairs.games[slot], theirPairs.winsHigh[slot], theirPairs.winsLow[slot]);
+            }
+        }
+        other.games.forEach((key, count) -> games.merge(key, count, (mine, theirs) -> {
+            mine.sessions += theirs.sessions;
+            return mine;
+        }));
+        return this;
+    }
+
+    private Player player(String name) {
+        Player player = players.get(name);
+        if (player == null) {
+            player = new Player(playersById.size(), name);
+            players.put(name, player);
+            playersById.add(player);
+        }
+        return player;
+    }
+
+    public int getTotalSessions() {
+        return totalSessions;
+    }
+
+    public LocalDateTime getLastDateTime() {
+        return lastDateTime;
+    }
+
+    // Игроки хотя бы с minGames партиями по проценту побед, при равенстве — по числу побед
+    public List<PlayerStats> getTopPlayers(int limit, int minGames) {
+        List<PlayerStats> result = new ArrayList<>();
+        for (Player player : playersById) {
+            if (player.stats.getTotalGames() >= minGames) {
+                result.add(player.stats.copy());
+            }
+        }
+        result.sort(Comparator.comparingDouble(PlayerStats::getWinPercentage).reversed()
+                .thenComparing(Comparator.comparingInt(PlayerStats::getWins).reversed())
+                .thenComparing(PlayerStats::getPlayerName));
+        return top(result, limit);
+    }
+
+    public List<GameCount> getMostPlayedGames(int limit) {
+        List<GameCount> result = new ArrayList<>();
+        games.values().forEach(count -> result.add(count.copy()));
+        result.sort(Comparator.comparingInt(GameCount::getSessions).reversed()
+                .thenComparing(GameCount::getGameName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return top(result, limit);
+    }
+
+    public List<Streak> getLongestStreaks(int limit) {
+        List<Streak> result = new ArrayList<>();
+        for (Player player : playersById) {
+            if (player.streak.best > 0) {
+                result.add(player.streak.copy());
+            }
+        }
+        result.sort(Comparator.comparingInt(Streak::getBest).reversed()
+                .thenComparing(Comparator.comparingInt(Streak::getCurrent).reversed())
+                .thenComparing(Streak::getPlayer));
+        return top(result, limit);
+    }
+
+    // Пары, чаще всего игравшие вместе
+    public List<HeadToHead> getTopRivalries(int limit) {
+        List<HeadToHead> result = new ArrayList<>();
+        for (int slot = 0; slot < pairs.keys.length; slot++) {
+            if (pairs.keys[slot] != 0) {
+                result.add(headToHead(slot));
+            }
+        }
+        result.sort(Comparator.comparingInt(HeadToHead::getGames).reversed()
+                .thenComparing(HeadToHead::getPlayer1)
+                .thenComparing(HeadToHead::getPlayer2));
+        return top(result, limit);
+    }
+
+    // player1 == player; null, если вместе не играли
+    public HeadToHead getHeadToHead(String player, String other) {
+        Player first = players.get(player);
+        Player second = players.get(other);
+        if (first == null || second == null || first == second) {
+            return null;
+        }
+        int slot = pairs.slot(Math.min(first.id, second.id), Math.max(first.id, second.id));
+        if (slot < 0) {
+            return null;
+        }
+        HeadToHead record = headToHead(slot);
+        return record.player1.equals(player) ? record
+                : new HeadToHead(record.player2, record.player1, record.games, record.wins2, record.wins1);
+    }
+
+    // Пара в порядке номеров: player1 — игрок с меньшим номером
+    private HeadToHead headToHead(int slot) {
+        long key = pairs.keys[slot];
+        return new HeadToHead(playersById.get((int) (key >>> 32)).stats.getPlayerName(),
+                playersById.get((int) key).stats.getPlayerName(),
+                pairs.games[slot], pairs.winsLow[slot], pairs.winsHigh[slot]);
+    }
+
+    public PlayerStats getPlayer(String player) {
+        Player entry = players.get(player);
+        return entry != null ? entry.stats.copy() : null;
+    }
+
+    public Streak getStreak(String player) {
+        Player entry = players.get(player);
+        return entry != null ? entry.streak.copy() : null;
+    }
+
+    private static <T> List<T> top(List<T> sorted, int limit) {
+        return sorted.size() > limit ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+    }
+
+    private String gameKey(GameSession session) {
+        if (session.getGameId() != null) {
+            return session.getGameId();
+        }
+        String name = session.getGameName() != null ? session.getGameName() : "";
+        return nameKeys.computeIfAbsent(name, NameNormalizer::normalize);
+    }
+}
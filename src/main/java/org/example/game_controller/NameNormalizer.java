@@ -0,0 +1,21 @@
+package org.example.game_controller;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Ключ для поиска по названиям и категориям без учёта регистра:
+// «Карточная», «карточная» и « КАРТОЧНАЯ » дают один и тот же ключ.
+public final class NameNormalizer {
+
+    private NameNormalizer() {
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String composed = Normalizer.normalize(value, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+        // Как и equalsIgnoreCase, сравниваем и по верхнему, и по нижнему регистру (ß → SS → ss)
+        return composed.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+}
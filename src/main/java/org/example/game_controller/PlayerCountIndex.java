@@ -0,0 +1,112 @@
+package org.example.game_controller;
+
+import org.example.BoardGame;
+
+import java.util.*;
+
+// Индекс игр по количеству игроков: у каждой игры есть порядковый номер,
+// а для каждого числа игроков хранится BitSet подходящих игр.
+// Запрос «игры на N игроков» (и, при желании, категория) — пересечение битсетов.
+// Неизменяемый, как GameLookupIndex: добавление игр возвращает новую копию.
+public class PlayerCountIndex {
+    // Игры на большее число игроков попадают в последнюю корзину; запросы к ней проверяются поштучно
+    static final int MAX_INDEXED_PLAYERS = 32;
+
+    private final List<BoardGame> games;
+    private int[] averageTimes;
+    private final BitSet[] byPlayers;
+    private final Map<String, BitSet> byCategory;
+
+    public PlayerCountIndex(List<BoardGame> games) {
+        this(new ArrayList<>(), new int[Math.max(games.size(), 16)], new BitSet[MAX_INDEXED_PLAYERS + 1], new HashMap<>());
+        for (int i = 0; i <= MAX_INDEXED_PLAYERS; i++) {
+            byPlayers[i] = new BitSet();
+        }
+        games.forEach(this::put);
+    }
+
+    private PlayerCountIndex(List<BoardGame> games, int[] averageTimes, BitSet[] byPlayers, Map<String, BitSet> byCategory) {
+        this.games = games;
+        this.averageTimes = averageTimes;
+        this.byPlayers = byPlayers;
+        this.byCategory = byCategory;
+    }
+
+    // Битсеты по числу игроков копируются все (их немного), по категориям — только затронутые
+    public PlayerCountIndex withAll(List<BoardGame> added) {
+        BitSet[] players = new BitSet[byPlayers.length];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = (BitSet) byPlayers[i].clone();
+        }
+        Map<String, BitSet> categories = new HashMap<>(byCategory);
+        for (BoardGame game : added) {
+            if (game.getCategory() != null) {
+                String category = categoryKey(game.getCategory());
+                BitSet shared = byCategory.get(category);
+                if (shared != null && categories.get(category) == shared) {
+                    categories.put(category, (BitSet) shared.clone());
+                }
+            }
+        }
+        int[] times = Arrays.copyOf(averageTimes, Math.max(averageTimes.length, games.size() + added.size()));
+        PlayerCountIndex copy = new PlayerCountIndex(new ArrayList<>(games), times, players, categories);
+        added.forEach(copy::put);
+        return copy;
+    }
+
+    private void put(BoardGame game) {
+        int ordinal = games.size();
+        games.add(game);
+        if (ordinal == averageTimes.length) {
+            averageTimes = Arrays.copyOf(averageTimes, ordinal * 2);
+        }
+        averageTimes[ordinal] = game.getAverageTime();
+
+        // Игра от 40 игроков попадает только в последнюю корзину, иначе её не нашёл бы ни один запрос
+        int from = Math.min(Math.max(game.getMinPlayers(), 0), MAX_INDEXED_PLAYERS);
+        int to = Math.min(game.getMaxPlayers(), MAX_INDEXED_PLAYERS);
+        for (int players = from; players <= to; players++) {
+            byPlayers[players].set(ordinal);
+        }
+        if (game.getCategory() != null) {
+            byCategory.computeIfAbsent(categoryKey(game.getCategory()), c -> new BitSet()).set(ordinal);
+        }
+    }
+
+    // category == null — любая категория, maxAverageTime <= 0 — без ограничения по времени
+    public List<BoardGame> find(int players, String category, int maxAverageTime) {
+        if (players < 0) {
+            return new ArrayList<>();
+        }
+        BitSet candidates = (BitSet) byPlayers[Math.min(players, MAX_INDEXED_PLAYERS)].clone();
+        if (category != null) {
+            BitSet inCategory = byCategory.get(categoryKey(category));
+            if (inCategory == null) {
+                return new ArrayList<>();
+            }
+            candidates.and(inCategory);
+        }
+
+        List<BoardGame> result = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (maxAverageTime > 0 && averageTimes[i] > maxAverageTime) {
+                continue;
+            }
+            BoardGame game = games.get(i);
+            if (players >= MAX_INDEXED_PLAYERS
+                    && (game.getMinPlayers() > players || game.getMaxPlayers() < players)) {
+                continue;
+            }
+            result.add(game);
+        }
+        return result;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    private static String categoryKey(String category) {
+        return NameNormalizer.normalize(category);
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.game_controller;
+
+import org.example.GameSession;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Рейтинг Эло: общий и по каждой игре. Сессия — событие «победитель обыграл каждого из остальных»:
+// пары считаются по рейтингам до сессии, K делится на число соперников, поэтому партия вчетвером
+// весит столько же, сколько партия вдвоём, а сумма очков не меняется. Порядок событий важен,
+// поэтому сессии применяются от старых к новым; одинаковая история всегда даёт одинаковые рейтинги.
+// Не потокобезопасен: доступ синхронизирует владелец, GameSessionManager.
+public class RatingEngine {
+    public static final double INITIAL_RATING = 1500;
+    private static final double K = 32;
+
+    // Снимок рейтинга игрока в общем зачёте или в одной игре
+    public static class PlayerRating {
+        private final String player;
+        private final String gameName;
+        private final double rating;
+        private final int games;
+
+        PlayerRating(String player, String gameName, double rating, int games) {
+            this.player = player;
+            this.gameName = gameName;
+            this.rating = rating;
+            this.games = games;
+        }
+
+        public String getPlayer() { return player; }
+        // null — общий рейтинг
+        public String getGameName() { return gameName; }
+        public double getRating() { return rating; }
+        public int getGames() { return games; }
+    }
+
+    private static final class Rating {
+        private final String player;
+        private double value = INITIAL_RATING;
+        private int games;
+
+        Rating(String player) {
+            this.player = player;
+        }
+    }
+
+    // Рейтинги в одной игре или в общем зачёте
+    private static final class Table {
+        private final String gameName;
+        private final Map<String, Rating> ratings = new HashMap<>();
+
+        Table(String gameName) {
+            this.gameName = gameName;
+        }
+
+        // Поправки считаются по рейтингам до сессии и применяются после всех пар,
+        // чтобы порядок игроков не влиял на итог; losers и delta — рабочие массивы движка
+        void apply(String[] players, int count, int winner, Rating[] losers, double[] delta) {
+            Rating winnerRating = ratings.computeIfAbsent(players[winner], Rating::new);
+            int opponents = 0;
+            for (int i = 0; i < count; i++) {
+                if (i != winner) {
+                    losers[opponents++] = ratings.computeIfAbsent(players[i], Rating::new);
+                }
+            }
+            double k = K / opponents;
+            for (int i = 0; i < opponents; i++) {
+                double expected = 1 / (1 + Math.pow(10, (losers[i].value - winnerRating.value) / 400));
+                delta[i] = k * (1 - expected);
+            }
+            for (int i = 0; i < opponents; i++) {
+                losers[i].value -= delta[i];
+                losers[i].games++;
+                winnerRating.value += delta[i];
+            }
+            winnerRating.games++;
+        }
+
+        PlayerRating snapshot(String player) {
+            Rating rating = ratings.get(player);
+            return rating != null ? new PlayerRating(player, gameName, rating.value, rating.games) : null;
+        }
+    }
+
+    private final Table global = new Table(null);
+    private final Map<String, Table> byGame = new HashMap<>();
+    // Ключи игр без id по названию: нормализация дорогая, а различных названий немного
+    private final Map<String, String> nameKeys = new HashMap<>();
+    // Имена участников текущей сессии — ключи общей таблицы: в таблице игры они находятся
+    // сравнением ссылок, без посимвольного сравнения строк из сессии
+    private String[] names = new String[8];
+    private Rating[] losers = new Rating[8];
+    private double[] delta = new double[8];
+    private int appliedSessions;
+    private LocalDateTime lastDateTime;
+
+    // history — от старых к новым; сессии применяются по мере чтения потока, история не копируется
+    public void rebuild(Stream<GameSession> history) {
+        global.ratings.clear();
+        byGame.clear();
+        appliedSessions = 0;
+        lastDateTime = null;
+        history.forEach(this::apply);
+    }
+
+    // Сессия должна быть не старше уже учтённых (см. canAppend). Как и /stats, учитываются все сессии,
+    // включая незавершённые: победитель известен сразу. Сессии без победителя среди игроков
+    // и с единственным игроком рейтинг не меняют
+    public void apply(GameSession session) {
+        if (lastDateTime == null || session.getDateTime().isAfter(lastDateTime)) {
+            lastDateTime = session.getDateTime();
+        }
+        List<String> players = session.getPlayers();
+        String winner = session.getWinner();
+        if (players == null || players.size() < 2 || winner == null || hasDuplicates(players)) {
+            return;
+        }
+        int winnerIndex = players.indexOf(winner);
+        if (winnerIndex < 0) {
+            return;
+        }
+        if (names.length < players.size()) {
+            names = new String[players.size()];
+            losers = new Rating[players.size()];
+            delta = new double[players.size()];
+        }
+        for (int i = 0; i < players.size(); i++) {
+            names[i] = global.ratings.computeIfAbsent(players.get(i), Rating::new).player;
+        }
+        global.apply(names, players.size(), winnerIndex, losers, delta);
+        byGame.computeIfAbsent(gameKey(session), key -> new Table(session.getGameName()))
+                .apply(names, players.size(), winnerIndex, losers, delta);
+        appliedSessions++;
+    }
+
+    // Игроков в сессии единицы, поэтому попарное сравнение дешевле множества
+    private static boolean hasDuplicates(List<String> players) {
+        for (int i = 0; i < players.size(); i++) {
+            for (int j = i + 1; j < players.size(); j++) {
+                if (players.get(i).equals(players.get(j))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean canAppend(GameSession session) {
+        return lastDateTime == null || !session.getDateTime().isBefore(lastDateTime);
+    }
+
+    public int getAppliedSessions() {
+        return appliedSessions;
+    }
+
+    public PlayerRating getRating(String player) {
+        return global.snapshot(player);
+    }
+
+    // Рейтинги игрока во всех играх, где он играл, от высшего к низшему
+    public List<PlayerRating> getGameRatings(String player) {
+        List<PlayerRating> result = new ArrayList<>();
+        for (Table table : byGame.values()) {
+            PlayerRating rating = table.snapshot(player);
+            if (rating != null) {
+                result.add(rating);
+            }
+        }
+        result.sort(Comparator.comparingDouble(PlayerRating::getRating).reversed()
+                .thenComparing(PlayerRating::getGameName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public List<PlayerRating> getTop(int limit, int minGames) {
+        return top(global, limit, minGames);
+    }
+
+    // gameId — id игры из каталога, gameName — для сессий без id; пустой список, если партий не было
+    public List<PlayerRating> getTopForGame(String gameId, String gameName, int limit, int minGames) {
+        Table table = gameId != null ? byGame.get(gameId) : null;
+        if (table == null && gameName != null) {
+            table = byGame.get(nameKey(gameName));
+        }
+        return table != null ? top(table, limit, minGames) : List.of();
+    }
+
+    private static List<PlayerRating> top(Table table, int limit, int minGames) {
+        List<PlayerRating> result = new ArrayList<>();
+        table.ratings.forEach((player, rating) -> {
+            if (rating.games >= minGames) {
+                result.add(new PlayerRating(player, table.gameName, rating.value, rating.games));
+            }
+        });
+        result.sort(Comparator.comparingDouble(PlayerRating::getRating).reversed()
+                .thenComparing(PlayerRating::getPlayer));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private String gameKey(GameSession session) {
+        return session.getGameId() != null ? session.getGameId() : nameKey(session.getGameName());
+    }
+
+    private String nameKey(String gameName) {
+        return nameKeys.computeIfAbsent(gameName != null ? gameName : "", NameNormalizer::normalize);
+    }
+}
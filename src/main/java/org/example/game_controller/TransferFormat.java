@@ -0,0 +1,37 @@
+package org.example.game_controller;
+
+import java.util.Locale;
+
+// Форматы файлов для пакетного импорта и экспорта
+public enum TransferFormat {
+    CSV(".csv"), JSON(".json");
+
+    private final String extension;
+
+    TransferFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Формат по расширению файла; null — формат не поддерживается
+    public static TransferFormat fromFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (TransferFormat format : values()) {
+            if (lower.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    // Формат по имени из команды (csv, json); null — формат не поддерживается
+    public static TransferFormat fromName(String name) {
+        return name == null ? null : fromFileName("." + name.trim());
+    }
+}
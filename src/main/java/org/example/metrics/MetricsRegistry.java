@@ -0,0 +1,194 @@
+package org.example.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Именованные метрики с метками. Регистрация идёт под блокировкой и делается заранее:
+// вызывающий код держит у себя гистограмму или счётчик и пишет в них напрямую, без поиска по имени.
+// labels — пары «имя, значение», например ("command", "/stats").
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private enum Type {
+        SUMMARY("summary"), COUNTER("counter"), GAUGE("gauge");
+
+        private final String prometheusName;
+
+        Type(String prometheusName) {
+            this.prometheusName = prometheusName;
+        }
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        // Ключ — метки в формате Prometheus, {a="b",c="d"} или пустая строка
+        private final Map<String, Object> children = new LinkedHashMap<>();
+        // Те же метки парами «имя, значение», чтобы не разбирать строку обратно
+        private final Map<String, String[]> labels = new HashMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    // Повторная регистрация с теми же метками возвращает ту же гистограмму
+    public synchronized LatencyHistogram histogram(String name, String help, String... labels) {
+        Family family = family(name, help, Type.SUMMARY);
+        return (LatencyHistogram) family.children.computeIfAbsent(key(family, labels), key -> new LatencyHistogram());
+    }
+
+    public synchronized LongAdder counter(String name, String help, String... labels) {
+        Family family = family(name, help, Type.COUNTER);
+        return (LongAdder) family.children.computeIfAbsent(key(family, labels), key -> new LongAdder());
+    }
+
+    // Счётчик, который ведёт сам источник, например CachingBoardGameDao.getHits.
+    // Значение читается при каждом снятии метрик; повторная регистрация заменяет источник
+    public synchronized void counter(String name, String help, DoubleSupplier value, String... labels) {
+        Family family = family(name, help, Type.COUNTER);
+        family.children.put(key(family, labels), value);
+    }
+
+    // Значение читается при каждом снятии метрик; повторная регистрация заменяет источник
+    public synchronized void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        Family family = family(name, help, Type.GAUGE);
+        family.children.put(key(family, labels), value);
+    }
+
+    // Снимает метрику с регистрации, например когда закрыто хранилище, за которым следил источник
+    public synchronized void remove(String name, String... labels) {
+        Family family = families.get(name);
+        if (family != null) {
+            String key = formatLabels(labels);
+            family.children.remove(key);
+            family.labels.remove(key);
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована как " + family.type.prometheusName);
+        }
+        return family;
+    }
+
+    private static String key(Family family, String[] labels) {
+        String key = formatLabels(labels);
+        family.labels.putIfAbsent(key, labels.clone());
+        return key;
+    }
+
+    // Текстовый формат Prometheus 0.0.4. Гистограмма выгружается как summary
+    // с перцентилями в секундах и отдельной метрикой <имя>_max
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.prometheusName).append('\n');
+            for (Map.Entry<String, Object> child : family.children.entrySet()) {
+                String labels = child.getKey();
+                switch (family.type) {
+                    case SUMMARY:
+                        LatencyHistogram histogram = (LatencyHistogram) child.getValue();
+                        for (double quantile : QUANTILES) {
+                            sample(out, family.name, withLabel(labels, "quantile", formatNumber(quantile)),
+                                    seconds(histogram.getValueAtPercentile(quantile * 100)));
+                        }
+                        sample(out, family.name + "_sum", labels, seconds(histogram.getSumNanos()));
+                        sample(out, family.name + "_count", labels, histogram.getCount());
+                        break;
+                    case COUNTER:
+                        Object counter = child.getValue();
+                        sample(out, family.name, labels, counter instanceof LongAdder
+                                ? ((LongAdder) counter).sum() : ((DoubleSupplier) counter).getAsDouble());
+                        break;
+                    case GAUGE:
+                        sample(out, family.name, labels, ((DoubleSupplier) child.getValue()).getAsDouble());
+                        break;
+                }
+            }
+            if (family.type == Type.SUMMARY) {
+                out.append("# TYPE ").append(family.name).append("_max gauge\n");
+                for (Map.Entry<String, Object> child : family.children.entrySet()) {
+                    sample(out, family.name + "_max", child.getKey(),
+                            seconds(((LatencyHistogram) child.getValue()).getMaxNanos()));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    // Гистограммы семейства по значению метки label, для сводки в чате; без этой метки не попадают
+    public synchronized List<Map.Entry<String, LatencyHistogram>> histograms(String name, String label) {
+        List<Map.Entry<String, LatencyHistogram>> result = new ArrayList<>();
+        Family family = families.get(name);
+        if (family != null && family.type == Type.SUMMARY) {
+            family.children.forEach((key, histogram) -> {
+                String[] labels = family.labels.get(key);
+                for (int i = 0; i < labels.length; i += 2) {
+                    if (labels[i].equals(label)) {
+                        result.add(Map.entry(labels[i + 1], (LatencyHistogram) histogram));
+                        break;
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(formatNumber(value)).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String formatNumber(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки задаются парами имя-значение");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}